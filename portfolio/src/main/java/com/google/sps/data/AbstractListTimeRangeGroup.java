@@ -1,12 +1,101 @@
 package com.google.sps.data;
 
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.RandomAccess;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
 
 abstract class AbstractListTimeRangeGroup implements TimeRangeGroup {
   protected List<TimeRange> allTimeRanges;
 
+  // Null while statistics are disabled, so that the only cost of an operation is the null check.
+  protected OperationCounters counters = null;
+
+  /**
+   * Counts the operations of a group and what they cost. The counts are striped LongAdders, so
+   * recording them from several threads does not contend on a single field.
+   */
+  static final class OperationCounters {
+    private final LongAdder adds = new LongAdder();
+    private final LongAdder deletes = new LongAdder();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder comparisons = new LongAdder();
+    private final LongAdder rangesCopied = new LongAdder();
+    private final LongAccumulator peakSize = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Records adding {@code count} ranges, which compared and copied the given numbers of ranges.
+     */
+    void recordAdds(long count, long comparisons, long rangesCopied, int size) {
+      adds.add(count);
+      record(comparisons, rangesCopied, size);
+    }
+
+    /**
+     * Records deleting {@code count} ranges, which compared and copied the given numbers of ranges.
+     */
+    void recordDeletes(long count, long comparisons, long rangesCopied, int size) {
+      deletes.add(count);
+      record(comparisons, rangesCopied, size);
+    }
+
+    /** Records a lookup that compared the given number of ranges. */
+    void recordLookup(long comparisons) {
+      lookups.increment();
+      this.comparisons.add(comparisons);
+    }
+
+    private void record(long comparisons, long rangesCopied, int size) {
+      this.comparisons.add(comparisons);
+      this.rangesCopied.add(rangesCopied);
+      peakSize.accumulate(size);
+    }
+
+    TimeRangeGroupStats snapshot() {
+      return new TimeRangeGroupStats(
+          adds.sum(),
+          deletes.sum(),
+          lookups.sum(),
+          comparisons.sum(),
+          rangesCopied.sum(),
+          peakSize.get());
+    }
+  }
+
+  /**
+   * Starts or stops counting the operations of the group. Starting resets the counts, with the
+   * current number of ranges as the peak size. While counting is stopped, operations pay nothing
+   * but a null check.
+   */
+  public void setStatsEnabled(boolean enabled) {
+    if (!enabled) {
+      counters = null;
+    } else if (counters == null) {
+      counters = new OperationCounters();
+      counters.peakSize.accumulate(allTimeRanges.size());
+    }
+  }
+
+  /** Checks if the operations of the group are being counted. */
+  public boolean isStatsEnabled() {
+    return counters != null;
+  }
+
+  /**
+   * Returns a snapshot of the counts since statistics were enabled, or all zeros if they are
+   * disabled.
+   */
+  public TimeRangeGroupStats stats() {
+    OperationCounters currentCounters = counters;
+    return currentCounters == null
+        ? new TimeRangeGroupStats(0, 0, 0, 0, 0, 0)
+        : currentCounters.snapshot();
+  }
+
   /**
    * Helper method for merging two time ranges. This method is package-private so that it can be
    * tested.
@@ -16,24 +105,12 @@ abstract class AbstractListTimeRangeGroup implements TimeRangeGroup {
       throw new IllegalArgumentException("Merging two time ranges that do not overlap is invalid");
     }
 
-    Instant newTimeRangeStart;
-    Instant newTimeRangeEnd;
-
     // The new time range after merging should have the earlier start time
     // and the later end time among the two overlapping time ranges.
-    if (a.start().isBefore(b.start())) {
-      newTimeRangeStart = a.start();
-    } else {
-      newTimeRangeStart = b.start();
-    }
-
-    if (a.end().isBefore(b.end())) {
-      newTimeRangeEnd = b.end();
-    } else {
-      newTimeRangeEnd = a.end();
-    }
+    long newTimeRangeStart = Math.min(a.startEpochSecond(), b.startEpochSecond());
+    long newTimeRangeEnd = Math.max(a.endEpochSecond(), b.endEpochSecond());
 
-    return TimeRange.fromStartEnd(newTimeRangeStart, newTimeRangeEnd);
+    return TimeRange.fromEpochSeconds(newTimeRangeStart, newTimeRangeEnd);
   }
 
   /** Returns an iterator for the list of all time ranges. */
@@ -42,11 +119,223 @@ abstract class AbstractListTimeRangeGroup implements TimeRangeGroup {
     return allTimeRanges.iterator();
   }
 
-  /** Adds all the ranges from timeRanges into allTimeRanges. */
-  protected void addAllTimeRanges(Iterable<TimeRange> timeRanges) {
-    timeRanges.forEach(
-        (range) -> {
-          addTimeRange(range);
-        });
+  /** Returns a sized spliterator for the list of all time ranges, which splits like the list. */
+  @Override
+  public Spliterator<TimeRange> spliterator() {
+    return allTimeRanges.spliterator();
+  }
+
+  /**
+   * Returns a read-only view of the time ranges between {@code from} and {@code to}. If the list
+   * has random access, the view uses binary search to start iterating at the first time range that
+   * can be inside the window.
+   */
+  @Override
+  public TimeRangeGroup subGroup(Instant from, Instant to) {
+    long fromSecond = from.getEpochSecond();
+    return new SubTimeRangeGroup(
+        this,
+        fromSecond,
+        to.getEpochSecond(),
+        () -> allTimeRanges.listIterator(firstIndexEndingAtOrAfter(fromSecond)));
+  }
+
+  /**
+   * Adds all the given time ranges in one pass. The new ranges are sorted by start once, unless
+   * they already are, and then merged with the existing ranges in a single O(n + m) sweep. If the
+   * group is empty and the new ranges are already sorted and disjoint, they are adopted as they
+   * are.
+   */
+  @Override
+  public void addAll(Iterable<TimeRange> timeRanges) {
+    List<TimeRange> newTimeRanges = sortedByStart(timeRanges);
+    if (allTimeRanges.isEmpty() && isSortedAndDisjoint(newTimeRanges)) {
+      allTimeRanges.addAll(newTimeRanges);
+      if (counters != null) {
+        counters.recordAdds(
+            newTimeRanges.size(), newTimeRanges.size(), newTimeRanges.size(), newTimeRanges.size());
+      }
+      return;
+    }
+
+    List<TimeRange> mergedTimeRanges =
+        new ArrayList<TimeRange>(allTimeRanges.size() + newTimeRanges.size());
+    Iterator<TimeRange> existingIterator = allTimeRanges.iterator();
+    Iterator<TimeRange> newIterator = newTimeRanges.iterator();
+    TimeRange nextExisting = existingIterator.hasNext() ? existingIterator.next() : null;
+    TimeRange nextNew = newIterator.hasNext() ? newIterator.next() : null;
+
+    // Visits the ranges of both lists in order of start, merging each one into the
+    // last examined range if they overlap.
+    TimeRange lastExaminedTimeRange = null;
+    while (nextExisting != null || nextNew != null) {
+      TimeRange currentRange;
+      if (nextNew == null
+          || (nextExisting != null
+              && nextExisting.startEpochSecond() <= nextNew.startEpochSecond())) {
+        currentRange = nextExisting;
+        nextExisting = existingIterator.hasNext() ? existingIterator.next() : null;
+      } else {
+        currentRange = nextNew;
+        nextNew = newIterator.hasNext() ? newIterator.next() : null;
+      }
+
+      if (lastExaminedTimeRange == null) {
+        lastExaminedTimeRange = currentRange;
+      } else if (lastExaminedTimeRange.overlaps(currentRange)) {
+        lastExaminedTimeRange = mergeTwoTimeRanges(lastExaminedTimeRange, currentRange);
+      } else {
+        mergedTimeRanges.add(lastExaminedTimeRange);
+        lastExaminedTimeRange = currentRange;
+      }
+    }
+    if (lastExaminedTimeRange != null) {
+      mergedTimeRanges.add(lastExaminedTimeRange);
+    }
+
+    int previousSize = allTimeRanges.size();
+    allTimeRanges.clear();
+    allTimeRanges.addAll(mergedTimeRanges);
+    if (counters != null) {
+      // Each range of both lists is compared once in the sweep, and the result is copied twice.
+      counters.recordAdds(
+          newTimeRanges.size(),
+          previousSize + newTimeRanges.size(),
+          2L * mergedTimeRanges.size(),
+          allTimeRanges.size());
+    }
+  }
+
+  /**
+   * Deletes all the given time ranges in one pass. The ranges to delete are sorted by start once
+   * and merged together, and then every existing range is cut by the ones it overlaps in a single
+   * O(n + m) sweep.
+   */
+  @Override
+  public void deleteAll(Iterable<TimeRange> timeRangesToDelete) {
+    List<TimeRange> deletions = mergeOverlapping(sortedByStart(timeRangesToDelete));
+    List<TimeRange> remainingTimeRanges = new ArrayList<TimeRange>(allTimeRanges.size());
+
+    int firstDeletion = 0;
+    for (TimeRange currentRange : allTimeRanges) {
+      long currentRangeStart = currentRange.startEpochSecond();
+      long currentRangeEnd = currentRange.endEpochSecond();
+
+      // Deletions that end before this range cannot overlap it or any later range.
+      while (firstDeletion < deletions.size()
+          && deletions.get(firstDeletion).endEpochSecond() < currentRangeStart) {
+        firstDeletion++;
+      }
+
+      // Keeps the parts of this range between the deletions that overlap it.
+      long remainingStart = currentRangeStart;
+      for (int i = firstDeletion;
+          i < deletions.size() && deletions.get(i).startEpochSecond() <= currentRangeEnd;
+          i++) {
+        TimeRange deletion = deletions.get(i);
+        if (remainingStart < deletion.startEpochSecond()) {
+          remainingTimeRanges.add(
+              TimeRange.fromEpochSeconds(remainingStart, deletion.startEpochSecond()));
+        }
+        remainingStart = Math.max(remainingStart, deletion.endEpochSecond());
+      }
+
+      if (remainingStart == currentRangeStart) {
+        remainingTimeRanges.add(currentRange);
+      } else if (remainingStart < currentRangeEnd) {
+        remainingTimeRanges.add(TimeRange.fromEpochSeconds(remainingStart, currentRangeEnd));
+      }
+    }
+
+    int previousSize = allTimeRanges.size();
+    allTimeRanges.clear();
+    allTimeRanges.addAll(remainingTimeRanges);
+    if (counters != null) {
+      counters.recordDeletes(
+          deletions.size(),
+          previousSize + deletions.size(),
+          2L * remainingTimeRanges.size(),
+          previousSize);
+    }
+  }
+
+  /**
+   * Returns the given time ranges in a new list sorted by start. The list is only sorted if the
+   * ranges are not already in order.
+   */
+  static List<TimeRange> sortedByStart(Iterable<TimeRange> timeRanges) {
+    List<TimeRange> sortedTimeRanges = new ArrayList<TimeRange>();
+    boolean isSorted = true;
+    for (TimeRange timeRange : timeRanges) {
+      if (!sortedTimeRanges.isEmpty()
+          && sortedTimeRanges.get(sortedTimeRanges.size() - 1).startEpochSecond()
+              > timeRange.startEpochSecond()) {
+        isSorted = false;
+      }
+      sortedTimeRanges.add(timeRange);
+    }
+    if (!isSorted) {
+      sortedTimeRanges.sort(TimeRange.SORT_BY_START_TIME_ASCENDING);
+    }
+    return sortedTimeRanges;
+  }
+
+  /**
+   * Checks if each time range in a list sorted by start ends before the next one starts, which
+   * means that adding them one by one would not merge any of them.
+   */
+  static boolean isSortedAndDisjoint(List<TimeRange> timeRanges) {
+    for (int i = 1; i < timeRanges.size(); i++) {
+      if (timeRanges.get(i - 1).endEpochSecond() >= timeRanges.get(i).startEpochSecond()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Merges the overlapping or touching time ranges of a list sorted by start. Ranges with no
+   * duration are merged into any range that contains them.
+   */
+  static List<TimeRange> mergeOverlapping(List<TimeRange> sortedTimeRanges) {
+    List<TimeRange> mergedTimeRanges = new ArrayList<TimeRange>(sortedTimeRanges.size());
+    for (TimeRange timeRange : sortedTimeRanges) {
+      int lastIndex = mergedTimeRanges.size() - 1;
+      if (lastIndex >= 0
+          && timeRange.startEpochSecond() <= mergedTimeRanges.get(lastIndex).endEpochSecond()) {
+        TimeRange lastTimeRange = mergedTimeRanges.get(lastIndex);
+        mergedTimeRanges.set(
+            lastIndex,
+            TimeRange.fromEpochSeconds(
+                lastTimeRange.startEpochSecond(),
+                Math.max(lastTimeRange.endEpochSecond(), timeRange.endEpochSecond())));
+      } else {
+        mergedTimeRanges.add(timeRange);
+      }
+    }
+    return mergedTimeRanges;
+  }
+
+  /**
+   * Returns the index of the first range whose end is at or after the given second, or 0 if the
+   * list does not have random access. Because the ranges are disjoint and sorted by start, they are
+   * sorted by end as well.
+   */
+  int firstIndexEndingAtOrAfter(long epochSecond) {
+    if (!(allTimeRanges instanceof RandomAccess)) {
+      return 0;
+    }
+
+    int low = 0;
+    int high = allTimeRanges.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (allTimeRanges.get(middle).endEpochSecond() < epochSecond) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
   }
 }
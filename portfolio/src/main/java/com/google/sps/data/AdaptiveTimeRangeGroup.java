@@ -0,0 +1,143 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.Spliterator;
+
+/**
+ * Wraps the time ranges in the representation that suits their number. A small group is kept in a
+ * LongArrayTimeRangeGroup, whose binary searches and in-place shifts over a few cache lines beat
+ * any tree. Once a change makes the group grow past the migration threshold, the ranges are copied
+ * once into a TreeMapTimeRangeGroup, where every change takes O(log n) instead of shifting the
+ * arrays. The group never migrates back, so a group that shrinks again does not flip back and
+ * forth.
+ *
+ * <p>Iterators made before a migration keep reading the array representation, which is no longer
+ * changed.
+ */
+public class AdaptiveTimeRangeGroup implements TimeRangeGroup {
+  /** The number of ranges above which the group migrates to a tree, unless another is given. */
+  public static final int DEFAULT_MIGRATION_THRESHOLD = 64;
+
+  private final int migrationThreshold;
+
+  // Set while the group is still small, and null once it has migrated to the tree.
+  private LongArrayTimeRangeGroup arrayGroup;
+  private TimeRangeGroup timeRangeGroup;
+
+  /** Adds all the input time ranges, using the default migration threshold. */
+  public AdaptiveTimeRangeGroup(Iterable<TimeRange> timeRanges) {
+    this(timeRanges, DEFAULT_MIGRATION_THRESHOLD);
+  }
+
+  /**
+   * Adds all the input time ranges, migrating to a tree once there are more than {@code
+   * migrationThreshold} ranges.
+   *
+   * @throws IllegalArgumentException if the threshold is negative.
+   */
+  public AdaptiveTimeRangeGroup(Iterable<TimeRange> timeRanges, int migrationThreshold) {
+    if (migrationThreshold < 0) {
+      throw new IllegalArgumentException("The migration threshold cannot be negative");
+    }
+    this.migrationThreshold = migrationThreshold;
+    this.arrayGroup = new LongArrayTimeRangeGroup(timeRanges);
+    this.timeRangeGroup = arrayGroup;
+    migrateIfLarge();
+  }
+
+  /** Checks if the group has migrated to the tree representation. */
+  public boolean isTreeBacked() {
+    return arrayGroup == null;
+  }
+
+  @Override
+  public void addTimeRange(TimeRange timeRange) {
+    timeRangeGroup.addTimeRange(timeRange);
+    migrateIfLarge();
+  }
+
+  @Override
+  public void addTimeRange(TimeRange timeRange, TimeRangeGroupDelta delta) {
+    timeRangeGroup.addTimeRange(timeRange, delta);
+    migrateIfLarge();
+  }
+
+  @Override
+  public boolean hasTimeRange(TimeRange timeRange) {
+    return timeRangeGroup.hasTimeRange(timeRange);
+  }
+
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete) {
+    timeRangeGroup.deleteTimeRange(timeRangeToDelete);
+    migrateIfLarge();
+  }
+
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete, TimeRangeGroupDelta delta) {
+    timeRangeGroup.deleteTimeRange(timeRangeToDelete, delta);
+    migrateIfLarge();
+  }
+
+  @Override
+  public void addAll(Iterable<TimeRange> timeRanges) {
+    timeRangeGroup.addAll(timeRanges);
+    migrateIfLarge();
+  }
+
+  @Override
+  public void deleteAll(Iterable<TimeRange> timeRangesToDelete) {
+    timeRangeGroup.deleteAll(timeRangesToDelete);
+    migrateIfLarge();
+  }
+
+  @Override
+  public Iterator<TimeRange> iterator() {
+    return timeRangeGroup.iterator();
+  }
+
+  @Override
+  public Spliterator<TimeRange> spliterator() {
+    return timeRangeGroup.spliterator();
+  }
+
+  @Override
+  public Optional<TimeRange> findFirstFit(Duration duration) {
+    return timeRangeGroup.findFirstFit(duration);
+  }
+
+  @Override
+  public Optional<TimeRange> findBestFit(Duration duration) {
+    return timeRangeGroup.findBestFit(duration);
+  }
+
+  @Override
+  public Duration totalFreeDuration(Instant from, Instant to) {
+    return timeRangeGroup.totalFreeDuration(from, to);
+  }
+
+  /**
+   * Returns a read-only view of the time ranges between {@code from} and {@code to}. Every time the
+   * view is iterated, it starts from the current representation, so it reflects changes made after
+   * a migration too.
+   */
+  @Override
+  public TimeRangeGroup subGroup(Instant from, Instant to) {
+    return new SubTimeRangeGroup(
+        this,
+        from.getEpochSecond(),
+        to.getEpochSecond(),
+        () -> timeRangeGroup.subGroup(from, Instant.MAX).iterator());
+  }
+
+  /** Copies the ranges into a tree if the array representation has grown past the threshold. */
+  private void migrateIfLarge() {
+    if (arrayGroup != null && arrayGroup.size() > migrationThreshold) {
+      timeRangeGroup = new TreeMapTimeRangeGroup(arrayGroup);
+      arrayGroup = null;
+    }
+  }
+}
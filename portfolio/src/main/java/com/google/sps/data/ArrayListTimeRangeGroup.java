@@ -1,8 +1,6 @@
 package com.google.sps.data;
 
-import java.time.Instant;
 import java.util.ArrayList;
-import java.util.List;
 
 /** Models an implementation of the TimeRangeGroup model using ArrayList. */
 public class ArrayListTimeRangeGroup extends AbstractListTimeRangeGroup implements TimeRangeGroup {
@@ -13,72 +11,48 @@ public class ArrayListTimeRangeGroup extends AbstractListTimeRangeGroup implemen
    */
   public ArrayListTimeRangeGroup(Iterable<TimeRange> timeRanges) {
     allTimeRanges = new ArrayList<TimeRange>();
-    addAllTimeRanges(timeRanges);
+    addAll(timeRanges);
   }
 
   /**
    * Adds a new time range to the list. If the time range to add overlaps with any existing time
-   * range, the overlapping time ranges will be merged.
+   * range, the overlapping time ranges will be merged. The overlapping ranges are next to each
+   * other, so they are replaced by the merged range in place, and the list is never copied. The
+   * only object this can create is the merged range, when it is neither the new range nor an
+   * existing one.
    */
   @Override
   public void addTimeRange(TimeRange timeRange) {
-    // If the original allTimeRanges list is empty,
-    // this is the first time we add anything to the list,
-    // so simply add the new time range to the list and return.
-    if (allTimeRanges.isEmpty()) {
-      allTimeRanges.add(timeRange);
-      return;
+    int previousSize = allTimeRanges.size();
+    long mergedStart = timeRange.startEpochSecond();
+    long mergedEnd = timeRange.endEpochSecond();
+
+    // Ranges that end before the new range starts cannot overlap it.
+    int firstIndex = firstIndexEndingAtOrAfter(mergedStart);
+    int lastIndex = firstIndex;
+    while (lastIndex < previousSize && allTimeRanges.get(lastIndex).overlaps(timeRange)) {
+      TimeRange currentRange = allTimeRanges.get(lastIndex);
+      mergedStart = Math.min(mergedStart, currentRange.startEpochSecond());
+      mergedEnd = Math.max(mergedEnd, currentRange.endEpochSecond());
+      lastIndex++;
     }
 
-    List<TimeRange> newTimeRanges = new ArrayList<TimeRange>();
-
-    // This variable represents the latest time range previously exmamined.
-    // Initially, this variable points to the time range we want to add.
-    // As the for loop iterates through all the current time ranges already existing
-    // in allTimeRanges, this lastExaminedTimeRange variable is the time range with which
-    // any existing time range merges with, if necessary.
-    TimeRange lastExaminedTimeRange = timeRange;
-
-    for (int i = 0; i < allTimeRanges.size(); i++) {
-      TimeRange currentRange = allTimeRanges.get(i);
-
-      // If the current range is completely contained by the lastExaminedTimeRange,
-      // no merging or adding needs to happen.
-      if (lastExaminedTimeRange.contains(currentRange)) {
-        if (i == allTimeRanges.size() - 1) {
-          newTimeRanges.add(lastExaminedTimeRange);
-        }
-        continue;
-      }
-
-      // The case for when two time ranges need to be merged.
-      // Change the lastExaminedTimeRange pointer to the new time range created
-      // after the merging.
-      if (lastExaminedTimeRange.overlaps(currentRange)) {
-        lastExaminedTimeRange = mergeTwoTimeRanges(currentRange, lastExaminedTimeRange);
-      } else if (currentRange.end().isAfter(lastExaminedTimeRange.end())) {
-        // This is the case that lastExaminedTimeRange and the current time range do not overlap.
-        // If the current range from the original list ends after the last examined time range,
-        // add the time range pointed to by lastExaminedTimeRange to the new list of all ranges, and
-        // change the lastExaminedTimeRange to point to the current range.
-        newTimeRanges.add(lastExaminedTimeRange);
-        lastExaminedTimeRange = currentRange;
-      } else {
-        // If lastExaminedTimeRange is later than the current range,
-        // add the current range to the new list of all ranges.
-        // The lastExaminedTimeRange pointer shouldn't move.
-        newTimeRanges.add(currentRange);
-      }
-
-      // If current time range is the last element in the allTimeRanges list,
-      // add the last examined time range to the new list.
-      if (i == allTimeRanges.size() - 1) {
-        newTimeRanges.add(lastExaminedTimeRange);
-      }
+    if (firstIndex == lastIndex) {
+      allTimeRanges.add(firstIndex, timeRange);
+    } else {
+      allTimeRanges.set(
+          firstIndex,
+          reuseOrCreate(mergedStart, mergedEnd, timeRange, allTimeRanges.get(firstIndex)));
+      removeRanges(firstIndex + 1, lastIndex);
     }
 
-    // Finally, set the global variable allTimeRanges to this newly built list of time ranges.
-    allTimeRanges = newTimeRanges;
+    if (counters != null) {
+      counters.recordAdds(
+          1,
+          searchComparisons(previousSize) + lastIndex - firstIndex + 1,
+          previousSize - lastIndex,
+          allTimeRanges.size());
+    }
   }
 
   /**
@@ -91,24 +65,34 @@ public class ArrayListTimeRangeGroup extends AbstractListTimeRangeGroup implemen
   @Override
   public boolean hasTimeRange(TimeRange timeRangeToCheck) {
     if (allTimeRanges.isEmpty()) {
+      if (counters != null) {
+        counters.recordLookup(0);
+      }
       return false;
     }
 
     int end = allTimeRanges.size() - 1;
     int start = 0;
+    int comparisons = 1;
 
     while (start < end) {
+      comparisons++;
       int middle = (start + end) / 2;
       TimeRange middleRange = allTimeRanges.get(middle);
-      if (middleRange.start().isAfter(timeRangeToCheck.start())) {
+      if (middleRange.startEpochSecond() > timeRangeToCheck.startEpochSecond()) {
         end = middle - 1;
-      } else if (middleRange.end().isBefore(timeRangeToCheck.end())) {
+      } else if (middleRange.endEpochSecond() < timeRangeToCheck.endEpochSecond()) {
         start = middle + 1;
       } else {
+        // The middle range is the only one that can contain the range to check.
+        start = middle;
         break;
       }
     }
 
+    if (counters != null) {
+      counters.recordLookup(comparisons);
+    }
     return allTimeRanges.get(start).contains(timeRangeToCheck);
   }
 
@@ -122,31 +106,86 @@ public class ArrayListTimeRangeGroup extends AbstractListTimeRangeGroup implemen
    *
    * <p>Another example for deleting overlapping time ranges: if [3 - 4] and [5 - 6] are in the
    * original list, deleting [3:30 - 5:30] will result in two new ranges: [3 - 3:30] and [5:30 - 6].
+   *
+   * <p>The affected ranges are next to each other, so they are replaced by what is left of them in
+   * place, and the list is never copied. The only objects this can create are the ranges that are
+   * left of a cut range.
    */
   @Override
   public void deleteTimeRange(TimeRange timeRangeToDelete) {
-    List<TimeRange> newTimeRanges = new ArrayList<TimeRange>();
-
-    for (TimeRange currentRange : allTimeRanges) {
-      if (currentRange.overlaps(timeRangeToDelete)) {
-        Instant currentRangeStart = currentRange.start();
-        Instant currentRangeEnd = currentRange.end();
-        Instant toDeleteRangeStart = timeRangeToDelete.start();
-        Instant toDeleteRangeEnd = timeRangeToDelete.end();
-
-        // Construct one or two new time ranges after the deletion.
-        if (currentRangeStart.isBefore(toDeleteRangeStart)) {
-          newTimeRanges.add(TimeRange.fromStartEnd(currentRangeStart, toDeleteRangeStart));
-        }
-
-        if (currentRangeEnd.isAfter(toDeleteRangeEnd)) {
-          newTimeRanges.add(TimeRange.fromStartEnd(toDeleteRangeEnd, currentRangeEnd));
-        }
-      } else {
-        newTimeRanges.add(currentRange);
+    int previousSize = allTimeRanges.size();
+    long toDeleteRangeStart = timeRangeToDelete.startEpochSecond();
+    long toDeleteRangeEnd = timeRangeToDelete.endEpochSecond();
+
+    int firstIndex = firstIndexEndingAtOrAfter(toDeleteRangeStart);
+    int lastIndex = firstIndex;
+    while (lastIndex < previousSize && allTimeRanges.get(lastIndex).overlaps(timeRangeToDelete)) {
+      lastIndex++;
+    }
+
+    if (firstIndex < lastIndex) {
+      // Only the first affected range can keep a part before the deleted range,
+      // and only the last affected range can keep a part after it. A range that only touches
+      // the deleted range keeps all of itself.
+      TimeRange firstRange = allTimeRanges.get(firstIndex);
+      TimeRange lastRange = allTimeRanges.get(lastIndex - 1);
+      TimeRange rangeBefore =
+          firstRange.startEpochSecond() < toDeleteRangeStart
+              ? reuseOrCreate(
+                  firstRange.startEpochSecond(), toDeleteRangeStart, firstRange, firstRange)
+              : null;
+      TimeRange rangeAfter =
+          lastRange.endEpochSecond() > toDeleteRangeEnd
+              ? reuseOrCreate(toDeleteRangeEnd, lastRange.endEpochSecond(), lastRange, lastRange)
+              : null;
+
+      int index = firstIndex;
+      if (rangeBefore != null) {
+        allTimeRanges.set(index++, rangeBefore);
       }
+      if (rangeAfter != null && index < lastIndex) {
+        allTimeRanges.set(index++, rangeAfter);
+      } else if (rangeAfter != null) {
+        // The deleted range splits a single range in two.
+        allTimeRanges.add(index++, rangeAfter);
+      }
+      removeRanges(index, lastIndex);
+    }
+
+    if (counters != null) {
+      counters.recordDeletes(
+          1,
+          searchComparisons(previousSize) + lastIndex - firstIndex + 1,
+          previousSize - lastIndex,
+          allTimeRanges.size());
     }
+  }
+
+  /**
+   * Returns one of the given ranges if it is [start, end], so that a change that keeps a range does
+   * not create a new object for it, or a new range otherwise.
+   */
+  private static TimeRange reuseOrCreate(long start, long end, TimeRange first, TimeRange second) {
+    if (first.startEpochSecond() == start && first.endEpochSecond() == end) {
+      return first;
+    }
+    if (second.startEpochSecond() == start && second.endEpochSecond() == end) {
+      return second;
+    }
+    return TimeRange.fromEpochSeconds(start, end);
+  }
+
+  /** Removes the ranges in [fromIndex, toIndex), shifting the ranges after them in place. */
+  private void removeRanges(int fromIndex, int toIndex) {
+    if (toIndex - fromIndex == 1) {
+      allTimeRanges.remove(fromIndex);
+    } else if (toIndex > fromIndex) {
+      allTimeRanges.subList(fromIndex, toIndex).clear();
+    }
+  }
 
-    allTimeRanges = newTimeRanges;
+  /** Returns the number of ranges a binary search over the given number of ranges compares. */
+  private static int searchComparisons(int size) {
+    return Integer.SIZE - Integer.numberOfLeadingZeros(size);
   }
 }
@@ -0,0 +1,63 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Schedules the tasks from longest to shortest, placing each one at the start of the shortest free
+ * time range it fits in. Unlike Shortest Task First, which moves on to the next free time range as
+ * soon as a task does not fit, every task can go into any free time range, including what is left
+ * of a range after earlier tasks took part of it. Tasks are never split, and a task that fits in no
+ * free time range is not scheduled.
+ */
+class BestFitScheduler implements TaskScheduler {
+
+  /**
+   * Schedules the tasks with best fit, longest task first, and returns a ScheduledTask Collection
+   * based on the tasks that were able to be scheduled, in the order they were scheduled.
+   */
+  public Collection<ScheduledTask> schedule(
+      Collection<CalendarEvent> events,
+      Collection<Task> tasks,
+      Instant workHoursStartTime,
+      Instant workHoursEndTime) {
+    List<CalendarEvent> eventsList = new ArrayList<CalendarEvent>(events);
+    List<Task> tasksList = new ArrayList<Task>(tasks);
+    TaskQueue taskQueue = new TaskQueue(tasksList, getSchedulingAlgorithmType());
+
+    CalendarEventsGroup calendarEventsGroup =
+        new CalendarEventsGroup(eventsList, workHoursStartTime, workHoursEndTime);
+
+    // The size class index finds the best fit by looking only at the free time ranges
+    // of about the size of each task.
+    SizeClassTimeRangeGroup availableTimesGroup =
+        new SizeClassTimeRangeGroup(
+            new LongArrayTimeRangeGroup(calendarEventsGroup.getFreeTimeRanges()));
+
+    List<ScheduledTask> scheduledTasks = new ArrayList<ScheduledTask>();
+    while (!taskQueue.isEmpty()) {
+      Task task = taskQueue.peek();
+      Duration taskDuration = task.getDuration();
+      Optional<TimeRange> bestFit = availableTimesGroup.findBestFit(taskDuration);
+      if (bestFit.isPresent()) {
+        Instant scheduledTime = bestFit.get().start();
+        scheduledTasks.add(
+            new ScheduledTask(
+                task, scheduledTime, Optional.of(SchedulingCompleteness.COMPLETELY_SCHEDULED)));
+        availableTimesGroup.deleteTimeRange(
+            TimeRange.fromStartEnd(scheduledTime, scheduledTime.plus(taskDuration)));
+      }
+      taskQueue.remove();
+    }
+    return scheduledTasks;
+  }
+
+  /** Returns the scheduler's type, which is Best Fit. */
+  public SchedulingAlgorithmType getSchedulingAlgorithmType() {
+    return SchedulingAlgorithmType.BEST_FIT;
+  }
+}
@@ -0,0 +1,392 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+
+/**
+ * Models an implementation of the TimeRangeGroup model for a fixed horizon, such as a work day,
+ * using one bit per minute packed into an array of primitive longs. Minute {@code i} of the horizon
+ * is bit {@code i % 64} of word {@code i / 64}, and the bit is set if that minute is in the group.
+ * Adding and deleting a time range set and clear whole words with masks, and {@code hasTimeRange}
+ * compares each word against a mask. A horizon of one day takes 23 longs.
+ *
+ * <p>Because of this, every range added or deleted must start and end on a whole minute from the
+ * start of the horizon, and ranges added must lie inside the horizon. Ranges with no duration cover
+ * no minute, so they are not stored. Touching ranges are merged, like in the other implementations,
+ * so a group converts to an {@code ArrayListTimeRangeGroup} and back without losing anything.
+ */
+public class BitmapTimeRangeGroup implements TimeRangeGroup {
+  private static final long SECONDS_PER_MINUTE = 60;
+  private static final int BITS_PER_WORD = 64;
+  private static final long ALL_BITS = -1L;
+
+  private final long horizonStartSecond;
+  private final int horizonMinutes;
+  private final long[] words;
+
+  // Counts structural changes so that iterators can detect concurrent modification.
+  private int modificationCount = 0;
+
+  /**
+   * Creates an empty group for the horizon from {@code horizonStart} to {@code horizonEnd}. The
+   * horizon must be a positive whole number of minutes.
+   */
+  public BitmapTimeRangeGroup(Instant horizonStart, Instant horizonEnd) {
+    Duration horizon = Duration.between(horizonStart, horizonEnd);
+    if (horizon.isNegative()
+        || horizon.isZero()
+        || horizonStart.getNano() != 0
+        || horizon.getNano() != 0
+        || horizon.getSeconds() % SECONDS_PER_MINUTE != 0
+        || horizon.toMinutes() > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException(
+          "The horizon must be a positive whole number of minutes: " + horizon);
+    }
+
+    this.horizonStartSecond = horizonStart.getEpochSecond();
+    this.horizonMinutes = (int) horizon.toMinutes();
+    this.words = new long[(horizonMinutes + BITS_PER_WORD - 1) / BITS_PER_WORD];
+  }
+
+  /**
+   * Creates a group for the horizon from {@code horizonStart} to {@code horizonEnd} and adds all
+   * the input time ranges to it. This is also how an {@code ArrayListTimeRangeGroup} is converted.
+   */
+  public BitmapTimeRangeGroup(
+      Instant horizonStart, Instant horizonEnd, Iterable<TimeRange> timeRanges) {
+    this(horizonStart, horizonEnd);
+    timeRanges.forEach(
+        (range) -> {
+          addTimeRange(range);
+        });
+  }
+
+  /** Returns the start of the horizon this group covers. */
+  public Instant getHorizonStart() {
+    return Instant.ofEpochSecond(horizonStartSecond);
+  }
+
+  /** Returns the end of the horizon this group covers. */
+  public Instant getHorizonEnd() {
+    return Instant.ofEpochSecond(horizonStartSecond + horizonMinutes * SECONDS_PER_MINUTE);
+  }
+
+  /** Converts this group into an {@code ArrayListTimeRangeGroup} with the same time ranges. */
+  public ArrayListTimeRangeGroup toArrayListTimeRangeGroup() {
+    return new ArrayListTimeRangeGroup(this);
+  }
+
+  /**
+   * Adds a new time range to the group by setting the bits of all its minutes. Overlapping and
+   * touching ranges are merged by construction.
+   *
+   * @throws IllegalArgumentException if the range does not start and end on a whole minute, or is
+   *     not inside the horizon.
+   */
+  @Override
+  public void addTimeRange(TimeRange timeRange) {
+    int fromMinute = toMinute(timeRange.startEpochSecond());
+    int toMinute = toMinute(timeRange.endEpochSecond());
+    if (fromMinute < 0 || toMinute > horizonMinutes) {
+      throw new IllegalArgumentException("The time range is outside the horizon: " + timeRange);
+    }
+    if (fromMinute < toMinute) {
+      setBits(fromMinute, toMinute);
+      modificationCount++;
+    }
+  }
+
+  /**
+   * Checks if a time range exists in the group. For example, if [3:00 - 4:00] is in the group,
+   * [3:00 - 3:30] is considered to exist as a time range in the group. The range does not need to
+   * be on whole minutes: it exists if every minute it touches is in the group.
+   */
+  @Override
+  public boolean hasTimeRange(TimeRange timeRangeToCheck) {
+    long startOffset = timeRangeToCheck.startEpochSecond() - horizonStartSecond;
+    long endOffset = timeRangeToCheck.endEpochSecond() - horizonStartSecond;
+
+    if (endOffset <= startOffset) {
+      // A range with no duration is a point, which the end of a range also contains.
+      long minute = Math.floorDiv(startOffset, SECONDS_PER_MINUTE);
+      boolean onMinute = Math.floorMod(startOffset, SECONDS_PER_MINUTE) == 0;
+      return isBitSet(minute) || (onMinute && isBitSet(minute - 1));
+    }
+
+    long fromMinute = Math.floorDiv(startOffset, SECONDS_PER_MINUTE);
+    long toMinute = Math.floorDiv(endOffset + SECONDS_PER_MINUTE - 1, SECONDS_PER_MINUTE);
+    if (fromMinute < 0 || toMinute > horizonMinutes) {
+      return false;
+    }
+    return areBitsSet((int) fromMinute, (int) toMinute);
+  }
+
+  /**
+   * Deletes a time range from the group by clearing the bits of all its minutes. The parts of the
+   * range outside the horizon are ignored.
+   *
+   * @throws IllegalArgumentException if the range does not start and end on a whole minute.
+   */
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete) {
+    long startOffset = timeRangeToDelete.startEpochSecond() - horizonStartSecond;
+    long endOffset = timeRangeToDelete.endEpochSecond() - horizonStartSecond;
+    if (startOffset % SECONDS_PER_MINUTE != 0 || endOffset % SECONDS_PER_MINUTE != 0) {
+      throw new IllegalArgumentException(
+          "The time range must start and end on a whole minute: " + timeRangeToDelete);
+    }
+
+    int fromMinute = (int) Math.max(0, Math.min(horizonMinutes, startOffset / SECONDS_PER_MINUTE));
+    int toMinute = (int) Math.max(0, Math.min(horizonMinutes, endOffset / SECONDS_PER_MINUTE));
+    if (fromMinute < toMinute) {
+      clearBits(fromMinute, toMinute);
+      modificationCount++;
+    }
+  }
+
+  /**
+   * Returns an iterator for all time ranges, in ascending order of start time. Each time range is a
+   * maximal run of set bits.
+   */
+  @Override
+  public Iterator<TimeRange> iterator() {
+    return new Iterator<TimeRange>() {
+      private final int expectedModificationCount = modificationCount;
+      private int nextStartMinute = nextSetBit(0);
+
+      @Override
+      public boolean hasNext() {
+        return nextStartMinute < horizonMinutes;
+      }
+
+      @Override
+      public TimeRange next() {
+        if (modificationCount != expectedModificationCount) {
+          throw new ConcurrentModificationException();
+        }
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        int endMinute = nextClearBit(nextStartMinute);
+        TimeRange timeRange = toTimeRange(nextStartMinute, endMinute);
+        nextStartMinute = nextSetBit(endMinute);
+        return timeRange;
+      }
+    };
+  }
+
+  /**
+   * Finds the earliest time range that is long enough to fit the given duration. The duration is
+   * rounded up to whole minutes, since every range in the group is made of whole minutes.
+   */
+  @Override
+  public Optional<TimeRange> findFirstFit(Duration duration) {
+    long seconds = duration.getSeconds() + (duration.getNano() > 0 ? 1 : 0);
+    long minutes = (seconds + SECONDS_PER_MINUTE - 1) / SECONDS_PER_MINUTE;
+    if (minutes > horizonMinutes) {
+      return Optional.empty();
+    }
+
+    // The earliest run of enough minutes always starts at the start of its time range.
+    int startMinute = findFirstRun((int) Math.max(1, minutes));
+    if (startMinute < 0) {
+      return Optional.empty();
+    }
+    return Optional.of(toTimeRange(startMinute, nextClearBit(startMinute)));
+  }
+
+  /**
+   * Finds the start of the earliest run of {@code minutes} consecutive minutes in the group.
+   *
+   * @return the start of the run, or empty if there is no such run.
+   */
+  public Optional<Instant> findFirstFreeMinutes(int minutes) {
+    if (minutes <= 0) {
+      throw new IllegalArgumentException("The number of minutes must be positive: " + minutes);
+    }
+    if (minutes > horizonMinutes) {
+      return Optional.empty();
+    }
+
+    int startMinute = findFirstRun(minutes);
+    if (startMinute < 0) {
+      return Optional.empty();
+    }
+    return Optional.of(
+        Instant.ofEpochSecond(horizonStartSecond + startMinute * SECONDS_PER_MINUTE));
+  }
+
+  /**
+   * Returns the first minute of the earliest run of {@code minutes} set bits, or -1 if there is
+   * none. Runs inside a word are found with shift-and-AND, and runs across words are found by
+   * carrying the number of set bits at the top of the previous words.
+   */
+  private int findFirstRun(int minutes) {
+    // The number of set bits that end right before the current word.
+    long carriedRun = 0;
+
+    for (int wordIndex = 0; wordIndex < words.length; wordIndex++) {
+      long word = words[wordIndex];
+      int wordStartMinute = wordIndex * BITS_PER_WORD;
+
+      // A run continuing from the previous words starts before any run inside this word.
+      if (carriedRun + Long.numberOfTrailingZeros(~word) >= minutes) {
+        return (int) (wordStartMinute - carriedRun);
+      }
+      if (word == ALL_BITS) {
+        carriedRun += BITS_PER_WORD;
+        continue;
+      }
+
+      if (minutes <= BITS_PER_WORD) {
+        long runStarts = runStarts(word, minutes);
+        if (runStarts != 0) {
+          return wordStartMinute + Long.numberOfTrailingZeros(runStarts);
+        }
+      }
+      carriedRun = Long.numberOfLeadingZeros(~word);
+    }
+    return -1;
+  }
+
+  /**
+   * Returns a word whose bit {@code i} is set if bits {@code i} to {@code i + length - 1} of the
+   * given word are all set. Each step ANDs the word with itself shifted by the length covered so
+   * far, so the loop runs log(length) times.
+   */
+  private static long runStarts(long word, int length) {
+    long runStarts = word;
+    int covered = 1;
+    while (covered < length) {
+      int shift = Math.min(covered, length - covered);
+      runStarts &= runStarts >>> shift;
+      covered += shift;
+    }
+    return runStarts;
+  }
+
+  /** Sets the bits of the minutes from {@code fromMinute} (inclusive) to {@code toMinute}. */
+  private void setBits(int fromMinute, int toMinute) {
+    int firstWord = fromMinute / BITS_PER_WORD;
+    int lastWord = (toMinute - 1) / BITS_PER_WORD;
+    long firstMask = ALL_BITS << fromMinute;
+    long lastMask = ALL_BITS >>> -toMinute;
+
+    if (firstWord == lastWord) {
+      words[firstWord] |= firstMask & lastMask;
+      return;
+    }
+    words[firstWord] |= firstMask;
+    Arrays.fill(words, firstWord + 1, lastWord, ALL_BITS);
+    words[lastWord] |= lastMask;
+  }
+
+  /** Clears the bits of the minutes from {@code fromMinute} (inclusive) to {@code toMinute}. */
+  private void clearBits(int fromMinute, int toMinute) {
+    int firstWord = fromMinute / BITS_PER_WORD;
+    int lastWord = (toMinute - 1) / BITS_PER_WORD;
+    long firstMask = ALL_BITS << fromMinute;
+    long lastMask = ALL_BITS >>> -toMinute;
+
+    if (firstWord == lastWord) {
+      words[firstWord] &= ~(firstMask & lastMask);
+      return;
+    }
+    words[firstWord] &= ~firstMask;
+    Arrays.fill(words, firstWord + 1, lastWord, 0L);
+    words[lastWord] &= ~lastMask;
+  }
+
+  /** Checks if the bits of the minutes from {@code fromMinute} to {@code toMinute} are all set. */
+  private boolean areBitsSet(int fromMinute, int toMinute) {
+    int firstWord = fromMinute / BITS_PER_WORD;
+    int lastWord = (toMinute - 1) / BITS_PER_WORD;
+    long firstMask = ALL_BITS << fromMinute;
+    long lastMask = ALL_BITS >>> -toMinute;
+
+    if (firstWord == lastWord) {
+      long mask = firstMask & lastMask;
+      return (words[firstWord] & mask) == mask;
+    }
+    if ((words[firstWord] & firstMask) != firstMask) {
+      return false;
+    }
+    for (int wordIndex = firstWord + 1; wordIndex < lastWord; wordIndex++) {
+      if (words[wordIndex] != ALL_BITS) {
+        return false;
+      }
+    }
+    return (words[lastWord] & lastMask) == lastMask;
+  }
+
+  private boolean isBitSet(long minute) {
+    if (minute < 0 || minute >= horizonMinutes) {
+      return false;
+    }
+    return (words[(int) (minute / BITS_PER_WORD)] & (1L << minute)) != 0;
+  }
+
+  /** Returns the first set minute at or after {@code fromMinute}, or the horizon length if none. */
+  private int nextSetBit(int fromMinute) {
+    if (fromMinute >= horizonMinutes) {
+      return horizonMinutes;
+    }
+    int wordIndex = fromMinute / BITS_PER_WORD;
+    long word = words[wordIndex] & (ALL_BITS << fromMinute);
+    while (word == 0) {
+      if (++wordIndex == words.length) {
+        return horizonMinutes;
+      }
+      word = words[wordIndex];
+    }
+    return wordIndex * BITS_PER_WORD + Long.numberOfTrailingZeros(word);
+  }
+
+  /**
+   * Returns the first clear minute at or after {@code fromMinute}, or the horizon length if none.
+   */
+  private int nextClearBit(int fromMinute) {
+    if (fromMinute >= horizonMinutes) {
+      return horizonMinutes;
+    }
+    int wordIndex = fromMinute / BITS_PER_WORD;
+    long word = ~words[wordIndex] & (ALL_BITS << fromMinute);
+    while (word == 0) {
+      if (++wordIndex == words.length) {
+        return horizonMinutes;
+      }
+      word = ~words[wordIndex];
+    }
+    return Math.min(horizonMinutes, wordIndex * BITS_PER_WORD + Long.numberOfTrailingZeros(word));
+  }
+
+  /**
+   * Converts a second inside the horizon to a minute of the horizon.
+   *
+   * @throws IllegalArgumentException if the second is not on a whole minute of the horizon.
+   */
+  private int toMinute(long epochSecond) {
+    long offset = epochSecond - horizonStartSecond;
+    if (offset % SECONDS_PER_MINUTE != 0) {
+      throw new IllegalArgumentException(
+          "The time range must start and end on a whole minute: "
+              + Instant.ofEpochSecond(epochSecond));
+    }
+    long minute = offset / SECONDS_PER_MINUTE;
+    if (minute < 0) {
+      return -1;
+    }
+    return (int) Math.min(minute, Integer.MAX_VALUE);
+  }
+
+  private TimeRange toTimeRange(int fromMinute, int toMinute) {
+    return TimeRange.fromEpochSeconds(
+        horizonStartSecond + fromMinute * SECONDS_PER_MINUTE,
+        horizonStartSecond + toMinute * SECONDS_PER_MINUTE);
+  }
+}
@@ -1,17 +1,31 @@
 package com.google.sps.data;
 
 import com.google.common.collect.Lists;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
 
-/** This class models a group of calendar events. */
+/**
+ * This class models a group of calendar events. The events are kept sorted by start time, and the
+ * free time between them is kept up to date as events are added and removed, so reading the free
+ * time ranges does not need to go through all the events again.
+ */
 public class CalendarEventsGroup {
 
-  // This variable that represents a group of calendar events will
-  // always be sorted in ascending order based on their start time.
+  // The events, always sorted in ascending order based on their start time.
+  // Events with the same start time are in the order they were added.
+  private final List<CalendarEvent> sortedEvents;
+
+  // A read-only view of the sorted events.
   public final List<CalendarEvent> events;
 
   // These two variables represent the start and end of
@@ -23,10 +37,32 @@ public class CalendarEventsGroup {
   public final Instant overallStartTime;
   public final Instant overallEndTime;
 
+  // Maps the start of every free period inside the scheduling hours to its end. The periods are
+  // the parts of the scheduling hours that no event covers, so they never overlap, and two of them
+  // only touch at an instant covered by an event with no duration.
+  private final TreeMap<Instant, Instant> freePeriods = new TreeMap<Instant, Instant>();
+
+  // The longest duration of any event added so far, which bounds how far before a given time the
+  // events that overlap it can start. It does not shrink when events are removed.
+  private Duration maxEventDuration = Duration.ZERO;
+
+  // The free periods as time ranges, built on the first read after a change.
+  private List<TimeRange> freeTimeRanges = null;
+
+  // The index of the events for overlap queries, built on the first query after a change.
+  private EventIntervalIndex eventIndex = null;
+
   // Comparator for sorting events by start time
   private static final Comparator<CalendarEvent> sortByEventStartTimeAscending =
       Comparator.comparing(CalendarEvent::getStartTime);
 
+  // Out of order lists with at least this many events are radix sorted, which only pays off once
+  // its passes over the counting arrays are spread over enough events.
+  static final int RADIX_SORT_THRESHOLD = 128;
+  private static final int RADIX_BITS = 8;
+  private static final int RADIX = 1 << RADIX_BITS;
+  private static final long RADIX_MASK = RADIX - 1;
+
   /**
    * @param events: a list of CalendarEvents' that represents the events already scheduled for the
    *     user.
@@ -36,67 +72,573 @@ public class CalendarEventsGroup {
    */
   public CalendarEventsGroup(
       List<CalendarEvent> events, Instant overallStartTime, Instant overallEndTime) {
-    if (events == null) {
-      throw new IllegalArgumentException("Events cannot be null");
+    this(sortedByStartTime(events).iterator(), events.size(), overallStartTime, overallEndTime);
+  }
+
+  /**
+   * Creates a group from single events and recurring events. Only the occurrences of the recurring
+   * events that overlap the scheduling hours are generated, one at a time, and they are merged with
+   * the sorted single events into the free time sweep in the same pass, as in {@code
+   * fromSortedCalendars}. The generated occurrences are then part of the events of the group.
+   *
+   * @param events: the single events already scheduled for the user.
+   * @param recurringEvents: the recurring events of the user.
+   * @param startTime: start of possible scheduling blocks, of type Instant.
+   * @param endTime: end of possible scheduling blocks, of type Instant.
+   */
+  public CalendarEventsGroup(
+      List<CalendarEvent> events,
+      List<RecurringCalendarEvent> recurringEvents,
+      Instant overallStartTime,
+      Instant overallEndTime) {
+    this(
+        mergeSortedCalendars(
+            withOccurrences(
+                sortedByStartTime(events), recurringEvents, overallStartTime, overallEndTime)),
+        events.size(),
+        overallStartTime,
+        overallEndTime);
+  }
+
+  /**
+   * Takes the events from an iterator that returns them sorted by start time, and finds the free
+   * periods between them in the same pass.
+   */
+  private CalendarEventsGroup(
+      Iterator<CalendarEvent> sortedEventIterator,
+      int expectedEventCount,
+      Instant overallStartTime,
+      Instant overallEndTime) {
+    checkSchedulingHours(overallStartTime, overallEndTime);
+    this.sortedEvents = new ArrayList<CalendarEvent>(expectedEventCount);
+    this.events = Collections.unmodifiableList(sortedEvents);
+
+    this.overallStartTime = overallStartTime;
+    this.overallEndTime = overallEndTime;
+
+    FreePeriodSweep sweep = new FreePeriodSweep(overallStartTime, overallEndTime, freePeriods);
+    while (sortedEventIterator.hasNext()) {
+      CalendarEvent event = sortedEventIterator.next();
+      sortedEvents.add(event);
+      maxEventDuration = max(maxEventDuration, durationOf(event));
+      sweep.accept(event);
     }
-    if (overallStartTime == null) {
-      throw new IllegalArgumentException("Overall start of scheduling hours cannot be null");
+    sweep.finish();
+  }
+
+  /**
+   * Creates a group from several calendars whose events are each already sorted by start time.
+   * Instead of sorting all the events again, the calendars are merged with a heap that holds the
+   * next event of each calendar, which takes O(n log k) time for n events in k calendars, and the
+   * free periods are found in the same pass. Events with the same start time are in the order of
+   * their calendars.
+   *
+   * @throws IllegalArgumentException if a calendar is not sorted by start time.
+   */
+  public static CalendarEventsGroup fromSortedCalendars(
+      List<? extends Iterable<CalendarEvent>> sortedCalendars,
+      Instant overallStartTime,
+      Instant overallEndTime) {
+    int expectedEventCount = 0;
+    for (Iterable<CalendarEvent> calendar : sortedCalendars) {
+      if (calendar instanceof Collection) {
+        expectedEventCount += ((Collection<?>) calendar).size();
+      }
     }
-    if (overallEndTime == null) {
-      throw new IllegalArgumentException("Overall end of scheduling hours cannot be null");
+    return new CalendarEventsGroup(
+        mergeSortedCalendars(sortedCalendars),
+        expectedEventCount,
+        overallStartTime,
+        overallEndTime);
+  }
+
+  /**
+   * Calculates the free time ranges of several calendars whose events are each already sorted by
+   * start time, without building a group. The calendars are merged with a heap as in {@code
+   * fromSortedCalendars}, and each event is dropped as soon as the sweep has passed it, so the
+   * merged events are never stored.
+   *
+   * @throws IllegalArgumentException if a calendar is not sorted by start time.
+   */
+  public static List<TimeRange> freeTimeRangesOfSortedCalendars(
+      List<? extends Iterable<CalendarEvent>> sortedCalendars,
+      Instant overallStartTime,
+      Instant overallEndTime) {
+    checkSchedulingHours(overallStartTime, overallEndTime);
+    TreeMap<Instant, Instant> freePeriods = new TreeMap<Instant, Instant>();
+    FreePeriodSweep sweep = new FreePeriodSweep(overallStartTime, overallEndTime, freePeriods);
+    Iterator<CalendarEvent> eventIterator = mergeSortedCalendars(sortedCalendars);
+    while (eventIterator.hasNext()) {
+      sweep.accept(eventIterator.next());
     }
-    if (overallStartTime.isAfter(overallEndTime)) {
+    sweep.finish();
+    return toTimeRanges(freePeriods);
+  }
+
+  /**
+   * Returns a read-only TimeRange list which represents the periods of time that are empty of
+   * events and lie completely inside the possible scheduling hours. The list is only rebuilt from
+   * the maintained free periods on the first call after the events change.
+   */
+  public List<TimeRange> getFreeTimeRanges() {
+    if (freeTimeRanges == null) {
+      freeTimeRanges = toTimeRanges(freePeriods);
+    }
+    return freeTimeRanges;
+  }
+
+  /**
+   * Returns the events that overlap the half-open window [from, to), that is the events that start
+   * before {@code to} and end after {@code from}, in order of start time. An event that only
+   * touches the window does not overlap it. The events are found with an interval index in O(log n
+   * + k) time for k results; the index is built in O(n) on the first query after the events change.
+   *
+   * @throws IllegalArgumentException if {@code from} is after {@code to}.
+   */
+  public List<CalendarEvent> eventsOverlapping(Instant from, Instant to) {
+    if (from.isAfter(to)) {
       throw new IllegalArgumentException("Start time cannot be after end time");
     }
-    this.events = Lists.newArrayList(events);
-    Collections.sort(this.events, sortByEventStartTimeAscending);
+    return getEventIndex().overlapping(from, to);
+  }
+
+  /**
+   * Returns the events in progress at the given instant, that is the events that start at or before
+   * it and end after it, in order of start time.
+   */
+  public List<CalendarEvent> eventsAt(Instant instant) {
+    return getEventIndex().stabbing(instant);
+  }
+
+  private EventIntervalIndex getEventIndex() {
+    if (eventIndex == null) {
+      eventIndex = new EventIntervalIndex(sortedEvents);
+    }
+    return eventIndex;
+  }
 
-    this.overallStartTime = overallStartTime;
-    this.overallEndTime = overallEndTime;
+  /**
+   * Adds a new event into the event group, after the events that start at the same time. The event
+   * is inserted at the position found by binary search, and only the free periods it overlaps are
+   * cut.
+   */
+  public void addNewEvent(CalendarEvent event) {
+    sortedEvents.add(firstIndexStartingAfter(event.getStartTime()), event);
+    maxEventDuration = max(maxEventDuration, durationOf(event));
+
+    Instant start = event.getStartTime();
+    Instant end = event.getEndTime();
+    Map.Entry<Instant, Instant> freePeriod = freePeriods.lowerEntry(end);
+    while (freePeriod != null && freePeriod.getValue().isAfter(start)) {
+      // The event covers part of this period, so only the parts before and after it stay free.
+      freePeriods.remove(freePeriod.getKey());
+      if (start.isAfter(freePeriod.getKey())) {
+        freePeriods.put(freePeriod.getKey(), start);
+      }
+      if (freePeriod.getValue().isAfter(end)) {
+        freePeriods.put(end, freePeriod.getValue());
+      }
+      freePeriod = freePeriods.lowerEntry(freePeriod.getKey());
+    }
+    freeTimeRanges = null;
+    eventIndex = null;
   }
 
   /**
-   * Calculates a TimeRange list which represents the periods of time that are empty of events and
-   * lie completely inside the possible scheduling hours. Originally written by tomasalvarez,
-   * modified by hollyyuqizheng.
+   * Removes an event that is equal to the given one from the event group. The time only the removed
+   * event covered becomes free again, and is joined with the free periods next to it.
+   *
+   * @return true if an equal event was in the group, and false if the group is unchanged.
    */
-  public List<TimeRange> getFreeTimeRanges() {
-    List<TimeRange> possibleTimes = new ArrayList<TimeRange>();
+  public boolean removeEvent(CalendarEvent event) {
+    int index = firstIndexStartingAfter(event.getStartTime()) - 1;
+    while (index >= 0 && !sortedEvents.get(index).equals(event)) {
+      if (sortedEvents.get(index).getStartTime().isBefore(event.getStartTime())) {
+        return false;
+      }
+      index--;
+    }
+    if (index < 0) {
+      return false;
+    }
+    sortedEvents.remove(index);
+
+    // Only the part of the event inside the scheduling hours can become free.
+    Instant start = max(event.getStartTime(), overallStartTime);
+    Instant end = min(event.getEndTime(), overallEndTime);
+    if (start.isBefore(end)) {
+      freeBetween(start, end);
+    } else if (start.equals(end) && !isCoveredByEvent(start)) {
+      // An event with no duration only splits the free period around it.
+      Instant next = freePeriods.remove(start);
+      Map.Entry<Instant, Instant> previous = freePeriods.lowerEntry(start);
+      if (next != null && previous != null && previous.getValue().equals(start)) {
+        freePeriods.put(previous.getKey(), next);
+      } else if (next != null) {
+        freePeriods.put(start, next);
+      }
+    }
+    freeTimeRanges = null;
+    eventIndex = null;
+    return true;
+  }
+
+  /**
+   * Adds the parts of [start, end] that no remaining event covers to the free periods. Only the
+   * events that can overlap the range are visited: those that start before its end, and no earlier
+   * than the longest event duration before its start.
+   */
+  private void freeBetween(Instant start, Instant end) {
+    int firstIndex = firstIndexStartingAfter(start.minus(maxEventDuration).minusNanos(1));
+    int lastIndex = firstIndexStartingAfter(end);
+
+    // Sweeps the events that overlap the range in order of start, like FreePeriodSweep.
+    Instant earliestNonScheduledInstant = start;
+    boolean isStartCovered = false;
+    for (int i = firstIndex; i < lastIndex; i++) {
+      CalendarEvent other = sortedEvents.get(i);
+      if (other.getEndTime().isBefore(start)) {
+        continue;
+      }
+      if (!other.getStartTime().isAfter(start)) {
+        isStartCovered = true;
+      }
+      if (other.getStartTime().isAfter(earliestNonScheduledInstant)) {
+        addFreePeriod(earliestNonScheduledInstant, other.getStartTime(), isStartCovered);
+      }
+      if (earliestNonScheduledInstant.isBefore(other.getEndTime())) {
+        earliestNonScheduledInstant = other.getEndTime();
+        isStartCovered = true;
+      }
+    }
+    if (end.isAfter(earliestNonScheduledInstant)) {
+      addFreePeriod(earliestNonScheduledInstant, end, isStartCovered);
+    }
+  }
+
+  /**
+   * Adds a free period, joining it with the free period that ends at its start unless an event
+   * covers that instant, and with the free period that starts at its end unless the period ends at
+   * an event.
+   */
+  private void addFreePeriod(Instant start, Instant end, boolean isStartCovered) {
+    if (!isStartCovered) {
+      Map.Entry<Instant, Instant> previous = freePeriods.lowerEntry(start);
+      if (previous != null && previous.getValue().equals(start)) {
+        start = previous.getKey();
+      }
+    }
+    Instant next = freePeriods.get(end);
+    if (next != null && !isCoveredByEvent(end)) {
+      freePeriods.remove(end);
+      end = next;
+    }
+    freePeriods.put(start, end);
+  }
+
+  /** Checks if any event covers the given instant, including its start and end. */
+  private boolean isCoveredByEvent(Instant instant) {
+    int firstIndex = firstIndexStartingAfter(instant.minus(maxEventDuration).minusNanos(1));
+    int lastIndex = firstIndexStartingAfter(instant);
+    for (int i = firstIndex; i < lastIndex; i++) {
+      if (!sortedEvents.get(i).getEndTime().isBefore(instant)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Finds the free periods from scratch as it is given the events in order of start time: the
+   * periods of time that are empty of events and lie completely inside the possible scheduling
+   * hours. Originally written by tomasalvarez, modified by hollyyuqizheng.
+   */
+  private static final class FreePeriodSweep {
+    private final Instant overallEndTime;
+    private final Map<Instant, Instant> freePeriods;
 
     // This represents the earliest time that we can schedule a window for the
     // meeting. As events are processed, this changes to their end times.
-    Instant earliestNonScheduledInstant = overallStartTime;
+    private Instant earliestNonScheduledInstant;
+
+    FreePeriodSweep(
+        Instant overallStartTime, Instant overallEndTime, Map<Instant, Instant> freePeriods) {
+      this.overallEndTime = overallEndTime;
+      this.freePeriods = freePeriods;
+      this.earliestNonScheduledInstant = overallStartTime;
+    }
 
-    for (CalendarEvent event : events) {
-      // Make sure that there is some time between the events and it is not
-      // later than the person's scheduling hours' ending time.
+    void accept(CalendarEvent event) {
+      // Once the earliest non scheduled time reaches the end of the scheduling hours,
+      // no later event can leave any free time.
+      if (!earliestNonScheduledInstant.isBefore(overallEndTime)) {
+        return;
+      }
+      // Make sure that there is some time between the events, and stop the free
+      // period at the person's scheduling hours' ending time.
       if (event.getStartTime().isAfter(earliestNonScheduledInstant)) {
-        if (event.getStartTime().isAfter(overallEndTime)) {
-          possibleTimes.add(TimeRange.fromStartEnd(earliestNonScheduledInstant, overallEndTime));
-        } else {
-          possibleTimes.add(
-              TimeRange.fromStartEnd(earliestNonScheduledInstant, event.getStartTime()));
-        }
+        freePeriods.put(earliestNonScheduledInstant, min(event.getStartTime(), overallEndTime));
       }
       // Check if the earliest non scheduled time needs to be shifted to later.
       if (earliestNonScheduledInstant.isBefore(event.getEndTime())) {
         earliestNonScheduledInstant = event.getEndTime();
       }
     }
-    // The end of the work hours is potentially never included so we check.
-    if (overallEndTime.isAfter(earliestNonScheduledInstant)) {
-      possibleTimes.add(TimeRange.fromStartEnd(earliestNonScheduledInstant, overallEndTime));
+
+    void finish() {
+      // The end of the work hours is potentially never included so we check.
+      if (overallEndTime.isAfter(earliestNonScheduledInstant)) {
+        freePeriods.put(earliestNonScheduledInstant, overallEndTime);
+      }
+    }
+  }
+
+  /** The next event of one calendar, and the rest of that calendar. */
+  private static final class CalendarHead {
+    private final int calendarIndex;
+    private final Iterator<CalendarEvent> rest;
+    private CalendarEvent event;
+
+    CalendarHead(int calendarIndex, Iterator<CalendarEvent> rest) {
+      this.calendarIndex = calendarIndex;
+      this.rest = rest;
+      this.event = rest.next();
     }
 
-    return possibleTimes;
+    /** Moves to the next event of the calendar, and returns false if there is none. */
+    boolean advance() {
+      if (!rest.hasNext()) {
+        return false;
+      }
+      CalendarEvent nextEvent = rest.next();
+      if (nextEvent.getStartTime().isBefore(event.getStartTime())) {
+        throw new IllegalArgumentException(
+            "Calendar " + calendarIndex + " is not sorted by start time");
+      }
+      event = nextEvent;
+      return true;
+    }
   }
 
   /**
-   * Adds a new event into the event group. Returns the new collection of events, sorted based on
-   * start time.
+   * Returns an iterator over the events of all the calendars in order of start time, which keeps
+   * only the next event of each calendar in a heap.
    */
-  public void addNewEvent(CalendarEvent event) {
-    events.add(event);
-    Collections.sort(events, sortByEventStartTimeAscending);
+  private static Iterator<CalendarEvent> mergeSortedCalendars(
+      List<? extends Iterable<CalendarEvent>> sortedCalendars) {
+    if (sortedCalendars == null) {
+      throw new IllegalArgumentException("Calendars cannot be null");
+    }
+    PriorityQueue<CalendarHead> heads =
+        new PriorityQueue<CalendarHead>(
+            Math.max(1, sortedCalendars.size()),
+            Comparator.comparing((CalendarHead head) -> head.event.getStartTime())
+                .thenComparingInt(head -> head.calendarIndex));
+    for (int i = 0; i < sortedCalendars.size(); i++) {
+      Iterator<CalendarEvent> calendarIterator = sortedCalendars.get(i).iterator();
+      if (calendarIterator.hasNext()) {
+        heads.add(new CalendarHead(i, calendarIterator));
+      }
+    }
+
+    return new Iterator<CalendarEvent>() {
+      @Override
+      public boolean hasNext() {
+        return !heads.isEmpty();
+      }
+
+      @Override
+      public CalendarEvent next() {
+        CalendarHead head = heads.poll();
+        if (head == null) {
+          throw new NoSuchElementException();
+        }
+        CalendarEvent event = head.event;
+        if (head.advance()) {
+          heads.add(head);
+        }
+        return event;
+      }
+    };
+  }
+
+  /**
+   * Returns the sorted events followed by the occurrences of each recurring event in the window.
+   */
+  private static List<Iterable<CalendarEvent>> withOccurrences(
+      List<CalendarEvent> sortedEvents,
+      List<RecurringCalendarEvent> recurringEvents,
+      Instant overallStartTime,
+      Instant overallEndTime) {
+    if (recurringEvents == null) {
+      throw new IllegalArgumentException("Recurring events cannot be null");
+    }
+    checkSchedulingHours(overallStartTime, overallEndTime);
+    List<Iterable<CalendarEvent>> calendars = new ArrayList<Iterable<CalendarEvent>>();
+    calendars.add(sortedEvents);
+    for (RecurringCalendarEvent recurringEvent : recurringEvents) {
+      calendars.add(recurringEvent.occurrencesBetween(overallStartTime, overallEndTime));
+    }
+    return calendars;
+  }
+
+  /**
+   * Returns a sorted copy of the events, in the order of the list for equal start times. Events
+   * that are already in order, as calendar exports usually are, are only checked and copied. Large
+   * lists that are out of order are sorted with a radix sort, and small ones with the comparator.
+   */
+  static List<CalendarEvent> sortedByStartTime(List<CalendarEvent> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("Events cannot be null");
+    }
+    List<CalendarEvent> sortedEvents = Lists.newArrayList(events);
+    if (isSortedByStartTime(sortedEvents)) {
+      return sortedEvents;
+    }
+    if (sortedEvents.size() >= RADIX_SORT_THRESHOLD) {
+      return radixSortedByStartTime(sortedEvents);
+    }
+    Collections.sort(sortedEvents, sortByEventStartTimeAscending);
+    return sortedEvents;
+  }
+
+  /** Checks if no event of the list starts before the event ahead of it. */
+  static boolean isSortedByStartTime(List<CalendarEvent> events) {
+    for (int i = 1; i < events.size(); i++) {
+      if (events.get(i).getStartTime().isBefore(events.get(i - 1).getStartTime())) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Returns the events sorted by start time with a stable LSD radix sort, one byte at a time. The
+   * start times are read once into primitive arrays of epoch seconds and nanoseconds, and the sort
+   * orders the indexes of the events: first by the nanoseconds, if any start has some, and then by
+   * the seconds since the earliest start. Only the bytes needed for the span between the earliest
+   * and the latest start are sorted, and a byte that is the same for every event is skipped.
+   */
+  static List<CalendarEvent> radixSortedByStartTime(List<CalendarEvent> events) {
+    int size = events.size();
+    long[] seconds = new long[size];
+    long[] nanos = new long[size];
+    long minSecond = Long.MAX_VALUE;
+    long maxSecond = Long.MIN_VALUE;
+    boolean hasNanos = false;
+    for (int i = 0; i < size; i++) {
+      Instant start = events.get(i).getStartTime();
+      seconds[i] = start.getEpochSecond();
+      nanos[i] = start.getNano();
+      minSecond = Math.min(minSecond, seconds[i]);
+      maxSecond = Math.max(maxSecond, seconds[i]);
+      hasNanos |= nanos[i] != 0;
+    }
+    for (int i = 0; i < size; i++) {
+      seconds[i] -= minSecond;
+    }
+
+    int[] order = new int[size];
+    for (int i = 0; i < size; i++) {
+      order[i] = i;
+    }
+    int[] buffer = new int[size];
+
+    if (hasNanos) {
+      for (int shift = 0; shift < Integer.SIZE; shift += RADIX_BITS) {
+        if (countingSortPass(nanos, shift, order, buffer)) {
+          int[] swap = order;
+          order = buffer;
+          buffer = swap;
+        }
+      }
+    }
+    long span = maxSecond - minSecond;
+    for (int shift = 0; shift < Long.SIZE && (span >>> shift) != 0; shift += RADIX_BITS) {
+      if (countingSortPass(seconds, shift, order, buffer)) {
+        int[] swap = order;
+        order = buffer;
+        buffer = swap;
+      }
+    }
+
+    List<CalendarEvent> sortedEvents = new ArrayList<CalendarEvent>(size);
+    for (int index : order) {
+      sortedEvents.add(events.get(index));
+    }
+    return sortedEvents;
+  }
+
+  /**
+   * Stably sorts the indexes in {@code from} into {@code to} by one byte of their keys. Returns
+   * false, leaving {@code to} unchanged, if that byte is the same for every key.
+   */
+  private static boolean countingSortPass(long[] keys, int shift, int[] from, int[] to) {
+    int[] offsets = new int[RADIX + 1];
+    for (int index : from) {
+      offsets[(int) ((keys[index] >>> shift) & RADIX_MASK) + 1]++;
+    }
+    for (int digit = 0; digit < RADIX; digit++) {
+      if (offsets[digit + 1] == from.length) {
+        return false;
+      }
+      offsets[digit + 1] += offsets[digit];
+    }
+    for (int index : from) {
+      to[offsets[(int) ((keys[index] >>> shift) & RADIX_MASK)]++] = index;
+    }
+    return true;
+  }
+
+  private static void checkSchedulingHours(Instant overallStartTime, Instant overallEndTime) {
+    if (overallStartTime == null) {
+      throw new IllegalArgumentException("Overall start of scheduling hours cannot be null");
+    }
+    if (overallEndTime == null) {
+      throw new IllegalArgumentException("Overall end of scheduling hours cannot be null");
+    }
+    if (overallStartTime.isAfter(overallEndTime)) {
+      throw new IllegalArgumentException("Start time cannot be after end time");
+    }
+  }
+
+  /** Returns the free periods as a read-only list of time ranges. */
+  private static List<TimeRange> toTimeRanges(Map<Instant, Instant> freePeriods) {
+    List<TimeRange> timeRanges = new ArrayList<TimeRange>(freePeriods.size());
+    for (Map.Entry<Instant, Instant> freePeriod : freePeriods.entrySet()) {
+      timeRanges.add(TimeRange.fromStartEnd(freePeriod.getKey(), freePeriod.getValue()));
+    }
+    return Collections.unmodifiableList(timeRanges);
+  }
+
+  /** Returns the index of the first event that starts after the given instant. */
+  private int firstIndexStartingAfter(Instant instant) {
+    int low = 0;
+    int high = sortedEvents.size();
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (sortedEvents.get(middle).getStartTime().isAfter(instant)) {
+        high = middle;
+      } else {
+        low = middle + 1;
+      }
+    }
+    return low;
+  }
+
+  private static Duration durationOf(CalendarEvent event) {
+    return Duration.between(event.getStartTime(), event.getEndTime());
+  }
+
+  private static Duration max(Duration a, Duration b) {
+    return a.compareTo(b) >= 0 ? a : b;
+  }
+
+  private static Instant max(Instant a, Instant b) {
+    return a.isAfter(b) ? a : b;
+  }
+
+  private static Instant min(Instant a, Instant b) {
+    return a.isBefore(b) ? a : b;
   }
 }
@@ -0,0 +1,364 @@
+package com.google.sps.data;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary format for time range groups and calendar event groups, for caches and snapshots
+ * that would otherwise store the JSON. Both are sorted by start, so each start is written as the
+ * difference from the previous one, and each length as a number of seconds, both as varints of 7
+ * bits per byte. A typical day takes a few dozen bytes.
+ *
+ * <p>A time range group is written as a format byte, the number of ranges, and then for each range
+ * the gap since the end of the previous range and the length of the range. Groups that do not know
+ * their size without counting use a second format byte instead, and write no count: each range is
+ * its length plus one and then the gap, and a zero ends the ranges. A calendar event group is
+ * written as a format byte, the overall start, the overall end as the time since the start, a table
+ * of the distinct event names, and then for each event the index of its name, the time since the
+ * start of the previous event and its length. Sub-second parts of the times are only written when
+ * they are not zero.
+ *
+ * <p>Encoding and decoding are streamed, to and from either a ByteBuffer or a stream, without
+ * building the whole encoding in memory. The streams are used a byte at a time, so they should be
+ * buffered. Decoding a ByteBuffer that ends too early throws BufferUnderflowException, and decoding
+ * a stream that ends too early throws EOFException.
+ */
+public final class CompactCodec {
+  private static final int TIME_RANGE_GROUP_FORMAT = 1;
+  private static final int CALENDAR_EVENTS_GROUP_FORMAT = 2;
+  private static final int TERMINATED_TIME_RANGE_GROUP_FORMAT = 3;
+
+  private CompactCodec() {}
+
+  /** Receives the encoded bytes one at a time. */
+  private interface ByteSink {
+    void write(int value);
+  }
+
+  /** Supplies the encoded bytes one at a time, as values from 0 to 255. */
+  private interface ByteSource {
+    int read();
+  }
+
+  /**
+   * Writes the time ranges of the group to the buffer, from its position.
+   *
+   * @throws java.nio.BufferOverflowException if the buffer does not have enough space left.
+   */
+  public static void encode(TimeRangeGroup group, ByteBuffer buffer) {
+    encode(group, toSink(buffer));
+  }
+
+  /** Writes the time ranges of the group to the stream. */
+  public static void encode(TimeRangeGroup group, OutputStream out) throws IOException {
+    try {
+      encode(group, toSink(out));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Reads time ranges written by {@code encode} from the buffer, from its position.
+   *
+   * @throws IllegalArgumentException if the bytes are not an encoded time range group.
+   */
+  public static ArrayListTimeRangeGroup decodeTimeRangeGroup(ByteBuffer buffer) {
+    return decodeTimeRangeGroup(toSource(buffer));
+  }
+
+  /**
+   * Reads time ranges written by {@code encode} from the stream.
+   *
+   * @throws IllegalArgumentException if the bytes are not an encoded time range group.
+   */
+  public static ArrayListTimeRangeGroup decodeTimeRangeGroup(InputStream in) throws IOException {
+    try {
+      return decodeTimeRangeGroup(toSource(in));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Writes the events and overall start and end of the group to the buffer, from its position.
+   *
+   * @throws java.nio.BufferOverflowException if the buffer does not have enough space left.
+   */
+  public static void encode(CalendarEventsGroup group, ByteBuffer buffer) {
+    encode(group, toSink(buffer));
+  }
+
+  /** Writes the events and overall start and end of the group to the stream. */
+  public static void encode(CalendarEventsGroup group, OutputStream out) throws IOException {
+    try {
+      encode(group, toSink(out));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Reads a calendar event group written by {@code encode} from the buffer, from its position.
+   *
+   * @throws IllegalArgumentException if the bytes are not an encoded calendar event group.
+   */
+  public static CalendarEventsGroup decodeCalendarEventsGroup(ByteBuffer buffer) {
+    return decodeCalendarEventsGroup(toSource(buffer));
+  }
+
+  /**
+   * Reads a calendar event group written by {@code encode} from the stream.
+   *
+   * @throws IllegalArgumentException if the bytes are not an encoded calendar event group.
+   */
+  public static CalendarEventsGroup decodeCalendarEventsGroup(InputStream in) throws IOException {
+    try {
+      return decodeCalendarEventsGroup(toSource(in));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Writes the group in one pass, with a count if the group knows its size, or else a terminator.
+   */
+  private static void encode(TimeRangeGroup group, ByteSink sink) {
+    long count = group.spliterator().getExactSizeIfKnown();
+    long previousEnd = 0;
+    if (count >= 0) {
+      sink.write(TIME_RANGE_GROUP_FORMAT);
+      writeVarint(sink, count);
+      for (TimeRange timeRange : group) {
+        writeSignedVarint(sink, timeRange.startEpochSecond() - previousEnd);
+        writeVarint(sink, timeRange.durationSeconds());
+        previousEnd = timeRange.endEpochSecond();
+      }
+    } else {
+      sink.write(TERMINATED_TIME_RANGE_GROUP_FORMAT);
+      for (TimeRange timeRange : group) {
+        writeVarint(sink, timeRange.durationSeconds() + 1);
+        writeSignedVarint(sink, timeRange.startEpochSecond() - previousEnd);
+        previousEnd = timeRange.endEpochSecond();
+      }
+      writeVarint(sink, 0);
+    }
+  }
+
+  private static ArrayListTimeRangeGroup decodeTimeRangeGroup(ByteSource source) {
+    int format = source.read();
+    List<TimeRange> timeRanges;
+    long previousEnd = 0;
+    if (format == TIME_RANGE_GROUP_FORMAT) {
+      int count = readCount(source);
+      timeRanges = new ArrayList<TimeRange>(count);
+      for (int i = 0; i < count; i++) {
+        long start = previousEnd + readSignedVarint(source);
+        long end = start + readVarint(source);
+        timeRanges.add(TimeRange.fromEpochSeconds(start, end));
+        previousEnd = end;
+      }
+    } else if (format == TERMINATED_TIME_RANGE_GROUP_FORMAT) {
+      timeRanges = new ArrayList<TimeRange>();
+      for (long lengthPlusOne = readVarint(source);
+          lengthPlusOne != 0;
+          lengthPlusOne = readVarint(source)) {
+        long start = previousEnd + readSignedVarint(source);
+        long end = start + lengthPlusOne - 1;
+        timeRanges.add(TimeRange.fromEpochSeconds(start, end));
+        previousEnd = end;
+      }
+    } else {
+      throw new IllegalArgumentException("Unexpected format: " + format);
+    }
+    return new ArrayListTimeRangeGroup(timeRanges);
+  }
+
+  private static void encode(CalendarEventsGroup group, ByteSink sink) {
+    sink.write(CALENDAR_EVENTS_GROUP_FORMAT);
+    writeInstant(sink, group.overallStartTime);
+    writeSignedVarint(
+        sink, group.overallEndTime.getEpochSecond() - group.overallStartTime.getEpochSecond());
+    writeVarint(sink, group.overallEndTime.getNano());
+
+    // Every distinct name is written once, in order of first use.
+    Map<String, Integer> nameIndexes = new HashMap<String, Integer>();
+    List<String> names = new ArrayList<String>();
+    for (CalendarEvent event : group.events) {
+      if (!nameIndexes.containsKey(event.getName())) {
+        nameIndexes.put(event.getName(), names.size());
+        names.add(event.getName());
+      }
+    }
+    writeVarint(sink, names.size());
+    for (String name : names) {
+      byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+      writeVarint(sink, bytes.length);
+      for (byte b : bytes) {
+        sink.write(b & 0xFF);
+      }
+    }
+
+    writeVarint(sink, group.events.size());
+    long previousStart = group.overallStartTime.getEpochSecond();
+    for (CalendarEvent event : group.events) {
+      Instant start = event.getStartTime();
+      Instant end = event.getEndTime();
+      writeVarint(sink, nameIndexes.get(event.getName()));
+      writeSignedVarint(sink, start.getEpochSecond() - previousStart);
+
+      // The lowest bit of the length says if the sub-second parts follow.
+      boolean hasNanos = start.getNano() != 0 || end.getNano() != 0;
+      writeVarint(sink, (end.getEpochSecond() - start.getEpochSecond()) << 1 | (hasNanos ? 1 : 0));
+      if (hasNanos) {
+        writeVarint(sink, start.getNano());
+        writeVarint(sink, end.getNano());
+      }
+      previousStart = start.getEpochSecond();
+    }
+  }
+
+  private static CalendarEventsGroup decodeCalendarEventsGroup(ByteSource source) {
+    checkFormat(source, CALENDAR_EVENTS_GROUP_FORMAT);
+    Instant overallStartTime = readInstant(source);
+    long overallEndSecond = overallStartTime.getEpochSecond() + readSignedVarint(source);
+    Instant overallEndTime = Instant.ofEpochSecond(overallEndSecond, readVarint(source));
+
+    int nameCount = readCount(source);
+    String[] names = new String[nameCount];
+    for (int i = 0; i < nameCount; i++) {
+      byte[] bytes = new byte[readCount(source)];
+      for (int j = 0; j < bytes.length; j++) {
+        bytes[j] = (byte) source.read();
+      }
+      names[i] = new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    int eventCount = readCount(source);
+    List<CalendarEvent> events = new ArrayList<CalendarEvent>(eventCount);
+    long previousStart = overallStartTime.getEpochSecond();
+    for (int i = 0; i < eventCount; i++) {
+      int nameIndex = readCount(source);
+      if (nameIndex >= nameCount) {
+        throw new IllegalArgumentException("Event name index out of range: " + nameIndex);
+      }
+      long startSecond = previousStart + readSignedVarint(source);
+      long lengthAndFlag = readVarint(source);
+      long endSecond = startSecond + (lengthAndFlag >>> 1);
+      long startNano = 0;
+      long endNano = 0;
+      if ((lengthAndFlag & 1) != 0) {
+        startNano = readVarint(source);
+        endNano = readVarint(source);
+      }
+      events.add(
+          new CalendarEvent(
+              names[nameIndex],
+              Instant.ofEpochSecond(startSecond, startNano),
+              Instant.ofEpochSecond(endSecond, endNano)));
+      previousStart = startSecond;
+    }
+    return new CalendarEventsGroup(events, overallStartTime, overallEndTime);
+  }
+
+  private static void writeInstant(ByteSink sink, Instant instant) {
+    writeSignedVarint(sink, instant.getEpochSecond());
+    writeVarint(sink, instant.getNano());
+  }
+
+  private static Instant readInstant(ByteSource source) {
+    long epochSecond = readSignedVarint(source);
+    return Instant.ofEpochSecond(epochSecond, readVarint(source));
+  }
+
+  /** Writes a value as an unsigned varint, 7 bits per byte, lowest bits first. */
+  private static void writeVarint(ByteSink sink, long value) {
+    while ((value & ~0x7FL) != 0) {
+      sink.write((int) (value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    sink.write((int) value);
+  }
+
+  /** Writes a value that may be negative as a zigzag varint, so that small values stay short. */
+  private static void writeSignedVarint(ByteSink sink, long value) {
+    writeVarint(sink, (value << 1) ^ (value >> 63));
+  }
+
+  private static long readVarint(ByteSource source) {
+    long value = 0;
+    for (int shift = 0; shift < Long.SIZE; shift += 7) {
+      int b = source.read();
+      value |= (long) (b & 0x7F) << shift;
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalArgumentException("Malformed varint");
+  }
+
+  private static long readSignedVarint(ByteSource source) {
+    long value = readVarint(source);
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /** Reads a varint that must fit in a non-negative int, such as a count or an index. */
+  private static int readCount(ByteSource source) {
+    long count = readVarint(source);
+    if (count < 0 || count > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Count out of range: " + count);
+    }
+    return (int) count;
+  }
+
+  private static void checkFormat(ByteSource source, int expectedFormat) {
+    int format = source.read();
+    if (format != expectedFormat) {
+      throw new IllegalArgumentException("Unexpected format: " + format);
+    }
+  }
+
+  private static ByteSink toSink(ByteBuffer buffer) {
+    return value -> buffer.put((byte) value);
+  }
+
+  private static ByteSource toSource(ByteBuffer buffer) {
+    return () -> buffer.get() & 0xFF;
+  }
+
+  /** Returns a sink that rethrows the IOExceptions of the stream as UncheckedIOException. */
+  private static ByteSink toSink(OutputStream out) {
+    return value -> {
+      try {
+        out.write(value);
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    };
+  }
+
+  /** Returns a source that rethrows the IOExceptions of the stream as UncheckedIOException. */
+  private static ByteSource toSource(InputStream in) {
+    return () -> {
+      try {
+        int value = in.read();
+        if (value < 0) {
+          throw new EOFException();
+        }
+        return value;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    };
+  }
+}
@@ -0,0 +1,216 @@
+package com.google.sps.data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Models a thread-safe implementation of the TimeRangeGroup model using a ConcurrentSkipListMap,
+ * which maps the start of every time range, in epoch seconds, to the time range. This lets one
+ * user's availability be shared across request threads, for example when several clients claim
+ * slots at the same time.
+ *
+ * <p>Reads never block: {@code hasTimeRange} is a single lookup in the map, and iterators are
+ * weakly consistent, like the iterators of the map. A merge or a split changes several entries of
+ * the map, which cannot be done atomically without a lock, so the methods that change the group
+ * take a private lock. Each write puts the new ranges before it removes the old ones, so a read
+ * running at the same time never misses time that is free both before and after the write.
+ *
+ * <p>{@code tryReserve} checks that a range is free and deletes it in one atomic step, so two
+ * threads can never reserve overlapping ranges.
+ */
+public class ConcurrentSkipListTimeRangeGroup implements TimeRangeGroup {
+  private final ConcurrentSkipListMap<Long, TimeRange> allTimeRanges =
+      new ConcurrentSkipListMap<Long, TimeRange>();
+
+  // Serializes the methods that change the group.
+  private final Object writeLock = new Object();
+
+  /** Adds all the input time ranges to the map of all time ranges. */
+  public ConcurrentSkipListTimeRangeGroup(Iterable<TimeRange> timeRanges) {
+    addAll(timeRanges);
+  }
+
+  /**
+   * Adds a new time range to the map. If the time range to add overlaps with any existing time
+   * range, the overlapping time ranges will be merged.
+   */
+  @Override
+  public void addTimeRange(TimeRange timeRange) {
+    synchronized (writeLock) {
+      TimeRange mergedTimeRange = timeRange;
+      List<Long> mergedStarts = new ArrayList<Long>();
+
+      Map.Entry<Long, TimeRange> previousEntry =
+          allTimeRanges.floorEntry(timeRange.startEpochSecond());
+      if (previousEntry != null && previousEntry.getValue().overlaps(mergedTimeRange)) {
+        mergedTimeRange =
+            AbstractListTimeRangeGroup.mergeTwoTimeRanges(
+                previousEntry.getValue(), mergedTimeRange);
+        mergedStarts.add(previousEntry.getKey());
+      }
+
+      // Every merge can only move the end of the merged range later,
+      // so keep merging the next range until one no longer overlaps.
+      Map.Entry<Long, TimeRange> nextEntry =
+          allTimeRanges.ceilingEntry(timeRange.startEpochSecond());
+      while (nextEntry != null && nextEntry.getValue().overlaps(mergedTimeRange)) {
+        mergedTimeRange =
+            AbstractListTimeRangeGroup.mergeTwoTimeRanges(nextEntry.getValue(), mergedTimeRange);
+        mergedStarts.add(nextEntry.getKey());
+        nextEntry = allTimeRanges.higherEntry(nextEntry.getKey());
+      }
+
+      // The merged range covers all the ranges it replaces, so it is put in first.
+      allTimeRanges.put(mergedTimeRange.startEpochSecond(), mergedTimeRange);
+      for (Long start : mergedStarts) {
+        if (start != mergedTimeRange.startEpochSecond()) {
+          allTimeRanges.remove(start);
+        }
+      }
+    }
+  }
+
+  /**
+   * Checks if a time range exists in the collection. For example, if [3:00 - 4:00] is in the
+   * collection, [3:00 - 3:30] is considered to exist as a time range in the collection. Only the
+   * range with the latest start that is not after the target range's start can contain it.
+   */
+  @Override
+  public boolean hasTimeRange(TimeRange timeRangeToCheck) {
+    Map.Entry<Long, TimeRange> candidateEntry =
+        allTimeRanges.floorEntry(timeRangeToCheck.startEpochSecond());
+    return candidateEntry != null && candidateEntry.getValue().contains(timeRangeToCheck);
+  }
+
+  /**
+   * Delete a time range from the map. Because the time ranges are always kept to be pairwise
+   * disjoint, the potentially two new time ranges resulted from a deletion will not overlap with
+   * any other existing time ranges.
+   *
+   * <p>For example, if the map contains [3:00 - 4:00] and [5:00 - 6:00], deleting [3:15 - 3:30]
+   * will result in [3 - 3:15] and [3:30 - 4] as new time ranges.
+   *
+   * <p>Another example for deleting overlapping time ranges: if [3 - 4] and [5 - 6] are in the
+   * original map, deleting [3:30 - 5:30] will result in two new ranges: [3 - 3:30] and [5:30 - 6].
+   */
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete) {
+    synchronized (writeLock) {
+      deleteWhileLocked(timeRangeToDelete);
+    }
+  }
+
+  /**
+   * Atomically deletes a time range if it is still entirely in the group. For example, if the group
+   * contains [3:00 - 4:00], reserving [3:15 - 3:30] succeeds and leaves [3 - 3:15] and [3:30 - 4],
+   * and then reserving [3:00 - 3:30] fails and leaves the group as it was.
+   *
+   * @return true if the range was free and has been deleted, and false if the group is unchanged.
+   * @throws IllegalArgumentException if the range has no duration.
+   */
+  public boolean tryReserve(TimeRange timeRange) {
+    if (timeRange.durationSeconds() <= 0) {
+      throw new IllegalArgumentException("A reserved time range must have a positive duration");
+    }
+
+    synchronized (writeLock) {
+      if (!hasTimeRange(timeRange)) {
+        return false;
+      }
+      deleteWhileLocked(timeRange);
+      return true;
+    }
+  }
+
+  /**
+   * Returns a weakly consistent iterator for all time ranges, in ascending order of start time. The
+   * iterator never throws ConcurrentModificationException, and may or may not reflect the writes
+   * made after it was created.
+   */
+  @Override
+  public Iterator<TimeRange> iterator() {
+    return Collections.unmodifiableCollection(allTimeRanges.values()).iterator();
+  }
+
+  /**
+   * Returns a weakly consistent spliterator for all time ranges, in ascending order of start time.
+   * It splits like the spliterator of the map, so that parallel streams never block writers.
+   */
+  @Override
+  public Spliterator<TimeRange> spliterator() {
+    return allTimeRanges.values().spliterator();
+  }
+
+  /**
+   * Returns a read-only view of the time ranges between {@code from} and {@code to}. The view
+   * starts iterating at the range with the latest start that is not after {@code from}, and its
+   * iterators are weakly consistent.
+   */
+  @Override
+  public TimeRangeGroup subGroup(Instant from, Instant to) {
+    long fromSecond = from.getEpochSecond();
+    return new SubTimeRangeGroup(
+        this,
+        fromSecond,
+        to.getEpochSecond(),
+        () -> {
+          Long firstStart = allTimeRanges.floorKey(fromSecond);
+          return Collections.unmodifiableCollection(
+                  firstStart == null
+                      ? allTimeRanges.values()
+                      : allTimeRanges.tailMap(firstStart, true).values())
+              .iterator();
+        });
+  }
+
+  /** Deletes a time range. The caller must hold the write lock. */
+  private void deleteWhileLocked(TimeRange timeRangeToDelete) {
+    long toDeleteRangeStart = timeRangeToDelete.startEpochSecond();
+    long toDeleteRangeEnd = timeRangeToDelete.endEpochSecond();
+
+    // The affected ranges are the one starting right before the deleted range
+    // and all of the ones starting inside it.
+    List<TimeRange> affectedTimeRanges = new ArrayList<TimeRange>();
+    Map.Entry<Long, TimeRange> previousEntry = allTimeRanges.lowerEntry(toDeleteRangeStart);
+    if (previousEntry != null && previousEntry.getValue().overlaps(timeRangeToDelete)) {
+      affectedTimeRanges.add(previousEntry.getValue());
+    }
+    ConcurrentNavigableMap<Long, TimeRange> startingInside =
+        allTimeRanges.subMap(toDeleteRangeStart, true, toDeleteRangeEnd, true);
+    for (TimeRange currentRange : startingInside.values()) {
+      if (currentRange.overlaps(timeRangeToDelete)) {
+        affectedTimeRanges.add(currentRange);
+      }
+    }
+
+    for (TimeRange currentRange : affectedTimeRanges) {
+      long currentRangeStart = currentRange.startEpochSecond();
+      long currentRangeEnd = currentRange.endEpochSecond();
+
+      // Construct one or two new time ranges after the deletion. The part after the deleted
+      // range is put in first, and then the part before it replaces the current range under the
+      // same key.
+      if (currentRangeEnd > toDeleteRangeEnd) {
+        allTimeRanges.put(
+            toDeleteRangeEnd, TimeRange.fromEpochSeconds(toDeleteRangeEnd, currentRangeEnd));
+      }
+
+      boolean hasRangeBefore = currentRangeStart < toDeleteRangeStart;
+      if (hasRangeBefore) {
+        allTimeRanges.put(
+            currentRangeStart, TimeRange.fromEpochSeconds(currentRangeStart, toDeleteRangeStart));
+      }
+
+      if (!hasRangeBefore && currentRangeStart != toDeleteRangeEnd) {
+        allTimeRanges.remove(currentRangeStart);
+      }
+    }
+  }
+}
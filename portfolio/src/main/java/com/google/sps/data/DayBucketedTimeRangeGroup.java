@@ -0,0 +1,285 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Models an implementation of the TimeRangeGroup model that partitions the time ranges into one
+ * bucket per UTC day, for scheduling horizons of weeks or months. The buckets are small
+ * LongArrayTimeRangeGroups in an array indexed by day, so a change only touches the buckets of the
+ * days the changed range crosses, and its cost depends on the number of ranges per day instead of
+ * on the length of the whole horizon.
+ *
+ * <p>A range that crosses midnight is split into one piece per day. The pieces are joined back
+ * together as the group is iterated, so the group has the same time ranges as a flat group with the
+ * same changes. The only ranges of a flat group that meet without being merged are the two halves
+ * left by deleting a single instant, so the midnights where that happened are kept aside and their
+ * pieces are not joined.
+ */
+public class DayBucketedTimeRangeGroup implements TimeRangeGroup {
+  private static final long SECONDS_PER_DAY = 86400;
+  private static final int DEFAULT_CAPACITY = 16;
+
+  // The bucket of the day firstDay + i is at index i, or null if nothing was ever added on it.
+  private LongArrayTimeRangeGroup[] days = new LongArrayTimeRangeGroup[DEFAULT_CAPACITY];
+  private long firstDay = 0;
+  private boolean hasDays = false;
+
+  // The midnights, in epoch seconds, where a range ends and the next one starts without being one
+  // range, because the instant between them was deleted.
+  private final Set<Long> cutMidnights = new HashSet<Long>();
+
+  /** Adds all the input time ranges to the buckets of their days. */
+  public DayBucketedTimeRangeGroup(Iterable<TimeRange> timeRanges) {
+    addAll(timeRanges);
+  }
+
+  /**
+   * Adds a new time range to the buckets of the days it crosses. If the time range to add overlaps
+   * with any existing time range, the overlapping time ranges will be merged.
+   */
+  @Override
+  public void addTimeRange(TimeRange timeRange) {
+    long start = timeRange.startEpochSecond();
+    long end = timeRange.endEpochSecond();
+    if (!cutMidnights.isEmpty()) {
+      // The new range merges the ranges on both sides of any midnight it touches.
+      for (long day = dayOf(start - 1) + 1; day <= dayOf(end); day++) {
+        cutMidnights.remove(day * SECONDS_PER_DAY);
+      }
+    }
+    if (start == end) {
+      bucketForWriting(dayOf(start)).addTimeRange(timeRange);
+      return;
+    }
+
+    for (long day = dayOf(start); day <= dayOf(end - 1); day++) {
+      bucketForWriting(day).addTimeRange(pieceOn(day, start, end));
+    }
+  }
+
+  /**
+   * Checks if a time range exists in the collection. For example, if [3:00 - 4:00] is in the
+   * collection, [3:00 - 3:30] is considered to exist as a time range in the collection. A range
+   * that crosses midnight exists if each of its pieces exists in the bucket of its day.
+   */
+  @Override
+  public boolean hasTimeRange(TimeRange timeRangeToCheck) {
+    long start = timeRangeToCheck.startEpochSecond();
+    long end = timeRangeToCheck.endEpochSecond();
+    if (start == end) {
+      // A point at midnight can be at the end of the previous day's last range.
+      return hasTimeRangeOn(dayOf(start), timeRangeToCheck)
+          || (start % SECONDS_PER_DAY == 0 && hasTimeRangeOn(dayOf(start) - 1, timeRangeToCheck));
+    }
+
+    for (long day = dayOf(start); day <= dayOf(end - 1); day++) {
+      if (!hasTimeRangeOn(day, pieceOn(day, start, end))
+          || (day > dayOf(start) && isCut(day * SECONDS_PER_DAY))) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Deletes a time range from the buckets of the days it crosses. For example, if the group
+   * contains [3:00 - 4:00], deleting [3:15 - 3:30] will result in [3 - 3:15] and [3:30 - 4] as new
+   * time ranges.
+   */
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete) {
+    long start = timeRangeToDelete.startEpochSecond();
+    long end = timeRangeToDelete.endEpochSecond();
+    if (start == end) {
+      deleteTimeRangeOn(dayOf(start), timeRangeToDelete);
+    } else {
+      for (long day = dayOf(start); day <= dayOf(end - 1); day++) {
+        deleteTimeRangeOn(day, pieceOn(day, start, end));
+      }
+      if (end % SECONDS_PER_DAY == 0) {
+        // A range of just midnight is in the bucket of the next day. The whole range is deleted
+        // there, since a piece with no length would not delete it.
+        deleteTimeRangeOn(dayOf(end), timeRangeToDelete);
+      }
+    }
+
+    // Deleting midnight from a range that crosses it leaves two ranges that meet there.
+    if (start == end
+        && start % SECONDS_PER_DAY == 0
+        && hasTimeRangeOn(dayOf(start) - 1, timeRangeToDelete)
+        && hasTimeRangeOn(dayOf(start), timeRangeToDelete)) {
+      cutMidnights.add(start);
+    }
+  }
+
+  /**
+   * Returns an iterator for all time ranges, in ascending order of start time. Pieces of a range
+   * that meet at midnight are joined back into one range.
+   */
+  @Override
+  public Iterator<TimeRange> iterator() {
+    return iteratorFrom(0);
+  }
+
+  /**
+   * Returns a read-only view of the time ranges between {@code from} and {@code to}. The view
+   * starts iterating at the bucket of the day of {@code from}, so earlier days are never visited.
+   */
+  @Override
+  public TimeRangeGroup subGroup(Instant from, Instant to) {
+    long fromSecond = from.getEpochSecond();
+    return new SubTimeRangeGroup(
+        this,
+        fromSecond,
+        to.getEpochSecond(),
+        () -> iteratorFrom(clampToDays(dayOf(fromSecond) - firstDay)));
+  }
+
+  /**
+   * Returns the total length of the time ranges between {@code from} and {@code to}, counting only
+   * the part of the ranges at either edge that is inside the window. Only the buckets of the days
+   * in the window are visited, and each one answers from its own Fenwick tree.
+   *
+   * @throws IllegalArgumentException if {@code from} is after {@code to}.
+   */
+  @Override
+  public Duration totalFreeDuration(Instant from, Instant to) {
+    long fromSecond = from.getEpochSecond();
+    long toSecond = to.getEpochSecond();
+    if (fromSecond > toSecond) {
+      throw new IllegalArgumentException("The start of the window must not be after its end");
+    }
+
+    Duration total = Duration.ZERO;
+    int firstIndex = clampToDays(dayOf(fromSecond) - firstDay);
+    int lastIndex = clampToDays(dayOf(toSecond) - firstDay + 1);
+    for (int i = firstIndex; hasDays && i < lastIndex; i++) {
+      if (days[i] != null) {
+        total = total.plus(days[i].totalFreeDuration(from, to));
+      }
+    }
+    return total;
+  }
+
+  /** Returns an iterator for the time ranges from the bucket at the given index. */
+  private Iterator<TimeRange> iteratorFrom(int firstIndex) {
+    return new Iterator<TimeRange>() {
+      private int dayIndex = firstIndex;
+      private Iterator<TimeRange> dayIterator = null;
+      private TimeRange nextPiece = findNextPiece();
+
+      @Override
+      public boolean hasNext() {
+        return nextPiece != null;
+      }
+
+      @Override
+      public TimeRange next() {
+        if (nextPiece == null) {
+          throw new NoSuchElementException();
+        }
+
+        // Join the pieces that meet at midnight.
+        long start = nextPiece.startEpochSecond();
+        long end = nextPiece.endEpochSecond();
+        TimeRange firstPiece = nextPiece;
+        nextPiece = findNextPiece();
+        while (nextPiece != null
+            && end % SECONDS_PER_DAY == 0
+            && nextPiece.startEpochSecond() == end
+            && !isCut(end)) {
+          end = nextPiece.endEpochSecond();
+          nextPiece = findNextPiece();
+        }
+        return end == firstPiece.endEpochSecond()
+            ? firstPiece
+            : TimeRange.fromEpochSeconds(start, end);
+      }
+
+      private TimeRange findNextPiece() {
+        while (dayIterator == null || !dayIterator.hasNext()) {
+          if (!hasDays || dayIndex >= days.length) {
+            return null;
+          }
+          LongArrayTimeRangeGroup bucket = days[dayIndex++];
+          dayIterator = bucket == null ? null : bucket.iterator();
+        }
+        return dayIterator.next();
+      }
+    };
+  }
+
+  private boolean isCut(long midnight) {
+    return !cutMidnights.isEmpty() && cutMidnights.contains(midnight);
+  }
+
+  private boolean hasTimeRangeOn(long day, TimeRange timeRange) {
+    LongArrayTimeRangeGroup bucket = bucketOrNull(day);
+    return bucket != null && bucket.hasTimeRange(timeRange);
+  }
+
+  private void deleteTimeRangeOn(long day, TimeRange timeRange) {
+    LongArrayTimeRangeGroup bucket = bucketOrNull(day);
+    if (bucket != null) {
+      bucket.deleteTimeRange(timeRange);
+    }
+  }
+
+  /** Returns the part of [start, end] that is on the given day. */
+  private static TimeRange pieceOn(long day, long start, long end) {
+    long dayStart = day * SECONDS_PER_DAY;
+    return TimeRange.fromEpochSeconds(
+        Math.max(start, dayStart), Math.min(end, dayStart + SECONDS_PER_DAY));
+  }
+
+  private static long dayOf(long epochSecond) {
+    return Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+  }
+
+  private LongArrayTimeRangeGroup bucketOrNull(long day) {
+    long index = day - firstDay;
+    if (!hasDays || index < 0 || index >= days.length) {
+      return null;
+    }
+    return days[(int) index];
+  }
+
+  /** Returns the bucket of the given day, growing the array of days to reach it if needed. */
+  private LongArrayTimeRangeGroup bucketForWriting(long day) {
+    if (!hasDays) {
+      firstDay = day;
+      hasDays = true;
+    }
+
+    long index = day - firstDay;
+    if (index < 0) {
+      // Grow at the front, leaving room for earlier days too.
+      int shift = (int) Math.max(-index, days.length);
+      LongArrayTimeRangeGroup[] newDays = new LongArrayTimeRangeGroup[days.length + shift];
+      System.arraycopy(days, 0, newDays, shift, days.length);
+      days = newDays;
+      firstDay -= shift;
+      index += shift;
+    } else if (index >= days.length) {
+      LongArrayTimeRangeGroup[] newDays =
+          new LongArrayTimeRangeGroup[(int) Math.max(index + 1, days.length * 2L)];
+      System.arraycopy(days, 0, newDays, 0, days.length);
+      days = newDays;
+    }
+
+    if (days[(int) index] == null) {
+      days[(int) index] = new LongArrayTimeRangeGroup(Collections.emptyList());
+    }
+    return days[(int) index];
+  }
+
+  private int clampToDays(long index) {
+    return (int) Math.max(0, Math.min(index, days.length));
+  }
+}
@@ -0,0 +1,127 @@
+package com.google.sps.data;
+
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A static index of events sorted by start time that finds the events overlapping a window in O(log
+ * n + k) time for k results, even when events are long and nested.
+ *
+ * <p>The index is an implicit augmented interval tree laid over the sorted array, as in cgranges:
+ * the event at index i is a node of level k when the k lowest bits of i are ones and the next bit
+ * is zero, so the leaves are the even indices and the root is the node at 2^K - 1 for the highest
+ * level K. The children of a node i of level k are at i - 2^(k-1) and i + 2^(k-1). Every node keeps
+ * the latest end of the events in its subtree, so a query skips any subtree that ends before the
+ * window. Besides the sorted events it only needs one array of n instants, and it is built in O(n).
+ */
+final class EventIntervalIndex {
+  // Subtrees up to this level are scanned in order instead of walked, which is faster for the few
+  // events they hold.
+  private static final int SCAN_LEVEL = 3;
+
+  private final CalendarEvent[] events;
+
+  // The latest end of the events in the subtree of each node.
+  private final Instant[] maxEnds;
+
+  // The level of the root.
+  private final int maxLevel;
+
+  /** Builds the index of the given events, which must be sorted by start time. */
+  EventIntervalIndex(List<CalendarEvent> sortedEvents) {
+    events = sortedEvents.toArray(new CalendarEvent[0]);
+    maxEnds = new Instant[events.length];
+    maxLevel = buildMaxEnds();
+  }
+
+  /**
+   * Fills in the latest end of every subtree, level by level from the leaves. When the array is not
+   * a full tree, a right child past its end stands for the nodes that do exist on that side, whose
+   * latest end is carried along from the last node of each level.
+   *
+   * @return the level of the root, or -1 if there are no events.
+   */
+  private int buildMaxEnds() {
+    int n = events.length;
+    if (n == 0) {
+      return -1;
+    }
+    int lastIndex = 0;
+    Instant lastMaxEnd = null;
+    for (int i = 0; i < n; i += 2) {
+      lastIndex = i;
+      lastMaxEnd = maxEnds[i] = events[i].getEndTime();
+    }
+    int level = 1;
+    for (; 1 << level <= n; level++) {
+      int halfStep = 1 << (level - 1);
+      for (int i = (halfStep << 1) - 1; i < n; i += halfStep << 2) {
+        Instant maxEnd = max(events[i].getEndTime(), maxEnds[i - halfStep]);
+        maxEnds[i] = max(maxEnd, i + halfStep < n ? maxEnds[i + halfStep] : lastMaxEnd);
+      }
+      // Moves to the last node of this level, which is the parent of the last node below.
+      lastIndex = ((lastIndex >> level) & 1) != 0 ? lastIndex - halfStep : lastIndex + halfStep;
+      if (lastIndex < n && maxEnds[lastIndex].isAfter(lastMaxEnd)) {
+        lastMaxEnd = maxEnds[lastIndex];
+      }
+    }
+    return level - 1;
+  }
+
+  /**
+   * Returns the events that overlap the half-open window [from, to), that is the events that start
+   * before {@code to} and end after {@code from}, in order of start time.
+   */
+  List<CalendarEvent> overlapping(Instant from, Instant to) {
+    List<CalendarEvent> result = new ArrayList<CalendarEvent>();
+    if (maxLevel < 0) {
+      return result;
+    }
+    int n = events.length;
+
+    // Each frame is a node, its level, and whether its left subtree has been visited already.
+    Deque<int[]> stack = new ArrayDeque<int[]>();
+    stack.push(new int[] {(1 << maxLevel) - 1, maxLevel, 0});
+    while (!stack.isEmpty()) {
+      int[] frame = stack.pop();
+      int node = frame[0];
+      int level = frame[1];
+      if (level <= SCAN_LEVEL) {
+        int first = node >> level << level;
+        int last = Math.min(first + (1 << (level + 1)) - 1, n);
+        for (int i = first; i < last && events[i].getStartTime().isBefore(to); i++) {
+          if (events[i].getEndTime().isAfter(from)) {
+            result.add(events[i]);
+          }
+        }
+      } else if (frame[2] == 0) {
+        // Visits the left subtree first, unless it exists and ends before the window.
+        int leftChild = node - (1 << (level - 1));
+        stack.push(new int[] {node, level, 1});
+        if (leftChild >= n || maxEnds[leftChild].isAfter(from)) {
+          stack.push(new int[] {leftChild, level - 1, 0});
+        }
+      } else if (node < n && events[node].getStartTime().isBefore(to)) {
+        // The right subtree starts no earlier than the node, so it is only visited when the node
+        // starts inside the window.
+        if (events[node].getEndTime().isAfter(from)) {
+          result.add(events[node]);
+        }
+        stack.push(new int[] {node + (1 << (level - 1)), level - 1, 0});
+      }
+    }
+    return result;
+  }
+
+  /** Returns the events in progress at the given instant: those with start <= instant < end. */
+  List<CalendarEvent> stabbing(Instant instant) {
+    return overlapping(instant, instant.plusNanos(1));
+  }
+
+  private static Instant max(Instant a, Instant b) {
+    return a.isAfter(b) ? a : b;
+  }
+}
@@ -1,6 +1,5 @@
 package com.google.sps.data;
 
-import java.time.Instant;
 import java.util.LinkedList;
 import java.util.ListIterator;
 
@@ -16,7 +15,7 @@ public class LinkedListTimeRangeGroup extends AbstractListTimeRangeGroup impleme
    */
   public LinkedListTimeRangeGroup(Iterable<TimeRange> timeRanges) {
     allTimeRanges = new LinkedList<TimeRange>();
-    addAllTimeRanges(timeRanges);
+    addAll(timeRanges);
   }
 
   /**
@@ -30,10 +29,16 @@ public class LinkedListTimeRangeGroup extends AbstractListTimeRangeGroup impleme
     // so simply add the new time range to the list and return.
     if (allTimeRanges.isEmpty()) {
       allTimeRanges.add(timeRange);
+      if (counters != null) {
+        counters.recordAdds(1, 0, 0, 1);
+      }
       return;
     }
     ListIterator<TimeRange> iterator = allTimeRanges.listIterator();
 
+    // The nodes are relinked in place, so no range is ever copied.
+    int comparisons = 1;
+
     // This variable represents the latest time range previously exmamined.
     // Initially, this variable points to the time range we want to add.
     // As the for loop iterates through all the current time ranges already existing
@@ -52,13 +57,17 @@ public class LinkedListTimeRangeGroup extends AbstractListTimeRangeGroup impleme
 
       // If the current range is completely contained by the lastExaminedTimeRange,
       // we need to remove the current range from the list as lastExaminedTimeRange
-      // will eventually replace it.
-      if (lastExaminedTimeRange.contains(currentRange)
-          && !lastExaminedTimeRange.equals(currentRange)) {
+      // will eventually replace it. The next range may be contained as well,
+      // so examine it from the top of the loop.
+      if (lastExaminedTimeRange.contains(currentRange)) {
         iterator.remove();
-        if (iterator.hasNext()) {
-          currentRange = iterator.next();
+        if (!iterator.hasNext()) {
+          iterator.add(lastExaminedTimeRange);
+          break;
         }
+        currentRange = iterator.next();
+        comparisons++;
+        continue;
       }
       if (lastExaminedTimeRange.overlaps(currentRange)
           && !lastExaminedTimeRange.contains(currentRange)) {
@@ -67,15 +76,15 @@ public class LinkedListTimeRangeGroup extends AbstractListTimeRangeGroup impleme
         // remove currentRange
         lastExaminedTimeRange = mergeTwoTimeRanges(currentRange, lastExaminedTimeRange);
         iterator.remove();
-      } else if (currentRange.end().isAfter(lastExaminedTimeRange.end())) {
+      } else if (currentRange.endEpochSecond() > lastExaminedTimeRange.endEpochSecond()) {
         // This is the case that lastExaminedTimeRange and the current time range do not overlap.
         // If the current range from the original list ends after the last examined time range,
         // add the time range pointed to by lastExaminedTimeRange to the new list before the current
-        // range,and change the lastExaminedTimeRange to point to the current range.
+        // range. The list is sorted and disjoint, so none of the later ranges can be affected and
+        // the insertion is complete.
         iterator.previous();
         iterator.add(lastExaminedTimeRange);
-        iterator.next();
-        lastExaminedTimeRange = currentRange;
+        break;
       }
 
       // If current time range is the last element in the allTimeRanges list,
@@ -101,6 +110,11 @@ public class LinkedListTimeRangeGroup extends AbstractListTimeRangeGroup impleme
       }
       // We move forward
       currentRange = iterator.next();
+      comparisons++;
+    }
+
+    if (counters != null) {
+      counters.recordAdds(1, comparisons, 0, allTimeRanges.size());
     }
   }
 
@@ -113,11 +127,19 @@ public class LinkedListTimeRangeGroup extends AbstractListTimeRangeGroup impleme
    */
   @Override
   public boolean hasTimeRange(TimeRange timeRangeToCheck) {
+    int comparisons = 0;
     for (TimeRange currentRange : allTimeRanges) {
+      comparisons++;
       if (currentRange.contains(timeRangeToCheck)) {
+        if (counters != null) {
+          counters.recordLookup(comparisons);
+        }
         return true;
       }
     }
+    if (counters != null) {
+      counters.recordLookup(comparisons);
+    }
     return false;
   }
 
@@ -134,6 +156,7 @@ public class LinkedListTimeRangeGroup extends AbstractListTimeRangeGroup impleme
    */
   @Override
   public void deleteTimeRange(TimeRange timeRangeToDelete) {
+    int previousSize = allTimeRanges.size();
     ListIterator<TimeRange> iterator = allTimeRanges.listIterator();
 
     while (iterator.hasNext()) {
@@ -141,23 +164,27 @@ public class LinkedListTimeRangeGroup extends AbstractListTimeRangeGroup impleme
       if (!currentRange.overlaps(timeRangeToDelete)) {
         continue;
       }
-      Instant currentRangeStart = currentRange.start();
-      Instant currentRangeEnd = currentRange.end();
-      Instant toDeleteRangeStart = timeRangeToDelete.start();
-      Instant toDeleteRangeEnd = timeRangeToDelete.end();
+      long currentRangeStart = currentRange.startEpochSecond();
+      long currentRangeEnd = currentRange.endEpochSecond();
+      long toDeleteRangeStart = timeRangeToDelete.startEpochSecond();
+      long toDeleteRangeEnd = timeRangeToDelete.endEpochSecond();
 
       // If currentRange overlaps then it is about to be modified so we
       // remove it and later add the fixed versions.
       iterator.remove();
 
       // Construct one or two new time ranges after the deletion.
-      if (currentRangeStart.isBefore(toDeleteRangeStart)) {
-        iterator.add(TimeRange.fromStartEnd(currentRangeStart, toDeleteRangeStart));
+      if (currentRangeStart < toDeleteRangeStart) {
+        iterator.add(TimeRange.fromEpochSeconds(currentRangeStart, toDeleteRangeStart));
       }
 
-      if (currentRangeEnd.isAfter(toDeleteRangeEnd)) {
-        iterator.add(TimeRange.fromStartEnd(toDeleteRangeEnd, currentRangeEnd));
+      if (currentRangeEnd > toDeleteRangeEnd) {
+        iterator.add(TimeRange.fromEpochSeconds(toDeleteRangeEnd, currentRangeEnd));
       }
     }
+
+    if (counters != null) {
+      counters.recordDeletes(1, previousSize, 0, Math.max(previousSize, allTimeRanges.size()));
+    }
   }
 }
@@ -0,0 +1,604 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Models an implementation of the TimeRangeGroup model using two parallel arrays of primitive
+ * longs, which hold the start and end of every time range in epoch seconds. The ranges are kept
+ * sorted and pairwise disjoint, so lookups use binary search, and merges and splits shift the
+ * arrays in place with System.arraycopy instead of rebuilding a list of TimeRange objects. Each
+ * range takes 16 bytes, and TimeRange objects are only created when the group is iterated.
+ *
+ * <p>The primitive data is also exposed through {@code size}, {@code startEpochSecondAt} and {@code
+ * endEpochSecondAt}, so that callers can scan the ranges without going through TimeRange.
+ *
+ * <p>{@code totalFreeDuration} is answered in O(log n) from a binary indexed (Fenwick) tree over
+ * the lengths of the ranges. The tree is built by the first query, so a group that is never queried
+ * does not pay for it, and from then on every change keeps it up to date. A change that keeps the
+ * number of ranges, such as trimming or extending one range, updates the tree in place in O(log n).
+ * A change that shifts the ranges after it recomputes the tree positions of the shifted ranges as
+ * part of the shift, in O(m) for m shifted ranges, which is the same order as the array copy it
+ * already does. No query ever rebuilds the tree after the first one.
+ */
+public class LongArrayTimeRangeGroup implements TimeRangeGroup {
+  private static final int DEFAULT_CAPACITY = 16;
+
+  private long[] starts = new long[DEFAULT_CAPACITY];
+  private long[] ends = new long[DEFAULT_CAPACITY];
+  private int size = 0;
+
+  // Counts structural changes so that iterators can detect concurrent modification.
+  private int modificationCount = 0;
+
+  // Binary indexed tree over the lengths of the ranges, in seconds. The range at index i is at
+  // position i + 1 of the tree. It is null until the first totalFreeDuration query, and then always
+  // up to date.
+  private long[] durationTree = null;
+
+  /** Adds all the input time ranges to the arrays of all time ranges. */
+  public LongArrayTimeRangeGroup(Iterable<TimeRange> timeRanges) {
+    addAll(timeRanges);
+  }
+
+  /** Returns the number of disjoint time ranges in the group. */
+  public int size() {
+    return size;
+  }
+
+  /** Returns the start, in epoch seconds, of the time range at the given index. */
+  public long startEpochSecondAt(int index) {
+    checkIndex(index);
+    return starts[index];
+  }
+
+  /** Returns the end, in epoch seconds, of the time range at the given index. */
+  public long endEpochSecondAt(int index) {
+    checkIndex(index);
+    return ends[index];
+  }
+
+  /**
+   * Adds a new time range to the arrays. If the time range to add overlaps with any existing time
+   * range, the overlapping time ranges will be merged. The overlapping ranges are next to each
+   * other, so they are replaced by the single merged range in place.
+   */
+  @Override
+  public void addTimeRange(TimeRange timeRange) {
+    add(timeRange, null);
+  }
+
+  /**
+   * Adds a new time range like {@code addTimeRange}, and fills the delta with the time ranges the
+   * addition removed and created, without allocating.
+   */
+  @Override
+  public void addTimeRange(TimeRange timeRange, TimeRangeGroupDelta delta) {
+    delta.clear();
+    add(timeRange, delta);
+  }
+
+  /** Adds a new time range, and records the changes in the delta if it is not null. */
+  private void add(TimeRange timeRange, TimeRangeGroupDelta delta) {
+    long mergedStart = timeRange.startEpochSecond();
+    long mergedEnd = timeRange.endEpochSecond();
+
+    // Ranges that end before the new range starts cannot overlap it.
+    int firstIndex = firstIndexEndingAtOrAfter(mergedStart);
+    int lastIndex = firstIndex;
+    while (lastIndex < size
+        && TimeRange.overlaps(starts[lastIndex], ends[lastIndex], mergedStart, mergedEnd)) {
+      if (delta != null) {
+        delta.recordRemoved(starts[lastIndex], ends[lastIndex]);
+      }
+      mergedStart = Math.min(mergedStart, starts[lastIndex]);
+      mergedEnd = Math.max(mergedEnd, ends[lastIndex]);
+      lastIndex++;
+    }
+
+    if (delta != null) {
+      delta.recordCreated(mergedStart, mergedEnd);
+    }
+
+    replaceRanges(firstIndex, lastIndex, 1);
+    setRange(firstIndex, mergedStart, mergedEnd);
+  }
+
+  /**
+   * Checks if a time range exists in the collection. For example, if [3:00 - 4:00] is in the
+   * collection, [3:00 - 3:30] is considered to exist as a time range in the collection. This method
+   * uses binary search to find the range with the latest start that is not after the target range's
+   * start, which is the only range that can contain it.
+   */
+  @Override
+  public boolean hasTimeRange(TimeRange timeRangeToCheck) {
+    int index = firstIndexStartingAfter(timeRangeToCheck.startEpochSecond()) - 1;
+    return index >= 0
+        && TimeRange.contains(
+            starts[index],
+            ends[index],
+            timeRangeToCheck.startEpochSecond(),
+            timeRangeToCheck.endEpochSecond());
+  }
+
+  /**
+   * Delete a time range from the arrays. Because the time ranges are always kept to be pairwise
+   * disjoint, the potentially two new time ranges resulted from a deletion will not overlap with
+   * any other existing time ranges.
+   *
+   * <p>For example, if the group contains [3:00 - 4:00] and [5:00 - 6:00], deleting [3:15 - 3:30]
+   * will result in [3 - 3:15] and [3:30 - 4] as new time ranges.
+   *
+   * <p>Another example for deleting overlapping time ranges: if [3 - 4] and [5 - 6] are in the
+   * original group, deleting [3:30 - 5:30] will result in two new ranges: [3 - 3:30] and [5:30 -
+   * 6].
+   */
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete) {
+    delete(timeRangeToDelete, null);
+  }
+
+  /**
+   * Deletes a time range like {@code deleteTimeRange}, and fills the delta with the time ranges the
+   * deletion removed and created, without allocating.
+   */
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete, TimeRangeGroupDelta delta) {
+    delta.clear();
+    delete(timeRangeToDelete, delta);
+  }
+
+  /** Deletes a time range, and records the changes in the delta if it is not null. */
+  private void delete(TimeRange timeRangeToDelete, TimeRangeGroupDelta delta) {
+    long toDeleteRangeStart = timeRangeToDelete.startEpochSecond();
+    long toDeleteRangeEnd = timeRangeToDelete.endEpochSecond();
+
+    int firstIndex = firstIndexEndingAtOrAfter(toDeleteRangeStart);
+    int lastIndex = firstIndex;
+    while (lastIndex < size
+        && TimeRange.overlaps(
+            starts[lastIndex], ends[lastIndex], toDeleteRangeStart, toDeleteRangeEnd)) {
+      if (delta != null) {
+        delta.recordRemoved(starts[lastIndex], ends[lastIndex]);
+      }
+      lastIndex++;
+    }
+    if (firstIndex == lastIndex) {
+      return;
+    }
+
+    // Only the first affected range can keep a part before the deleted range,
+    // and only the last affected range can keep a part after it.
+    long firstStart = starts[firstIndex];
+    long lastEnd = ends[lastIndex - 1];
+    boolean hasRangeBefore = firstStart < toDeleteRangeStart;
+    boolean hasRangeAfter = lastEnd > toDeleteRangeEnd;
+    if (delta != null && hasRangeBefore) {
+      delta.recordCreated(firstStart, toDeleteRangeStart);
+    }
+    if (delta != null && hasRangeAfter) {
+      delta.recordCreated(toDeleteRangeEnd, lastEnd);
+    }
+
+    replaceRanges(firstIndex, lastIndex, (hasRangeBefore ? 1 : 0) + (hasRangeAfter ? 1 : 0));
+    int index = firstIndex;
+    if (hasRangeBefore) {
+      setRange(index, firstStart, toDeleteRangeStart);
+      index++;
+    }
+    if (hasRangeAfter) {
+      setRange(index, toDeleteRangeEnd, lastEnd);
+    }
+  }
+
+  /**
+   * Adds all the given time ranges in one pass. The new ranges are sorted by start once, unless
+   * they already are, and then merged with the existing ranges into new arrays in a single O(n + m)
+   * sweep. If the group is empty and the new ranges are already sorted and disjoint, they are
+   * copied in as they are.
+   */
+  @Override
+  public void addAll(Iterable<TimeRange> timeRanges) {
+    List<TimeRange> newTimeRanges = AbstractListTimeRangeGroup.sortedByStart(timeRanges);
+    int newCount = newTimeRanges.size();
+    long[] mergedStarts = new long[Math.max(DEFAULT_CAPACITY, size + newCount)];
+    long[] mergedEnds = new long[mergedStarts.length];
+    int mergedSize = 0;
+
+    if (size == 0 && AbstractListTimeRangeGroup.isSortedAndDisjoint(newTimeRanges)) {
+      for (TimeRange timeRange : newTimeRanges) {
+        mergedStarts[mergedSize] = timeRange.startEpochSecond();
+        mergedEnds[mergedSize] = timeRange.endEpochSecond();
+        mergedSize++;
+      }
+      setRanges(mergedStarts, mergedEnds, mergedSize);
+      return;
+    }
+
+    // Visits the ranges of both sequences in order of start, merging each one into the
+    // last merged range if they overlap.
+    int existingIndex = 0;
+    int newIndex = 0;
+    while (existingIndex < size || newIndex < newCount) {
+      long currentStart;
+      long currentEnd;
+      if (newIndex == newCount
+          || (existingIndex < size
+              && starts[existingIndex] <= newTimeRanges.get(newIndex).startEpochSecond())) {
+        currentStart = starts[existingIndex];
+        currentEnd = ends[existingIndex];
+        existingIndex++;
+      } else {
+        currentStart = newTimeRanges.get(newIndex).startEpochSecond();
+        currentEnd = newTimeRanges.get(newIndex).endEpochSecond();
+        newIndex++;
+      }
+
+      int lastIndex = mergedSize - 1;
+      if (lastIndex >= 0
+          && TimeRange.overlaps(
+              mergedStarts[lastIndex], mergedEnds[lastIndex], currentStart, currentEnd)) {
+        mergedStarts[lastIndex] = Math.min(mergedStarts[lastIndex], currentStart);
+        mergedEnds[lastIndex] = Math.max(mergedEnds[lastIndex], currentEnd);
+      } else {
+        mergedStarts[mergedSize] = currentStart;
+        mergedEnds[mergedSize] = currentEnd;
+        mergedSize++;
+      }
+    }
+    setRanges(mergedStarts, mergedEnds, mergedSize);
+  }
+
+  /**
+   * Deletes all the given time ranges in one pass. The ranges to delete are sorted by start once
+   * and merged together, and then every existing range is cut by the ones it overlaps into new
+   * arrays in a single O(n + m) sweep.
+   */
+  @Override
+  public void deleteAll(Iterable<TimeRange> timeRangesToDelete) {
+    List<TimeRange> deletions =
+        AbstractListTimeRangeGroup.mergeOverlapping(
+            AbstractListTimeRangeGroup.sortedByStart(timeRangesToDelete));
+    // Each deletion can split at most one range in two.
+    long[] remainingStarts = new long[Math.max(DEFAULT_CAPACITY, size + deletions.size())];
+    long[] remainingEnds = new long[remainingStarts.length];
+    int remainingSize = 0;
+
+    int firstDeletion = 0;
+    for (int index = 0; index < size; index++) {
+      // Deletions that end before this range cannot overlap it or any later range.
+      while (firstDeletion < deletions.size()
+          && deletions.get(firstDeletion).endEpochSecond() < starts[index]) {
+        firstDeletion++;
+      }
+
+      // Keeps the parts of this range between the deletions that overlap it.
+      long remainingStart = starts[index];
+      for (int i = firstDeletion;
+          i < deletions.size() && deletions.get(i).startEpochSecond() <= ends[index];
+          i++) {
+        long deletionStart = deletions.get(i).startEpochSecond();
+        if (remainingStart < deletionStart) {
+          remainingStarts[remainingSize] = remainingStart;
+          remainingEnds[remainingSize] = deletionStart;
+          remainingSize++;
+        }
+        remainingStart = Math.max(remainingStart, deletions.get(i).endEpochSecond());
+      }
+
+      if (remainingStart == starts[index] || remainingStart < ends[index]) {
+        remainingStarts[remainingSize] = remainingStart;
+        remainingEnds[remainingSize] = ends[index];
+        remainingSize++;
+      }
+    }
+    setRanges(remainingStarts, remainingEnds, remainingSize);
+  }
+
+  /**
+   * Returns an iterator for all time ranges, in ascending order of start time. The TimeRange
+   * objects are created as the iterator reaches them.
+   */
+  @Override
+  public Iterator<TimeRange> iterator() {
+    return iteratorFrom(0);
+  }
+
+  /**
+   * Returns a sized spliterator for all time ranges, in ascending order of start time, which splits
+   * the arrays in halves. Like the iterator, it creates the TimeRange objects as it reaches them.
+   */
+  @Override
+  public Spliterator<TimeRange> spliterator() {
+    return new TimeRangeSpliterator(0, size, modificationCount);
+  }
+
+  /**
+   * Returns a read-only view of the time ranges between {@code from} and {@code to}. The view uses
+   * binary search to start iterating at the first time range that can be inside the window.
+   */
+  @Override
+  public TimeRangeGroup subGroup(Instant from, Instant to) {
+    long fromSecond = from.getEpochSecond();
+    return new SubTimeRangeGroup(
+        this,
+        fromSecond,
+        to.getEpochSecond(),
+        () -> iteratorFrom(firstIndexEndingAtOrAfter(fromSecond)));
+  }
+
+  /**
+   * Returns the total length of the time ranges between {@code from} and {@code to}, counting only
+   * the part of the ranges at either edge that is inside the window. Both ends of the window are
+   * truncated to the second. Binary search finds the ranges at the edges, and the lengths of the
+   * ranges between them are summed from the Fenwick tree, so the query takes O(log n). The first
+   * query builds the tree in O(n).
+   *
+   * @throws IllegalArgumentException if {@code from} is after {@code to}.
+   */
+  @Override
+  public Duration totalFreeDuration(Instant from, Instant to) {
+    long fromSecond = from.getEpochSecond();
+    long toSecond = to.getEpochSecond();
+    if (fromSecond > toSecond) {
+      throw new IllegalArgumentException("The start of the window must not be after its end");
+    }
+
+    int firstIndex = firstIndexEndingAtOrAfter(fromSecond);
+    int endIndex = firstIndexStartingAfter(toSecond - 1);
+    if (firstIndex >= endIndex) {
+      return Duration.ZERO;
+    }
+
+    if (durationTree == null) {
+      rebuildDurationTree();
+    }
+    long totalSeconds = durationPrefixSum(endIndex) - durationPrefixSum(firstIndex);
+    totalSeconds -= Math.max(0, fromSecond - starts[firstIndex]);
+    totalSeconds -= Math.max(0, ends[endIndex - 1] - toSecond);
+    return Duration.ofSeconds(totalSeconds);
+  }
+
+  /** Returns an iterator for the time ranges from the given index. */
+  private Iterator<TimeRange> iteratorFrom(int startIndex) {
+    return new Iterator<TimeRange>() {
+      private final int expectedModificationCount = modificationCount;
+      private int index = startIndex;
+
+      @Override
+      public boolean hasNext() {
+        return index < size;
+      }
+
+      @Override
+      public TimeRange next() {
+        if (modificationCount != expectedModificationCount) {
+          throw new ConcurrentModificationException();
+        }
+        if (index >= size) {
+          throw new NoSuchElementException();
+        }
+        TimeRange timeRange = TimeRange.fromEpochSeconds(starts[index], ends[index]);
+        index++;
+        return timeRange;
+      }
+    };
+  }
+
+  /** A spliterator over the time ranges with an index in [index, fence). */
+  private final class TimeRangeSpliterator implements Spliterator<TimeRange> {
+    private int index;
+    private final int fence;
+    private final int expectedModificationCount;
+
+    private TimeRangeSpliterator(int index, int fence, int expectedModificationCount) {
+      this.index = index;
+      this.fence = fence;
+      this.expectedModificationCount = expectedModificationCount;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super TimeRange> action) {
+      checkForModification();
+      if (index >= fence) {
+        return false;
+      }
+      action.accept(TimeRange.fromEpochSeconds(starts[index], ends[index]));
+      index++;
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super TimeRange> action) {
+      checkForModification();
+      for (; index < fence; index++) {
+        action.accept(TimeRange.fromEpochSeconds(starts[index], ends[index]));
+      }
+      checkForModification();
+    }
+
+    @Override
+    public Spliterator<TimeRange> trySplit() {
+      int middle = (index + fence) >>> 1;
+      if (middle <= index) {
+        return null;
+      }
+      TimeRangeSpliterator prefix =
+          new TimeRangeSpliterator(index, middle, expectedModificationCount);
+      index = middle;
+      return prefix;
+    }
+
+    @Override
+    public long estimateSize() {
+      return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+      return Spliterator.ORDERED
+          | Spliterator.SIZED
+          | Spliterator.SUBSIZED
+          | Spliterator.NONNULL
+          | Spliterator.DISTINCT;
+    }
+
+    private void checkForModification() {
+      if (modificationCount != expectedModificationCount) {
+        throw new ConcurrentModificationException();
+      }
+    }
+  }
+
+  /**
+   * Returns the index of the first range whose end is at or after the given second. Because the
+   * ranges are disjoint and sorted by start, they are sorted by end as well.
+   */
+  private int firstIndexEndingAtOrAfter(long epochSecond) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (ends[middle] < epochSecond) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /** Returns the index of the first range whose start is after the given second. */
+  private int firstIndexStartingAfter(long epochSecond) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (starts[middle] <= epochSecond) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Replaces the ranges in [fromIndex, toIndex) with {@code newCount} slots, shifting the ranges
+   * after them in place. The caller fills in the new slots, which count as empty in the Fenwick
+   * tree until then.
+   */
+  private void replaceRanges(int fromIndex, int toIndex, int newCount) {
+    boolean isShifting = toIndex - fromIndex != newCount;
+    if (durationTree != null && !isShifting) {
+      // No range moves, so take the replaced lengths out of the tree in place.
+      for (int i = fromIndex; i < toIndex; i++) {
+        addToDurationTree(i, starts[i] - ends[i]);
+      }
+    }
+
+    int newSize = size - (toIndex - fromIndex) + newCount;
+    if (newSize > starts.length) {
+      int newCapacity = Math.max(newSize, starts.length * 2);
+      starts = Arrays.copyOf(starts, newCapacity);
+      ends = Arrays.copyOf(ends, newCapacity);
+    }
+    int movedCount = size - toIndex;
+    System.arraycopy(starts, toIndex, starts, fromIndex + newCount, movedCount);
+    System.arraycopy(ends, toIndex, ends, fromIndex + newCount, movedCount);
+    size = newSize;
+    modificationCount++;
+
+    if (durationTree != null && isShifting) {
+      updateDurationTreeAfter(fromIndex, fromIndex + newCount);
+    }
+  }
+
+  /** Replaces all the ranges with the first {@code newSize} ranges of the given arrays. */
+  private void setRanges(long[] newStarts, long[] newEnds, int newSize) {
+    starts = newStarts;
+    ends = newEnds;
+    size = newSize;
+    modificationCount++;
+    if (durationTree != null) {
+      // The whole group was rebuilt in O(n), so the tree is too.
+      rebuildDurationTree();
+    }
+  }
+
+  /**
+   * Fills in the range at an index made by {@code replaceRanges}, and adds its length to the tree.
+   */
+  private void setRange(int index, long start, long end) {
+    starts[index] = start;
+    ends[index] = end;
+    if (durationTree != null) {
+      addToDurationTree(index, end - start);
+    }
+  }
+
+  /** Rebuilds the Fenwick tree from the lengths of all ranges in O(n). */
+  private void rebuildDurationTree() {
+    if (durationTree == null || durationTree.length < size + 1) {
+      durationTree = new long[starts.length + 1];
+    }
+    for (int i = 0; i < size; i++) {
+      durationTree[i + 1] = ends[i] - starts[i];
+    }
+    for (int position = 1; position <= size; position++) {
+      int parent = position + (position & -position);
+      if (parent <= size) {
+        durationTree[parent] += durationTree[position];
+      }
+    }
+  }
+
+  /**
+   * Recomputes every position of the Fenwick tree after {@code index}, once the ranges from {@code
+   * firstMovedIndex} on have been shifted. The slots in between are new and count as empty. The
+   * positions up to {@code index} only cover ranges that did not move, so they are still up to
+   * date. Each position is its own length plus the positions below it that it covers, which come
+   * first, so this takes O(m) for the m positions after {@code index}.
+   */
+  private void updateDurationTreeAfter(int index, int firstMovedIndex) {
+    if (durationTree.length < size + 1) {
+      durationTree = Arrays.copyOf(durationTree, starts.length + 1);
+    }
+    for (int position = index + 1; position <= size; position++) {
+      long seconds = position - 1 < firstMovedIndex ? 0 : ends[position - 1] - starts[position - 1];
+      int lowestBit = position & -position;
+      for (int child = 1; child < lowestBit; child <<= 1) {
+        seconds += durationTree[position - child];
+      }
+      durationTree[position] = seconds;
+    }
+  }
+
+  private void addToDurationTree(int index, long seconds) {
+    for (int position = index + 1; position <= size; position += position & -position) {
+      durationTree[position] += seconds;
+    }
+  }
+
+  /** Returns the total length of the ranges with an index below {@code endIndex}. */
+  private long durationPrefixSum(int endIndex) {
+    long sum = 0;
+    for (int position = endIndex; position > 0; position -= position & -position) {
+      sum += durationTree[position];
+    }
+    return sum;
+  }
+
+  private void checkIndex(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    }
+  }
+}
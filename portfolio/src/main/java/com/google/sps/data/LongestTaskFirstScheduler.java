@@ -4,6 +4,7 @@ import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,9 +29,11 @@ public class LongestTaskFirstScheduler implements TaskScheduler {
     CalendarEventsGroup calendarEventsGroup =
         new CalendarEventsGroup(eventsList, workHoursStartTime, workHoursEndTime);
 
-    // Create a TimeRangeGroup class for the free time ranges.
+    // Create a TimeRangeGroup class for the free time ranges. Every scheduled segment
+    // is deleted from the group.
     List<TimeRange> availableTimes = calendarEventsGroup.getFreeTimeRanges();
-    TimeRangeGroup availableTimesGroup = new ArrayListTimeRangeGroup(availableTimes);
+    TimeRangeGroup availableTimesGroup =
+        TimeRangeGroups.create(availableTimes, TimeRangeGroups.Workload.DELETE_HEAVY);
 
     List<ScheduledTask> scheduledTasks = new ArrayList<ScheduledTask>();
 
@@ -49,13 +52,6 @@ public class LongestTaskFirstScheduler implements TaskScheduler {
     return SchedulingAlgorithmType.LONGEST_TASK_FIRST;
   }
 
-  /** Constructs a list for the updated available time ranges after deletion. */
-  private List<TimeRange> constructAvailableTimeRanges(TimeRangeGroup updatedTimeRangeGroup) {
-    List<TimeRange> updatedAvailableTimes = new ArrayList();
-    updatedTimeRangeGroup.iterator().forEachRemaining(updatedAvailableTimes::add);
-    return updatedAvailableTimes;
-  }
-
   /**
    * Tries to schedule for a single task by iterating through the currently available time ranges.
    * Keeps splitting up the task to schedule the currently avaible free time ranges until all of the
@@ -70,19 +66,26 @@ public class LongestTaskFirstScheduler implements TaskScheduler {
    *     cannot be scheduled at all.
    */
   private List<ScheduledTask> scheduleOneTask(Task task, TimeRangeGroup availableTimesGroup) {
-    List<TimeRange> currentAvailableTimes = constructAvailableTimeRanges(availableTimesGroup);
     List<ScheduledTask> newScheduledTasks = new ArrayList<ScheduledTask>();
 
-    // If there is no available time ranges anymore,
-    // return the empty list.
-    if (currentAvailableTimes.isEmpty()) {
-      return newScheduledTasks;
-    }
-
     Duration taskDuration = task.getDuration();
     int taskSegmentCount = 1;
 
-    for (TimeRange currentFreeTimeRange : currentAvailableTimes) {
+    // Every segment but the last one takes up a whole free time range, which is deleted from the
+    // group, so the next segment goes into the first free time range after it. A view of the
+    // group from the end of the last taken range finds that range without copying the group.
+    Instant searchStartTime = Instant.MIN;
+
+    while (true) {
+      Iterator<TimeRange> remainingFreeTimeRanges =
+          availableTimesGroup.subGroup(searchStartTime, Instant.MAX).iterator();
+
+      // If there is no available time ranges anymore, stop scheduling this task.
+      if (!remainingFreeTimeRanges.hasNext()) {
+        break;
+      }
+      TimeRange currentFreeTimeRange = remainingFreeTimeRanges.next();
+
       // If the task has been entirely scheduled, return the list of new scheduled tasks.
       if (taskDuration.getSeconds() == 0) {
         return newScheduledTasks;
@@ -109,6 +112,7 @@ public class LongestTaskFirstScheduler implements TaskScheduler {
                 newScheduledTasks,
                 availableTimesGroup);
         taskDuration = taskDuration.minus(scheduledTaskTimeRange.duration());
+        searchStartTime = currentFreeTimeRange.end();
       } else {
         // Otherwise, only part of the free time range is needed to schedule this task.
         // In this case, if the count of segment is 1, then the task can be scheduled in its
@@ -135,7 +139,7 @@ public class LongestTaskFirstScheduler implements TaskScheduler {
       taskSegmentCount++;
     }
 
-    // If iterating through all current time ranges finishes, and the task still isn't
+    // If there are no more free time ranges, and the task still isn't
     // completely scheduled, then this task is only partially scheduled.
     // Go through all the segments for this task, and set their completeness to partially scheduled.
     Optional<SchedulingCompleteness> schedulingCompleteness =
@@ -0,0 +1,356 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.TreeSet;
+
+/**
+ * Models an implementation of the TimeRangeGroup model using a balanced (AVL) binary search tree of
+ * the disjoint time ranges, ordered by start time. Every node also stores the duration of the
+ * longest range in its subtree. {@code findFirstFit} uses this to skip every subtree that has no
+ * range long enough, so it runs in O(log n) instead of scanning all the ranges. A second set of the
+ * same ranges, ordered by duration, lets {@code findBestFit} run in O(log n) too.
+ */
+public class MaxGapTreeTimeRangeGroup implements TimeRangeGroup {
+  private Node root = null;
+
+  // The same time ranges as the tree, sorted by duration and then by start time.
+  private final TreeSet<TimeRange> timeRangesByDuration =
+      new TreeSet<TimeRange>(TimeRange.SORT_BY_TIME_RANGE_DURATION_ASCENDING_THEN_START_TIME);
+
+  // Counts structural changes so that iterators can detect concurrent modification.
+  private int modificationCount = 0;
+
+  /** A node of the tree, which holds one time range and the augmented data of its subtree. */
+  private static final class Node {
+    private final TimeRange timeRange;
+    private Node left = null;
+    private Node right = null;
+    private int height = 1;
+    private long maxDurationSeconds;
+
+    private Node(TimeRange timeRange) {
+      this.timeRange = timeRange;
+      this.maxDurationSeconds = timeRange.durationSeconds();
+    }
+
+    private long start() {
+      return timeRange.startEpochSecond();
+    }
+  }
+
+  /** Adds all the input time ranges to the tree of all time ranges. */
+  public MaxGapTreeTimeRangeGroup(Iterable<TimeRange> timeRanges) {
+    timeRanges.forEach(
+        (range) -> {
+          addTimeRange(range);
+        });
+  }
+
+  /**
+   * Adds a new time range to the tree. If the time range to add overlaps with any existing time
+   * range, the overlapping time ranges will be merged. Only the range that starts right before the
+   * new one and the ranges that start inside the new one can overlap it.
+   */
+  @Override
+  public void addTimeRange(TimeRange timeRange) {
+    TimeRange mergedTimeRange = timeRange;
+
+    Node previousNode = floorNode(timeRange.startEpochSecond());
+    if (previousNode != null && previousNode.timeRange.overlaps(mergedTimeRange)) {
+      mergedTimeRange =
+          AbstractListTimeRangeGroup.mergeTwoTimeRanges(previousNode.timeRange, mergedTimeRange);
+      removeFromTree(previousNode.timeRange);
+    }
+
+    // Every merge can only move the end of the merged range later,
+    // so keep merging the next range until one no longer overlaps.
+    Node nextNode = ceilingNode(timeRange.startEpochSecond());
+    while (nextNode != null && nextNode.timeRange.overlaps(mergedTimeRange)) {
+      mergedTimeRange =
+          AbstractListTimeRangeGroup.mergeTwoTimeRanges(nextNode.timeRange, mergedTimeRange);
+      removeFromTree(nextNode.timeRange);
+      nextNode = ceilingNode(timeRange.startEpochSecond());
+    }
+
+    addToTree(mergedTimeRange);
+  }
+
+  /**
+   * Checks if a time range exists in the collection. For example, if [3:00 - 4:00] is in the
+   * collection, [3:00 - 3:30] is considered to exist as a time range in the collection. Only the
+   * range with the latest start that is not after the target range's start can contain it.
+   */
+  @Override
+  public boolean hasTimeRange(TimeRange timeRangeToCheck) {
+    Node candidateNode = floorNode(timeRangeToCheck.startEpochSecond());
+    return candidateNode != null && candidateNode.timeRange.contains(timeRangeToCheck);
+  }
+
+  /**
+   * Delete a time range from the tree. Because the time ranges are always kept to be pairwise
+   * disjoint, the potentially two new time ranges resulted from a deletion will not overlap with
+   * any other existing time ranges.
+   *
+   * <p>For example, if the tree contains [3:00 - 4:00] and [5:00 - 6:00], deleting [3:15 - 3:30]
+   * will result in [3 - 3:15] and [3:30 - 4] as new time ranges.
+   *
+   * <p>Another example for deleting overlapping time ranges: if [3 - 4] and [5 - 6] are in the
+   * original tree, deleting [3:30 - 5:30] will result in two new ranges: [3 - 3:30] and [5:30 - 6].
+   */
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete) {
+    long toDeleteRangeStart = timeRangeToDelete.startEpochSecond();
+    long toDeleteRangeEnd = timeRangeToDelete.endEpochSecond();
+
+    // The affected ranges are the one starting right before the deleted range
+    // and all of the ones starting inside it.
+    List<TimeRange> affectedTimeRanges = new ArrayList<TimeRange>();
+    Node currentNode = floorNode(toDeleteRangeStart);
+    if (currentNode == null) {
+      currentNode = ceilingNode(toDeleteRangeStart);
+    }
+    while (currentNode != null && currentNode.start() <= toDeleteRangeEnd) {
+      if (currentNode.timeRange.overlaps(timeRangeToDelete)) {
+        affectedTimeRanges.add(currentNode.timeRange);
+      }
+      currentNode = ceilingNode(currentNode.start() + 1);
+    }
+
+    for (TimeRange currentRange : affectedTimeRanges) {
+      removeFromTree(currentRange);
+
+      // Construct one or two new time ranges after the deletion.
+      if (currentRange.startEpochSecond() < toDeleteRangeStart) {
+        addToTree(TimeRange.fromEpochSeconds(currentRange.startEpochSecond(), toDeleteRangeStart));
+      }
+
+      if (currentRange.endEpochSecond() > toDeleteRangeEnd) {
+        addToTree(TimeRange.fromEpochSeconds(toDeleteRangeEnd, currentRange.endEpochSecond()));
+      }
+    }
+  }
+
+  /** Returns an iterator for all time ranges, in ascending order of start time. */
+  @Override
+  public Iterator<TimeRange> iterator() {
+    return new Iterator<TimeRange>() {
+      private final int expectedModificationCount = modificationCount;
+      private final Deque<Node> pendingNodes = new ArrayDeque<Node>();
+
+      {
+        pushLeftPath(root);
+      }
+
+      @Override
+      public boolean hasNext() {
+        return !pendingNodes.isEmpty();
+      }
+
+      @Override
+      public TimeRange next() {
+        if (modificationCount != expectedModificationCount) {
+          throw new ConcurrentModificationException();
+        }
+        if (pendingNodes.isEmpty()) {
+          throw new NoSuchElementException();
+        }
+        Node node = pendingNodes.pop();
+        pushLeftPath(node.right);
+        return node.timeRange;
+      }
+
+      private void pushLeftPath(Node node) {
+        while (node != null) {
+          pendingNodes.push(node);
+          node = node.left;
+        }
+      }
+    };
+  }
+
+  /**
+   * Finds the earliest time range that is long enough to fit the given duration. At every node, the
+   * left subtree is only visited if its longest range fits, so only one path is followed.
+   */
+  @Override
+  public Optional<TimeRange> findFirstFit(Duration duration) {
+    Node node = root;
+    while (node != null) {
+      if (node.left != null && TimeRange.canFit(node.left.maxDurationSeconds, duration)) {
+        node = node.left;
+      } else if (node.timeRange.canFit(duration)) {
+        return Optional.of(node.timeRange);
+      } else if (node.right != null && TimeRange.canFit(node.right.maxDurationSeconds, duration)) {
+        node = node.right;
+      } else {
+        return Optional.empty();
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Finds the shortest time range that is long enough to fit the given duration, using the set of
+   * ranges sorted by duration.
+   */
+  @Override
+  public Optional<TimeRange> findBestFit(Duration duration) {
+    long neededSeconds = duration.getSeconds() + (duration.getNano() > 0 ? 1 : 0);
+    // The probe sorts before every range with the same duration, because its start is the minimum.
+    TimeRange probe = TimeRange.fromEpochSeconds(Long.MIN_VALUE, Long.MIN_VALUE + neededSeconds);
+    return Optional.ofNullable(timeRangesByDuration.ceiling(probe));
+  }
+
+  /** Adds a time range that does not overlap any other range to the tree and the duration set. */
+  private void addToTree(TimeRange timeRange) {
+    root = insert(root, timeRange);
+    timeRangesByDuration.add(timeRange);
+    modificationCount++;
+  }
+
+  /** Removes a time range that is in the tree from the tree and the duration set. */
+  private void removeFromTree(TimeRange timeRange) {
+    root = remove(root, timeRange.startEpochSecond());
+    timeRangesByDuration.remove(timeRange);
+    modificationCount++;
+  }
+
+  /** Returns the node with the latest start that is not after the given second. */
+  private Node floorNode(long epochSecond) {
+    Node floorNode = null;
+    Node node = root;
+    while (node != null) {
+      if (node.start() <= epochSecond) {
+        floorNode = node;
+        node = node.right;
+      } else {
+        node = node.left;
+      }
+    }
+    return floorNode;
+  }
+
+  /** Returns the node with the earliest start that is not before the given second. */
+  private Node ceilingNode(long epochSecond) {
+    Node ceilingNode = null;
+    Node node = root;
+    while (node != null) {
+      if (node.start() >= epochSecond) {
+        ceilingNode = node;
+        node = node.left;
+      } else {
+        node = node.right;
+      }
+    }
+    return ceilingNode;
+  }
+
+  private static Node insert(Node node, TimeRange timeRange) {
+    if (node == null) {
+      return new Node(timeRange);
+    }
+    if (timeRange.startEpochSecond() < node.start()) {
+      node.left = insert(node.left, timeRange);
+    } else {
+      node.right = insert(node.right, timeRange);
+    }
+    return balance(node);
+  }
+
+  private static Node remove(Node node, long start) {
+    if (node == null) {
+      return null;
+    }
+    if (start < node.start()) {
+      node.left = remove(node.left, start);
+    } else if (start > node.start()) {
+      node.right = remove(node.right, start);
+    } else {
+      if (node.left == null) {
+        return node.right;
+      }
+      if (node.right == null) {
+        return node.left;
+      }
+      // Replace the removed node with the earliest node of its right subtree.
+      Node successor = node.right;
+      while (successor.left != null) {
+        successor = successor.left;
+      }
+      successor.right = removeEarliest(node.right);
+      successor.left = node.left;
+      node = successor;
+    }
+    return balance(node);
+  }
+
+  private static Node removeEarliest(Node node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    node.left = removeEarliest(node.left);
+    return balance(node);
+  }
+
+  /** Restores the AVL property at a node whose subtrees differ in height by at most two. */
+  private static Node balance(Node node) {
+    update(node);
+    int balanceFactor = height(node.left) - height(node.right);
+    if (balanceFactor > 1) {
+      if (height(node.left.left) < height(node.left.right)) {
+        node.left = rotateLeft(node.left);
+      }
+      return rotateRight(node);
+    }
+    if (balanceFactor < -1) {
+      if (height(node.right.right) < height(node.right.left)) {
+        node.right = rotateRight(node.right);
+      }
+      return rotateLeft(node);
+    }
+    return node;
+  }
+
+  private static Node rotateRight(Node node) {
+    Node newRoot = node.left;
+    node.left = newRoot.right;
+    newRoot.right = node;
+    update(node);
+    update(newRoot);
+    return newRoot;
+  }
+
+  private static Node rotateLeft(Node node) {
+    Node newRoot = node.right;
+    node.right = newRoot.left;
+    newRoot.left = node;
+    update(node);
+    update(newRoot);
+    return newRoot;
+  }
+
+  /** Recomputes the height and the longest duration of a node from its children. */
+  private static void update(Node node) {
+    node.height = 1 + Math.max(height(node.left), height(node.right));
+    long maxDurationSeconds = node.timeRange.durationSeconds();
+    if (node.left != null) {
+      maxDurationSeconds = Math.max(maxDurationSeconds, node.left.maxDurationSeconds);
+    }
+    if (node.right != null) {
+      maxDurationSeconds = Math.max(maxDurationSeconds, node.right.maxDurationSeconds);
+    }
+    node.maxDurationSeconds = maxDurationSeconds;
+  }
+
+  private static int height(Node node) {
+    return node == null ? 0 : node.height;
+  }
+}
@@ -0,0 +1,310 @@
+package com.google.sps.data;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Models a persistent implementation of the TimeRangeGroup model using an immutable balanced (AVL)
+ * binary search tree of the disjoint time ranges, ordered by start time. Nodes are never changed:
+ * adding or deleting a range copies only the O(log n) nodes on the paths to the changed ranges, and
+ * shares every other node with the previous version.
+ *
+ * <p>{@code with} and {@code without} return a new group and leave this one as it is, and {@code
+ * fork} returns a copy in O(1), so a scheduler can try different placements and back out of them
+ * without copying the whole group. The TimeRangeGroup methods {@code addTimeRange} and {@code
+ * deleteTimeRange} move this group to the new version, and never change any fork or iterator made
+ * before.
+ */
+public class PersistentTimeRangeGroup implements TimeRangeGroup {
+  private Node root;
+
+  /** An immutable node of the tree. */
+  private static final class Node {
+    private final TimeRange timeRange;
+    private final Node left;
+    private final Node right;
+    private final int height;
+
+    private Node(TimeRange timeRange, Node left, Node right) {
+      this.timeRange = timeRange;
+      this.left = left;
+      this.right = right;
+      this.height = 1 + Math.max(height(left), height(right));
+    }
+
+    private long start() {
+      return timeRange.startEpochSecond();
+    }
+  }
+
+  /** Adds all the input time ranges to the tree of all time ranges. */
+  public PersistentTimeRangeGroup(Iterable<TimeRange> timeRanges) {
+    timeRanges.forEach(
+        (range) -> {
+          addTimeRange(range);
+        });
+  }
+
+  private PersistentTimeRangeGroup(Node root) {
+    this.root = root;
+  }
+
+  /** Returns a copy of this group, which shares all of its structure with this group. */
+  public PersistentTimeRangeGroup fork() {
+    return new PersistentTimeRangeGroup(root);
+  }
+
+  /**
+   * Returns a new group with the given time range added, merging it with any overlapping time
+   * ranges. This group is not changed.
+   */
+  public PersistentTimeRangeGroup with(TimeRange timeRange) {
+    TimeRange mergedTimeRange = timeRange;
+    Node newRoot = root;
+    long nextSearchStart = timeRange.startEpochSecond();
+
+    Node previousNode = floorNode(timeRange.startEpochSecond());
+    if (previousNode != null && previousNode.timeRange.overlaps(mergedTimeRange)) {
+      mergedTimeRange =
+          AbstractListTimeRangeGroup.mergeTwoTimeRanges(previousNode.timeRange, mergedTimeRange);
+      newRoot = remove(newRoot, previousNode.start());
+      nextSearchStart = previousNode.start() + 1;
+    }
+
+    // Every merge can only move the end of the merged range later,
+    // so keep merging the next range until one no longer overlaps.
+    Node nextNode = ceilingNode(root, nextSearchStart);
+    while (nextNode != null && nextNode.timeRange.overlaps(mergedTimeRange)) {
+      mergedTimeRange =
+          AbstractListTimeRangeGroup.mergeTwoTimeRanges(nextNode.timeRange, mergedTimeRange);
+      newRoot = remove(newRoot, nextNode.start());
+      nextNode = ceilingNode(root, nextNode.start() + 1);
+    }
+
+    return new PersistentTimeRangeGroup(insert(newRoot, mergedTimeRange));
+  }
+
+  /**
+   * Returns a new group with the given time range deleted, the same way as {@code deleteTimeRange}.
+   * This group is not changed.
+   */
+  public PersistentTimeRangeGroup without(TimeRange timeRangeToDelete) {
+    long toDeleteRangeStart = timeRangeToDelete.startEpochSecond();
+    long toDeleteRangeEnd = timeRangeToDelete.endEpochSecond();
+
+    // The affected ranges are the one starting right before the deleted range
+    // and all of the ones starting inside it.
+    List<TimeRange> affectedTimeRanges = new ArrayList<TimeRange>();
+    Node currentNode = floorNode(toDeleteRangeStart);
+    if (currentNode == null) {
+      currentNode = ceilingNode(root, toDeleteRangeStart);
+    }
+    while (currentNode != null && currentNode.start() <= toDeleteRangeEnd) {
+      if (currentNode.timeRange.overlaps(timeRangeToDelete)) {
+        affectedTimeRanges.add(currentNode.timeRange);
+      }
+      currentNode = ceilingNode(root, currentNode.start() + 1);
+    }
+
+    Node newRoot = root;
+    for (TimeRange currentRange : affectedTimeRanges) {
+      newRoot = remove(newRoot, currentRange.startEpochSecond());
+
+      // Construct one or two new time ranges after the deletion.
+      if (currentRange.startEpochSecond() < toDeleteRangeStart) {
+        newRoot =
+            insert(
+                newRoot,
+                TimeRange.fromEpochSeconds(currentRange.startEpochSecond(), toDeleteRangeStart));
+      }
+
+      if (currentRange.endEpochSecond() > toDeleteRangeEnd) {
+        newRoot =
+            insert(
+                newRoot,
+                TimeRange.fromEpochSeconds(toDeleteRangeEnd, currentRange.endEpochSecond()));
+      }
+    }
+
+    return new PersistentTimeRangeGroup(newRoot);
+  }
+
+  /**
+   * Adds a new time range to the group. If the time range to add overlaps with any existing time
+   * range, the overlapping time ranges will be merged. Forks made before are not changed.
+   */
+  @Override
+  public void addTimeRange(TimeRange timeRange) {
+    root = with(timeRange).root;
+  }
+
+  /**
+   * Checks if a time range exists in the collection. For example, if [3:00 - 4:00] is in the
+   * collection, [3:00 - 3:30] is considered to exist as a time range in the collection. Only the
+   * range with the latest start that is not after the target range's start can contain it.
+   */
+  @Override
+  public boolean hasTimeRange(TimeRange timeRangeToCheck) {
+    Node candidateNode = floorNode(timeRangeToCheck.startEpochSecond());
+    return candidateNode != null && candidateNode.timeRange.contains(timeRangeToCheck);
+  }
+
+  /**
+   * Delete a time range from the group. For example, if the group contains [3:00 - 4:00], deleting
+   * [3:15 - 3:30] will result in [3 - 3:15] and [3:30 - 4] as new time ranges. Forks made before
+   * are not changed.
+   */
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete) {
+    root = without(timeRangeToDelete).root;
+  }
+
+  /**
+   * Returns an iterator for all time ranges, in ascending order of start time. The iterator walks
+   * the version of the group at the time it was created, so changing the group while iterating is
+   * allowed and does not affect the iterator.
+   */
+  @Override
+  public Iterator<TimeRange> iterator() {
+    return new Iterator<TimeRange>() {
+      private final Deque<Node> pendingNodes = new ArrayDeque<Node>();
+
+      {
+        pushLeftPath(root);
+      }
+
+      @Override
+      public boolean hasNext() {
+        return !pendingNodes.isEmpty();
+      }
+
+      @Override
+      public TimeRange next() {
+        if (pendingNodes.isEmpty()) {
+          throw new NoSuchElementException();
+        }
+        Node node = pendingNodes.pop();
+        pushLeftPath(node.right);
+        return node.timeRange;
+      }
+
+      private void pushLeftPath(Node node) {
+        while (node != null) {
+          pendingNodes.push(node);
+          node = node.left;
+        }
+      }
+    };
+  }
+
+  /** Returns the node with the latest start that is not after the given second. */
+  private Node floorNode(long epochSecond) {
+    Node floorNode = null;
+    Node node = root;
+    while (node != null) {
+      if (node.start() <= epochSecond) {
+        floorNode = node;
+        node = node.right;
+      } else {
+        node = node.left;
+      }
+    }
+    return floorNode;
+  }
+
+  /** Returns the node of a tree with the earliest start that is not before the given second. */
+  private static Node ceilingNode(Node root, long epochSecond) {
+    Node ceilingNode = null;
+    Node node = root;
+    while (node != null) {
+      if (node.start() >= epochSecond) {
+        ceilingNode = node;
+        node = node.left;
+      } else {
+        node = node.right;
+      }
+    }
+    return ceilingNode;
+  }
+
+  /** Returns a tree with the time range inserted, replacing any range with the same start. */
+  private static Node insert(Node node, TimeRange timeRange) {
+    if (node == null) {
+      return new Node(timeRange, null, null);
+    }
+    if (timeRange.startEpochSecond() < node.start()) {
+      return balance(node.timeRange, insert(node.left, timeRange), node.right);
+    }
+    if (timeRange.startEpochSecond() > node.start()) {
+      return balance(node.timeRange, node.left, insert(node.right, timeRange));
+    }
+    return new Node(timeRange, node.left, node.right);
+  }
+
+  /** Returns a tree without the time range that has the given start. */
+  private static Node remove(Node node, long start) {
+    if (node == null) {
+      return null;
+    }
+    if (start < node.start()) {
+      return balance(node.timeRange, remove(node.left, start), node.right);
+    }
+    if (start > node.start()) {
+      return balance(node.timeRange, node.left, remove(node.right, start));
+    }
+    if (node.left == null) {
+      return node.right;
+    }
+    if (node.right == null) {
+      return node.left;
+    }
+
+    // Replace the removed range with the earliest range of its right subtree.
+    Node successor = node.right;
+    while (successor.left != null) {
+      successor = successor.left;
+    }
+    return balance(successor.timeRange, node.left, removeEarliest(node.right));
+  }
+
+  private static Node removeEarliest(Node node) {
+    if (node.left == null) {
+      return node.right;
+    }
+    return balance(node.timeRange, removeEarliest(node.left), node.right);
+  }
+
+  /**
+   * Returns a new node for the time range and subtrees, whose heights differ by at most two,
+   * rotating it so that they differ by at most one.
+   */
+  private static Node balance(TimeRange timeRange, Node left, Node right) {
+    if (height(left) > height(right) + 1) {
+      if (height(left.left) >= height(left.right)) {
+        return new Node(left.timeRange, left.left, new Node(timeRange, left.right, right));
+      }
+      return new Node(
+          left.right.timeRange,
+          new Node(left.timeRange, left.left, left.right.left),
+          new Node(timeRange, left.right.right, right));
+    }
+    if (height(right) > height(left) + 1) {
+      if (height(right.right) >= height(right.left)) {
+        return new Node(right.timeRange, new Node(timeRange, left, right.left), right.right);
+      }
+      return new Node(
+          right.left.timeRange,
+          new Node(timeRange, left, right.left.left),
+          new Node(right.timeRange, right.left.right, right.right));
+    }
+    return new Node(timeRange, left, right);
+  }
+
+  private static int height(Node node) {
+    return node == null ? 0 : node.height;
+  }
+}
@@ -0,0 +1,91 @@
+package com.google.sps.data;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Models how a recurring calendar event repeats, like the daily, weekly and monthly RRULEs of
+ * iCalendar. The event repeats every {@code interval} days, weeks or months from its first
+ * occurrence, in UTC. The repetition can be limited by a number of occurrences, by the last time an
+ * occurrence may start, or both, and single occurrences can be cancelled by their start time.
+ *
+ * <p>As in iCalendar, a monthly event on a day that a month does not have, such as the 31st, has no
+ * occurrence in that month, and cancelled occurrences still count towards the number of
+ * occurrences.
+ */
+public final class RecurrenceRule {
+  /** The unit of time between two occurrences. */
+  public enum Frequency {
+    DAILY,
+    WEEKLY,
+    MONTHLY
+  }
+
+  private final Frequency frequency;
+  private final int interval;
+  private final Optional<Integer> count;
+  private final Optional<Instant> until;
+  private final Set<Instant> exceptions;
+
+  /**
+   * @param frequency: the unit of time between two occurrences.
+   * @param interval: the number of units between two occurrences, at least 1.
+   * @param count: the number of occurrences, or null if it is not limited.
+   * @param until: the latest start of an occurrence, inclusive, or null if it is not limited.
+   * @param exceptions: the starts of the cancelled occurrences, or null if there are none.
+   */
+  public RecurrenceRule(
+      Frequency frequency,
+      int interval,
+      Integer count,
+      Instant until,
+      Collection<Instant> exceptions) {
+    if (frequency == null) {
+      throw new IllegalArgumentException("Frequency cannot be null");
+    }
+    if (interval < 1) {
+      throw new IllegalArgumentException("Interval must be at least 1");
+    }
+    if (count != null && count < 1) {
+      throw new IllegalArgumentException("Count must be at least 1");
+    }
+
+    this.frequency = frequency;
+    this.interval = interval;
+    this.count = Optional.ofNullable(count);
+    this.until = Optional.ofNullable(until);
+    this.exceptions =
+        exceptions == null
+            ? Collections.emptySet()
+            : Collections.unmodifiableSet(new HashSet<Instant>(exceptions));
+  }
+
+  public Frequency getFrequency() {
+    return frequency;
+  }
+
+  public int getInterval() {
+    return interval;
+  }
+
+  public Optional<Integer> getCount() {
+    return count;
+  }
+
+  public Optional<Instant> getUntil() {
+    return until;
+  }
+
+  public Set<Instant> getExceptions() {
+    return exceptions;
+  }
+
+  /** Checks if the occurrence that starts at the given time was cancelled. */
+  boolean isException(Instant occurrenceStart) {
+    return exceptions.contains(occurrenceStart);
+  }
+}
@@ -0,0 +1,165 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Models a calendar event that repeats by a RecurrenceRule. The occurrences are not stored: they
+ * are generated one at a time, and only inside the window they are asked for, so an event that
+ * repeats every day for years costs no more than the few occurrences inside a scheduling window.
+ */
+public final class RecurringCalendarEvent {
+  private final String name;
+  private final Instant startTime;
+  private final Duration duration;
+  private final RecurrenceRule rule;
+
+  /**
+   * Constructs a recurring calendar event.
+   *
+   * @param name: Name for the event,
+   * @param startTime: start time of the first occurrence, of type Instant.
+   * @param endTime: end time of the first occurrence, of type Instant. Every occurrence lasts as
+   *     long as the first one.
+   * @param rule: how the event repeats. All of these fields are required.
+   */
+  public RecurringCalendarEvent(
+      String name, Instant startTime, Instant endTime, RecurrenceRule rule) {
+    if (name == null) {
+      throw new IllegalArgumentException("Event needs a name");
+    }
+    if (startTime == null) {
+      throw new IllegalArgumentException("Event needs a start time");
+    }
+    if (endTime == null) {
+      throw new IllegalArgumentException("Event needs an end time");
+    }
+    if (startTime.isAfter(endTime)) {
+      throw new IllegalArgumentException("Start time cannot be after end time");
+    }
+    if (rule == null) {
+      throw new IllegalArgumentException("Event needs a recurrence rule");
+    }
+    this.name = name;
+    this.startTime = startTime;
+    this.duration = Duration.between(startTime, endTime);
+    this.rule = rule;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public Instant getStartTime() {
+    return startTime;
+  }
+
+  public Instant getEndTime() {
+    return startTime.plus(duration);
+  }
+
+  public RecurrenceRule getRule() {
+    return rule;
+  }
+
+  /**
+   * Returns the occurrences that overlap [from, to], in order of start time. The occurrences are
+   * generated lazily as the iterator advances. Daily and weekly events jump straight to the first
+   * occurrence near {@code from}; monthly events step through the months before it, because the
+   * months without an occurrence change which occurrence is the last one.
+   */
+  public Iterable<CalendarEvent> occurrencesBetween(Instant from, Instant to) {
+    return () -> new OccurrenceIterator(from, to);
+  }
+
+  /** Returns the start of the candidate occurrence with the given index. */
+  private Instant candidateStart(long index) {
+    switch (rule.getFrequency()) {
+      case DAILY:
+        return startTime.plus(Duration.ofDays(index * rule.getInterval()));
+      case WEEKLY:
+        return startTime.plus(Duration.ofDays(7 * index * rule.getInterval()));
+      default:
+        return ZonedDateTime.ofInstant(startTime, ZoneOffset.UTC)
+            .plusMonths(index * rule.getInterval())
+            .toInstant();
+    }
+  }
+
+  /** Checks if a candidate occurrence falls on the day of the month of the first occurrence. */
+  private boolean isCandidateValid(Instant candidateStart) {
+    return rule.getFrequency() != RecurrenceRule.Frequency.MONTHLY
+        || ZonedDateTime.ofInstant(candidateStart, ZoneOffset.UTC).getDayOfMonth()
+            == ZonedDateTime.ofInstant(startTime, ZoneOffset.UTC).getDayOfMonth();
+  }
+
+  /** Generates the occurrences that overlap a window, one at a time. */
+  private final class OccurrenceIterator implements Iterator<CalendarEvent> {
+    private final Instant from;
+    private final Instant to;
+
+    // The index of the next candidate occurrence, and the number of valid occurrences before it.
+    private long index;
+    private long occurrencesBefore;
+    private CalendarEvent next;
+
+    OccurrenceIterator(Instant from, Instant to) {
+      this.from = from;
+      this.to = to;
+
+      // Every daily or weekly candidate is an occurrence, so the iterator can skip to the last
+      // one that ends before the window.
+      if (rule.getFrequency() != RecurrenceRule.Frequency.MONTHLY) {
+        long periodSeconds =
+            (rule.getFrequency() == RecurrenceRule.Frequency.DAILY ? 1 : 7)
+                * rule.getInterval()
+                * Duration.ofDays(1).getSeconds();
+        long secondsToWindow = Duration.between(getEndTime(), from).getSeconds();
+        if (secondsToWindow > 0) {
+          index = secondsToWindow / periodSeconds;
+          occurrencesBefore = index;
+        }
+      }
+      next = findNext();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return next != null;
+    }
+
+    @Override
+    public CalendarEvent next() {
+      if (next == null) {
+        throw new NoSuchElementException();
+      }
+      CalendarEvent occurrence = next;
+      next = findNext();
+      return occurrence;
+    }
+
+    private CalendarEvent findNext() {
+      while (!rule.getCount().isPresent() || occurrencesBefore < rule.getCount().get()) {
+        Instant start = candidateStart(index++);
+        if (start.isAfter(to)
+            || (rule.getUntil().isPresent() && start.isAfter(rule.getUntil().get()))) {
+          return null;
+        }
+        if (!isCandidateValid(start)) {
+          continue;
+        }
+        occurrencesBefore++;
+
+        Instant end = start.plus(duration);
+        if (!end.isBefore(from) && !rule.isException(start)) {
+          return new CalendarEvent(name, start, end);
+        }
+      }
+      return null;
+    }
+  }
+}
@@ -15,6 +15,8 @@ public class SchedulingAlgorithmReference {
         return Optional.of(SchedulingAlgorithmType.LONGEST_TASK_FIRST);
       case "HIGHEST_PRIORITY_FIRST":
         return Optional.of(SchedulingAlgorithmType.HIGHEST_PRIORITY_FIRST);
+      case "BEST_FIT":
+        return Optional.of(SchedulingAlgorithmType.BEST_FIT);
     }
     return Optional.empty();
   }
@@ -33,6 +35,8 @@ public class SchedulingAlgorithmReference {
         return Optional.of(new LongestTaskFirstScheduler());
       case HIGHEST_PRIORITY_FIRST:
         return Optional.of(new HighestPriorityFirstScheduler());
+      case BEST_FIT:
+        return Optional.of(new BestFitScheduler());
     }
     return Optional.empty();
   }
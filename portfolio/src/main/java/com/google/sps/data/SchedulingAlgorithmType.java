@@ -3,5 +3,6 @@ package com.google.sps.data;
 public enum SchedulingAlgorithmType {
   SHORTEST_TASK_FIRST,
   LONGEST_TASK_FIRST,
-  HIGHEST_PRIORITY_FIRST
+  HIGHEST_PRIORITY_FIRST,
+  BEST_FIT
 }
@@ -18,6 +18,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 
@@ -41,10 +42,14 @@ class ShortestTaskFirstScheduler implements TaskScheduler {
     List<Task> tasksList = new ArrayList<Task>(tasks);
     CalendarEventsGroup calendarEventsGroup =
         new CalendarEventsGroup(eventsList, workHoursStartTime, workHoursEndTime);
-    List<TimeRange> availableTimes = calendarEventsGroup.getFreeTimeRanges();
+    // The free time ranges are only read, in order.
+    TimeRangeGroup availableTimesGroup =
+        TimeRangeGroups.create(
+            calendarEventsGroup.getFreeTimeRanges(), TimeRangeGroups.Workload.READ_MOSTLY);
+    Iterator<TimeRange> availableTimes = availableTimesGroup.iterator();
     TaskQueue taskQueue = new TaskQueue(tasksList, getSchedulingAlgorithmType());
     List<ScheduledTask> scheduledTasks = new ArrayList<ScheduledTask>();
-    int rangeIndex = 0;
+    TimeRange availableTimeRange = availableTimes.hasNext() ? availableTimes.next() : null;
     // Instant indicating the start time we are currently trying to schedule
     // events in.
     Instant currentScheduleTime = workHoursStartTime;
@@ -54,18 +59,15 @@ class ShortestTaskFirstScheduler implements TaskScheduler {
     // duration so if one task did not fit in the given range then we know no
     // later ones will fit either). We create new Task objects for the result
     // so data structures passed in are never changed.
-    while (rangeIndex < availableTimes.size() && !taskQueue.isEmpty()) {
-      TimeRange availableTimeRange = availableTimes.get(rangeIndex);
+    while (availableTimeRange != null && !taskQueue.isEmpty()) {
       Task task = taskQueue.peek();
       // Either time is already past the start of the time range or we should
       // update it (maybe this is our first iteration in the range).
-      if (availableTimeRange.start().isAfter(currentScheduleTime)) {
+      if (availableTimeRange.startEpochSecond() > currentScheduleTime.getEpochSecond()) {
         currentScheduleTime = availableTimeRange.start();
       }
       // The task can be scheduled in the current time range.
-      if (!currentScheduleTime
-          .plusSeconds(task.getDuration().getSeconds())
-          .isAfter(availableTimeRange.end())) {
+      if (availableTimeRange.canFitBeforeEnd(currentScheduleTime, task.getDuration())) {
         ScheduledTask scheduledTask =
             new ScheduledTask(
                 task,
@@ -75,7 +77,7 @@ class ShortestTaskFirstScheduler implements TaskScheduler {
         currentScheduleTime = currentScheduleTime.plusSeconds(task.getDuration().getSeconds());
         taskQueue.remove();
       } else {
-        rangeIndex++;
+        availableTimeRange = availableTimes.hasNext() ? availableTimes.next() : null;
       }
     }
     return scheduledTasks;
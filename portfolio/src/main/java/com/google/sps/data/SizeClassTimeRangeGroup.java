@@ -0,0 +1,172 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Wraps a time range group with an index of its ranges by size, like the segregated free lists of a
+ * memory allocator. Every range is kept in the bucket for its size class, which is the power of two
+ * of its length in whole minutes: ranges shorter than a minute are in class 0, ranges of 1 minute
+ * are in class 1, ranges of 2 to 3 minutes are in class 2, ranges of 4 to 7 minutes are in class 3,
+ * and so on. Each bucket is a MaxGapTreeTimeRangeGroup, so it finds its earliest and its shortest
+ * range that fits a duration in O(log n), and a bit mask records which buckets are not empty.
+ *
+ * <p>Every range in a class above the class of a duration can fit it, and no range in a class below
+ * can. So {@code findBestFit} searches the bucket of the duration's own class, and if nothing there
+ * fits, takes the shortest range of the next non-empty bucket, which the bit mask finds in O(1).
+ * {@code findFirstFit} searches the duration's own bucket, and compares the result with the first
+ * range of each larger non-empty bucket. Both take O(log n) for each size class they look at, and
+ * there are fewer than 64 classes. The buckets are kept up to date from the {@link
+ * TimeRangeGroupDelta} of each change, in O(k log n) for a change that removes and creates k
+ * ranges. The wrapped group must only be changed through this wrapper.
+ */
+public class SizeClassTimeRangeGroup implements TimeRangeGroup {
+  // One class per bit of the mask. Even the longest range, of Long.MAX_VALUE seconds, is in a class
+  // below 64.
+  private static final int SIZE_CLASS_COUNT = Long.SIZE;
+
+  private final TimeRangeGroup timeRangeGroup;
+
+  // Reused for every change that the caller does not pass a delta for.
+  private final TimeRangeGroupDelta delta = new TimeRangeGroupDelta();
+
+  private final MaxGapTreeTimeRangeGroup[] buckets = new MaxGapTreeTimeRangeGroup[SIZE_CLASS_COUNT];
+  private final int[] bucketSizes = new int[SIZE_CLASS_COUNT];
+
+  // Bit i is set when the bucket of class i is not empty.
+  private long nonEmptyClasses = 0;
+
+  /** Wraps the given group, and indexes all of its time ranges. */
+  public SizeClassTimeRangeGroup(TimeRangeGroup timeRangeGroup) {
+    this.timeRangeGroup = timeRangeGroup;
+    for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+      buckets[i] = new MaxGapTreeTimeRangeGroup(new ArrayList<TimeRange>());
+    }
+    for (TimeRange timeRange : timeRangeGroup) {
+      index(timeRange);
+    }
+  }
+  /** Returns the size class of a length in seconds. */
+  static int sizeClass(long seconds) {
+    return Long.SIZE - Long.numberOfLeadingZeros(seconds / 60);
+  }
+
+  /** Adds a new time range to the wrapped group, and updates the index. */
+  @Override
+  public void addTimeRange(TimeRange timeRange) {
+    addTimeRange(timeRange, delta);
+  }
+
+  /** Adds a new time range to the wrapped group, and updates the index from the delta. */
+  @Override
+  public void addTimeRange(TimeRange timeRange, TimeRangeGroupDelta delta) {
+    timeRangeGroup.addTimeRange(timeRange, delta);
+    apply(delta);
+  }
+
+  /** Checks if a time range exists in the wrapped group. */
+  @Override
+  public boolean hasTimeRange(TimeRange timeRange) {
+    return timeRangeGroup.hasTimeRange(timeRange);
+  }
+
+  /** Deletes a time range from the wrapped group, and updates the index. */
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete) {
+    deleteTimeRange(timeRangeToDelete, delta);
+  }
+
+  /** Deletes a time range from the wrapped group, and updates the index from the delta. */
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete, TimeRangeGroupDelta delta) {
+    timeRangeGroup.deleteTimeRange(timeRangeToDelete, delta);
+    apply(delta);
+  }
+
+  /** Returns an iterator for all time ranges of the wrapped group. */
+  @Override
+  public Iterator<TimeRange> iterator() {
+    return timeRangeGroup.iterator();
+  }
+
+  /** Returns the total free duration of the wrapped group between {@code from} and {@code to}. */
+  @Override
+  public Duration totalFreeDuration(Instant from, Instant to) {
+    return timeRangeGroup.totalFreeDuration(from, to);
+  }
+
+  /**
+   * Finds the earliest time range that is long enough to fit the given duration. The bucket of the
+   * duration's size class is searched with its longest ranges, and every larger non-empty bucket
+   * only gives its first range, which always fits.
+   */
+  @Override
+  public Optional<TimeRange> findFirstFit(Duration duration) {
+    int durationClass = sizeClass(duration.getSeconds());
+    TimeRange firstFit = buckets[durationClass].findFirstFit(duration).orElse(null);
+
+    long largerClasses = nonEmptyClasses & (-1L << durationClass << 1);
+    while (largerClasses != 0) {
+      int sizeClass = Long.numberOfTrailingZeros(largerClasses);
+      largerClasses &= largerClasses - 1;
+      TimeRange first = buckets[sizeClass].findFirstFit(Duration.ZERO).get();
+      if (firstFit == null || first.startEpochSecond() < firstFit.startEpochSecond()) {
+        firstFit = first;
+      }
+    }
+    return Optional.ofNullable(firstFit);
+  }
+
+  /**
+   * Finds the shortest time range that is long enough to fit the given duration, and the earliest
+   * one if several are equally short. If no range in the bucket of the duration's size class fits,
+   * the shortest range of the next non-empty bucket does.
+   */
+  @Override
+  public Optional<TimeRange> findBestFit(Duration duration) {
+    int durationClass = sizeClass(duration.getSeconds());
+    Optional<TimeRange> bestFit = buckets[durationClass].findBestFit(duration);
+    if (bestFit.isPresent()) {
+      return bestFit;
+    }
+
+    long largerClasses = nonEmptyClasses & (-1L << durationClass << 1);
+    if (largerClasses == 0) {
+      return Optional.empty();
+    }
+    return buckets[Long.numberOfTrailingZeros(largerClasses)].findBestFit(duration);
+  }
+
+  /** Moves the removed ranges of the delta out of the index, and the created ones into it. */
+  private void apply(TimeRangeGroupDelta delta) {
+    for (int i = 0; i < delta.removedCount(); i++) {
+      TimeRange timeRange =
+          TimeRange.fromEpochSeconds(
+              delta.removedStartEpochSecondAt(i), delta.removedEndEpochSecondAt(i));
+      int sizeClass = sizeClass(timeRange.durationSeconds());
+      buckets[sizeClass].deleteTimeRange(timeRange);
+      if (--bucketSizes[sizeClass] == 0) {
+        nonEmptyClasses &= ~(1L << sizeClass);
+      }
+    }
+    for (int i = 0; i < delta.createdCount(); i++) {
+      index(
+          TimeRange.fromEpochSeconds(
+              delta.createdStartEpochSecondAt(i), delta.createdEndEpochSecondAt(i)));
+    }
+  }
+
+  /**
+   * Adds a range to the bucket of its size class. The ranges of the wrapped group never overlap or
+   * touch, so the bucket keeps it as it is instead of merging it with another range.
+   */
+  private void index(TimeRange timeRange) {
+    int sizeClass = sizeClass(timeRange.durationSeconds());
+    buckets[sizeClass].addTimeRange(timeRange);
+    bucketSizes[sizeClass]++;
+    nonEmptyClasses |= 1L << sizeClass;
+  }
+}
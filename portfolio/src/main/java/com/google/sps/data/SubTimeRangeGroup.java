@@ -0,0 +1,110 @@
+package com.google.sps.data;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Supplier;
+
+/**
+ * A read-only view of the part of a time range group inside a window. The view reads the backing
+ * group every time it is iterated, so it always reflects the latest changes to the group. Ranges
+ * that cross the edges of the window are clipped to it, and ranges that only touch the window are
+ * left out.
+ *
+ * <p>The view is created with a source of iterators over the backing group. Implementations that
+ * can jump to the first range near the start of the window pass an iterator that starts there, so
+ * that the ranges before the window are never visited.
+ */
+final class SubTimeRangeGroup implements TimeRangeGroup {
+  private final TimeRangeGroup backingGroup;
+  private final long fromSecond;
+  private final long toSecond;
+  private final Supplier<Iterator<TimeRange>> backingIterators;
+
+  /**
+   * Creates a view of the backing group from {@code fromSecond} to {@code toSecond}, in epoch
+   * seconds. Every iterator from {@code backingIterators} must iterate the backing group in
+   * ascending order of start, starting at or before the first range that ends after {@code
+   * fromSecond}.
+   */
+  SubTimeRangeGroup(
+      TimeRangeGroup backingGroup,
+      long fromSecond,
+      long toSecond,
+      Supplier<Iterator<TimeRange>> backingIterators) {
+    if (fromSecond > toSecond) {
+      throw new IllegalArgumentException("The start of the window must not be after its end");
+    }
+    this.backingGroup = backingGroup;
+    this.fromSecond = fromSecond;
+    this.toSecond = toSecond;
+    this.backingIterators = backingIterators;
+  }
+
+  /** The view is read-only, so this always throws UnsupportedOperationException. */
+  @Override
+  public void addTimeRange(TimeRange timeRange) {
+    throw new UnsupportedOperationException("A sub group is a read-only view");
+  }
+
+  /** Checks if a time range is inside the window and exists in the backing group. */
+  @Override
+  public boolean hasTimeRange(TimeRange timeRange) {
+    return timeRange.startEpochSecond() >= fromSecond
+        && timeRange.endEpochSecond() <= toSecond
+        && backingGroup.hasTimeRange(timeRange);
+  }
+
+  /** The view is read-only, so this always throws UnsupportedOperationException. */
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete) {
+    throw new UnsupportedOperationException("A sub group is a read-only view");
+  }
+
+  /**
+   * Returns an iterator for the ranges of the backing group inside the window, in ascending order
+   * of start, clipped to the window. The iterator stops at the first range that starts at or after
+   * the end of the window.
+   */
+  @Override
+  public Iterator<TimeRange> iterator() {
+    Iterator<TimeRange> backingIterator = backingIterators.get();
+    return new Iterator<TimeRange>() {
+      private TimeRange nextTimeRange = findNext();
+
+      @Override
+      public boolean hasNext() {
+        return nextTimeRange != null;
+      }
+
+      @Override
+      public TimeRange next() {
+        if (nextTimeRange == null) {
+          throw new NoSuchElementException();
+        }
+        TimeRange timeRange = nextTimeRange;
+        nextTimeRange = findNext();
+        return timeRange;
+      }
+
+      private TimeRange findNext() {
+        while (backingIterator.hasNext()) {
+          TimeRange timeRange = backingIterator.next();
+          if (timeRange.startEpochSecond() >= toSecond) {
+            return null;
+          }
+          if (timeRange.endEpochSecond() <= fromSecond) {
+            continue;
+          }
+          if (timeRange.startEpochSecond() >= fromSecond
+              && timeRange.endEpochSecond() <= toSecond) {
+            return timeRange;
+          }
+          return TimeRange.fromEpochSeconds(
+              Math.max(timeRange.startEpochSecond(), fromSecond),
+              Math.min(timeRange.endEpochSecond(), toSecond));
+        }
+        return null;
+      }
+    };
+  }
+}
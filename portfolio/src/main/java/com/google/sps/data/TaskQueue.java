@@ -56,6 +56,9 @@ public class TaskQueue {
             DEFAULT_QUEUE_SIZE, sortByTaskDurationDescendingThenPriorityThenName);
       case HIGHEST_PRIORITY_FIRST:
         return new PriorityQueue<Task>(DEFAULT_QUEUE_SIZE, sortByTaskPriorityThenDuration);
+      case BEST_FIT:
+        return new PriorityQueue<Task>(
+            DEFAULT_QUEUE_SIZE, sortByTaskDurationDescendingThenPriorityThenName);
       default:
         throw new IllegalArgumentException("SchedulingAlgorithmType not recognized");
     }
@@ -21,32 +21,55 @@ import java.util.Comparator;
 /**
  * Class representing a span of time, enforcing properties (e.g. start comes before end) and
  * providing methods to make ranges easier to work with (e.g. {@code overlaps}).
+ *
+ * <p>The start and end are stored as primitive epoch seconds, so that the overlap and containment
+ * checks used inside the time range groups and the schedulers never allocate. The {@code Instant}
+ * and {@code Duration} accessors are only built when they are called.
  */
 public final class TimeRange {
-  private final Instant start;
-  private final Duration duration;
+  private final long startSecond;
+  private final long endSecond;
   // Comparator for sorting time ranges by duration ascending and then by start time ascending
   public static final Comparator<TimeRange> SORT_BY_TIME_RANGE_DURATION_ASCENDING_THEN_START_TIME =
-      Comparator.comparing(TimeRange::duration).thenComparing(TimeRange::start);
-
-  private TimeRange(Instant start, Duration duration) {
-    this.start = start;
-    this.duration = duration;
+      Comparator.comparingLong(TimeRange::durationSeconds)
+          .thenComparingLong(TimeRange::startEpochSecond);
+  // Comparator for sorting time ranges by start time ascending
+  public static final Comparator<TimeRange> SORT_BY_START_TIME_ASCENDING =
+      Comparator.comparingLong(TimeRange::startEpochSecond);
+
+  private TimeRange(long startSecond, long endSecond) {
+    this.startSecond = startSecond;
+    this.endSecond = endSecond;
   }
 
   /** Returns the start of the range in minutes. */
   public Instant start() {
-    return start;
+    return Instant.ofEpochSecond(startSecond);
   }
 
   /** Returns the number of minutes between the start and end. */
   public Duration duration() {
-    return duration;
+    return Duration.ofSeconds(durationSeconds());
   }
 
   /** Returns the end of the range. This ending value is the closing exclusive bound. */
   public Instant end() {
-    return start.plus(duration);
+    return Instant.ofEpochSecond(endSecond);
+  }
+
+  /** Returns the start of the range as the number of seconds since the epoch. */
+  public long startEpochSecond() {
+    return startSecond;
+  }
+
+  /** Returns the end of the range as the number of seconds since the epoch. */
+  public long endEpochSecond() {
+    return endSecond;
+  }
+
+  /** Returns the number of seconds between the start and end. */
+  public long durationSeconds() {
+    return endSecond - startSecond;
   }
 
   @Override
@@ -54,18 +77,34 @@ public final class TimeRange {
     return other instanceof TimeRange && equals(this, (TimeRange) other);
   }
 
+  @Override
+  public int hashCode() {
+    return Long.hashCode(startSecond) * 31 + Long.hashCode(endSecond);
+  }
+
   @Override
   public String toString() {
-    return String.format("Range: [%s, %s]", start.toString(), this.end().toString());
+    return String.format("Range: [%s, %s]", start().toString(), end().toString());
   }
 
   public static boolean equals(TimeRange a, TimeRange b) {
-    return a.start.equals(b.start) && a.duration.equals(b.duration);
+    return a.startSecond == b.startSecond && a.endSecond == b.endSecond;
   }
 
-  /** Creates a {@code TimeRange} from {@code start} to {@code end}. */
+  /**
+   * Creates a {@code TimeRange} from {@code start} to {@code end}. Time ranges have a precision of
+   * one second, so any fraction of a second in {@code start} and {@code end} is dropped.
+   */
   public static TimeRange fromStartEnd(Instant start, Instant end) {
-    return new TimeRange(start, Duration.ofSeconds(end.getEpochSecond() - start.getEpochSecond()));
+    return new TimeRange(start.getEpochSecond(), end.getEpochSecond());
+  }
+
+  /**
+   * Creates a {@code TimeRange} from two epoch seconds. This is used by the time range groups that
+   * store their ranges as primitives, so that they don't need to go through {@code Instant}.
+   */
+  static TimeRange fromEpochSeconds(long startSecond, long endSecond) {
+    return new TimeRange(startSecond, endSecond);
   }
 
   /**
@@ -74,20 +113,27 @@ public final class TimeRange {
    * they contain each other.
    */
   public boolean contains(TimeRange otherRange) {
+    return contains(startSecond, endSecond, otherRange.startSecond, otherRange.endSecond);
+  }
+
+  /**
+   * Primitive version of {@code contains}, which takes the start and end of both ranges in epoch
+   * seconds.
+   */
+  static boolean contains(long start, long end, long otherStart, long otherEnd) {
     // If this range has no duration, it cannot contain anything.
-    if (duration.getSeconds() <= 0) {
+    if (end - start <= 0) {
       return false;
     }
 
     // If the other range has no duration, then it is treated like a point that is
     // anchored in its start time.
-    if (otherRange.duration.getSeconds() <= 0) {
-      return timeRangeContainsPoint(this, otherRange.start);
+    if (otherEnd - otherStart <= 0) {
+      return containsPoint(start, end, otherStart);
     }
 
     // Checks if the time range contains the other range's start and end points.
-    return timeRangeContainsPoint(this, otherRange.start)
-        && timeRangeContainsPoint(this, otherRange.end());
+    return containsPoint(start, end, otherStart) && containsPoint(start, end, otherEnd);
   }
 
   /**
@@ -95,20 +141,28 @@ public final class TimeRange {
    * method is package-private so that it can be tested.
    */
   static boolean timeRangeContainsPoint(TimeRange range, Instant point) {
+    return containsPoint(range.startSecond, range.endSecond, point.getEpochSecond());
+  }
+
+  /**
+   * Primitive version of {@code timeRangeContainsPoint}, which takes the range and the point in
+   * epoch seconds.
+   */
+  static boolean containsPoint(long start, long end, long point) {
     // If a range has no duration, it cannot contain anything.
-    if (range.duration.getSeconds() <= 0) {
+    if (end - start <= 0) {
       return false;
     }
 
     // If the point comes before the start of the range, the range cannot contain it.
-    if (point.getEpochSecond() < range.start.getEpochSecond()) {
+    if (point < start) {
       return false;
     }
 
     // This is to make sure [8 - 8:30] contains 8:30, for example.
     // The end of a time range is considered part of this time range,
     // so that [8 - 8:30] and [8:30 - 9] can be considered as overlapping.
-    return point.getEpochSecond() <= range.start.getEpochSecond() + range.duration.getSeconds();
+    return point <= end;
   }
 
   /**
@@ -116,6 +170,14 @@ public final class TimeRange {
    * bounds of another range.
    */
   public boolean overlaps(TimeRange otherRange) {
+    return overlaps(startSecond, endSecond, otherRange.startSecond, otherRange.endSecond);
+  }
+
+  /**
+   * Primitive version of {@code overlaps}, which takes the start and end of both ranges in epoch
+   * seconds.
+   */
+  static boolean overlaps(long start, long end, long otherStart, long otherEnd) {
     // For two ranges to overlap, one range must contain the start of another range.
     // Case 1: |---| |---|
     //
@@ -125,7 +187,32 @@ public final class TimeRange {
     //            |---|
     // Case 4:    |--------|
     //         |-----|
-    return (timeRangeContainsPoint(this, otherRange.start())
-        || timeRangeContainsPoint(otherRange, start));
+    return containsPoint(start, end, otherStart) || containsPoint(otherStart, otherEnd, start);
+  }
+
+  /** Checks if a span of {@code duration} fits inside this range. */
+  public boolean canFit(Duration duration) {
+    return canFit(durationSeconds(), duration);
+  }
+
+  /** Primitive version of {@code canFit}, which takes the length of the range in seconds. */
+  static boolean canFit(long rangeSeconds, Duration duration) {
+    return rangeSeconds > duration.getSeconds()
+        || (rangeSeconds == duration.getSeconds() && duration.getNano() == 0);
+  }
+
+  /**
+   * Checks if a span of {@code duration} that begins at {@code from} ends no later than the end of
+   * this range. This is the check the schedulers use to see if a task fits in a free time range,
+   * and it is done on primitives so that it does not allocate.
+   */
+  boolean canFitBeforeEnd(Instant from, Duration duration) {
+    long spanEndSecond = from.getEpochSecond() + duration.getSeconds();
+    long spanEndNano = (long) from.getNano() + duration.getNano();
+    if (spanEndNano >= 1_000_000_000L) {
+      spanEndSecond++;
+      spanEndNano -= 1_000_000_000L;
+    }
+    return spanEndSecond < endSecond || (spanEndSecond == endSecond && spanEndNano == 0);
   }
 }
@@ -1,6 +1,9 @@
 package com.google.sps.data;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Iterator;
+import java.util.Optional;
 
 public interface TimeRangeGroup extends Iterable<TimeRange> {
 
@@ -25,6 +28,147 @@ public interface TimeRangeGroup extends Iterable<TimeRange> {
    */
   public void deleteTimeRange(TimeRange timeRangeToDelete);
 
-  /** Returns an iterator for the collection of all time ranges. */
+  /**
+   * Adds all the given time ranges into the collection, merging them the same way as {@code
+   * addTimeRange}. The default implementation adds them one at a time.
+   */
+  public default void addAll(Iterable<TimeRange> timeRanges) {
+    for (TimeRange timeRange : timeRanges) {
+      addTimeRange(timeRange);
+    }
+  }
+
+  /**
+   * Deletes all the given time ranges from the collection, the same way as {@code deleteTimeRange}.
+   * The default implementation deletes them one at a time.
+   */
+  public default void deleteAll(Iterable<TimeRange> timeRangesToDelete) {
+    for (TimeRange timeRange : timeRangesToDelete) {
+      deleteTimeRange(timeRange);
+    }
+  }
+
+  /**
+   * Adds a new time range like {@code addTimeRange}, and fills the delta with the time ranges the
+   * addition removed and created. For example, adding [3:30 - 5] to a group with [3 - 4] removes [3
+   * - 4] and creates [3 - 5]. The default implementation finds the overlapping ranges by iterating
+   * the group from its first range.
+   */
+  public default void addTimeRange(TimeRange timeRange, TimeRangeGroupDelta delta) {
+    delta.clear();
+    long mergedStart = timeRange.startEpochSecond();
+    long mergedEnd = timeRange.endEpochSecond();
+    for (TimeRange currentRange : this) {
+      if (currentRange.startEpochSecond() > timeRange.endEpochSecond()) {
+        break;
+      }
+      if (currentRange.overlaps(timeRange)) {
+        delta.recordRemoved(currentRange.startEpochSecond(), currentRange.endEpochSecond());
+        mergedStart = Math.min(mergedStart, currentRange.startEpochSecond());
+        mergedEnd = Math.max(mergedEnd, currentRange.endEpochSecond());
+      }
+    }
+    delta.recordCreated(mergedStart, mergedEnd);
+
+    addTimeRange(timeRange);
+  }
+
+  /**
+   * Deletes a time range like {@code deleteTimeRange}, and fills the delta with the time ranges the
+   * deletion removed and created. For example, deleting [3:15 - 3:30] from a group with [3 - 4]
+   * removes [3 - 4] and creates [3 - 3:15] and [3:30 - 4]. The default implementation finds the
+   * overlapping ranges by iterating the group from its first range.
+   */
+  public default void deleteTimeRange(TimeRange timeRangeToDelete, TimeRangeGroupDelta delta) {
+    delta.clear();
+    for (TimeRange currentRange : this) {
+      if (currentRange.startEpochSecond() > timeRangeToDelete.endEpochSecond()) {
+        break;
+      }
+      if (currentRange.overlaps(timeRangeToDelete)) {
+        delta.recordRemoved(currentRange.startEpochSecond(), currentRange.endEpochSecond());
+      }
+    }
+
+    // Only the first removed range can keep a part before the deleted range,
+    // and only the last removed range can keep a part after it.
+    int removedCount = delta.removedCount();
+    if (removedCount > 0) {
+      long firstStart = delta.removedStartEpochSecondAt(0);
+      long lastEnd = delta.removedEndEpochSecondAt(removedCount - 1);
+      if (firstStart < timeRangeToDelete.startEpochSecond()) {
+        delta.recordCreated(firstStart, timeRangeToDelete.startEpochSecond());
+      }
+      if (lastEnd > timeRangeToDelete.endEpochSecond()) {
+        delta.recordCreated(timeRangeToDelete.endEpochSecond(), lastEnd);
+      }
+    }
+
+    deleteTimeRange(timeRangeToDelete);
+  }
+
+  /** Returns an iterator for the collection of all time ranges, in ascending order of start. */
   public Iterator<TimeRange> iterator();
+
+  /**
+   * Finds the earliest time range that is long enough to fit the given duration. For example, if
+   * the group contains [3:00 - 3:30] and [4:00 - 5:00], the first fit for 45 minutes is [4 - 5].
+   * Returns an empty Optional if no time range is long enough. The default implementation scans
+   * every range in order.
+   */
+  public default Optional<TimeRange> findFirstFit(Duration duration) {
+    for (TimeRange timeRange : this) {
+      if (timeRange.canFit(duration)) {
+        return Optional.of(timeRange);
+      }
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Finds the shortest time range that is long enough to fit the given duration. If several ranges
+   * are equally short, the earliest one is returned. For example, if the group contains [3:00 -
+   * 5:00] and [6:00 - 7:00], the best fit for 45 minutes is [6 - 7]. Returns an empty Optional if
+   * no time range is long enough. The default implementation scans every range.
+   */
+  public default Optional<TimeRange> findBestFit(Duration duration) {
+    TimeRange bestFit = null;
+    for (TimeRange timeRange : this) {
+      if (timeRange.canFit(duration)
+          && (bestFit == null || timeRange.durationSeconds() < bestFit.durationSeconds())) {
+        bestFit = timeRange;
+      }
+    }
+    return Optional.ofNullable(bestFit);
+  }
+
+  /**
+   * Returns the total length of the time ranges between {@code from} and {@code to}, counting only
+   * the part of each range that is inside the window. For example, if the group contains [3:00 -
+   * 4:00] and [5:00 - 6:00], the total free duration from 3:30 to 5:15 is 45 minutes. Both ends of
+   * the window are truncated to the second. The default implementation sums the ranges of {@code
+   * subGroup}.
+   *
+   * @throws IllegalArgumentException if {@code from} is after {@code to}.
+   */
+  public default Duration totalFreeDuration(Instant from, Instant to) {
+    long totalSeconds = 0;
+    for (TimeRange timeRange : subGroup(from, to)) {
+      totalSeconds += timeRange.durationSeconds();
+    }
+    return Duration.ofSeconds(totalSeconds);
+  }
+
+  /**
+   * Returns a read-only view of the time ranges between {@code from} and {@code to}, clipped to
+   * that window. For example, if the group contains [3:00 - 4:00] and [5:00 - 6:00], the sub group
+   * from 3:30 to 5:30 contains [3:30 - 4] and [5 - 5:30]. The view reads this group directly, so it
+   * reflects later changes. Both ends of the window are truncated to the second. The default
+   * implementation iterates from the first time range of the group.
+   *
+   * @throws IllegalArgumentException if {@code from} is after {@code to}.
+   */
+  public default TimeRangeGroup subGroup(Instant from, Instant to) {
+    return new SubTimeRangeGroup(this, from.getEpochSecond(), to.getEpochSecond(), this::iterator);
+  }
 }
@@ -0,0 +1,128 @@
+package com.google.sps.data;
+
+import java.util.Arrays;
+
+/**
+ * The changes one mutation made to a time range group: the time ranges it removed and the time
+ * ranges it created, each in ascending order of start. For example, deleting [3:15 - 3:30] from a
+ * group with [3:00 - 4:00] removes [3 - 4] and creates [3 - 3:15] and [3:30 - 4]. A range that a
+ * mutation left as it was is in neither list.
+ *
+ * <p>Derived structures over the free ranges, such as an index of gap sizes or a total of free
+ * time, can apply the delta in O(changes) instead of rebuilding from the whole group. The ranges
+ * are stored as primitive epoch seconds in arrays that only grow, so one delta object can be passed
+ * to every mutation without allocating.
+ */
+public final class TimeRangeGroupDelta {
+  private static final int DEFAULT_CAPACITY = 4;
+
+  private long[] removedStarts = new long[DEFAULT_CAPACITY];
+  private long[] removedEnds = new long[DEFAULT_CAPACITY];
+  private int removedCount = 0;
+
+  private long[] createdStarts = new long[DEFAULT_CAPACITY];
+  private long[] createdEnds = new long[DEFAULT_CAPACITY];
+  private int createdCount = 0;
+
+  /** Empties the delta. Every mutation that fills a delta empties it first. */
+  public void clear() {
+    removedCount = 0;
+    createdCount = 0;
+  }
+
+  /** Checks if the mutation changed nothing. */
+  public boolean isEmpty() {
+    return removedCount == 0 && createdCount == 0;
+  }
+
+  /** Returns the number of time ranges the mutation removed. */
+  public int removedCount() {
+    return removedCount;
+  }
+
+  /** Returns the start, in epoch seconds, of the removed time range at the given index. */
+  public long removedStartEpochSecondAt(int index) {
+    checkIndex(index, removedCount);
+    return removedStarts[index];
+  }
+
+  /** Returns the end, in epoch seconds, of the removed time range at the given index. */
+  public long removedEndEpochSecondAt(int index) {
+    checkIndex(index, removedCount);
+    return removedEnds[index];
+  }
+
+  /** Returns the number of time ranges the mutation created. */
+  public int createdCount() {
+    return createdCount;
+  }
+
+  /** Returns the start, in epoch seconds, of the created time range at the given index. */
+  public long createdStartEpochSecondAt(int index) {
+    checkIndex(index, createdCount);
+    return createdStarts[index];
+  }
+
+  /** Returns the end, in epoch seconds, of the created time range at the given index. */
+  public long createdEndEpochSecondAt(int index) {
+    checkIndex(index, createdCount);
+    return createdEnds[index];
+  }
+
+  /** Records a removed time range. Ranges must be recorded in ascending order of start. */
+  void recordRemoved(long start, long end) {
+    if (removedCount == removedStarts.length) {
+      removedStarts = Arrays.copyOf(removedStarts, removedCount * 2);
+      removedEnds = Arrays.copyOf(removedEnds, removedCount * 2);
+    }
+    removedStarts[removedCount] = start;
+    removedEnds[removedCount] = end;
+    removedCount++;
+  }
+
+  /**
+   * Records a created time range, after all the removed ranges are recorded. Ranges must be
+   * recorded in ascending order of start. If the same range was recorded as removed, the mutation
+   * left it as it was, so it is taken out of the removed ranges instead.
+   */
+  void recordCreated(long start, long end) {
+    for (int i = 0; i < removedCount; i++) {
+      if (removedStarts[i] == start && removedEnds[i] == end) {
+        int movedCount = removedCount - i - 1;
+        System.arraycopy(removedStarts, i + 1, removedStarts, i, movedCount);
+        System.arraycopy(removedEnds, i + 1, removedEnds, i, movedCount);
+        removedCount--;
+        return;
+      }
+    }
+
+    if (createdCount == createdStarts.length) {
+      createdStarts = Arrays.copyOf(createdStarts, createdCount * 2);
+      createdEnds = Arrays.copyOf(createdEnds, createdCount * 2);
+    }
+    createdStarts[createdCount] = start;
+    createdEnds[createdCount] = end;
+    createdCount++;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder builder = new StringBuilder("Removed: [");
+    for (int i = 0; i < removedCount; i++) {
+      builder.append(i == 0 ? "" : ", ");
+      builder.append(TimeRange.fromEpochSeconds(removedStarts[i], removedEnds[i]));
+    }
+    builder.append("], Created: [");
+    for (int i = 0; i < createdCount; i++) {
+      builder.append(i == 0 ? "" : ", ");
+      builder.append(TimeRange.fromEpochSeconds(createdStarts[i], createdEnds[i]));
+    }
+    return builder.append("]").toString();
+  }
+
+  private static void checkIndex(int index, int count) {
+    if (index < 0 || index >= count) {
+      throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + count);
+    }
+  }
+}
@@ -0,0 +1,66 @@
+package com.google.sps.data;
+
+/**
+ * A snapshot of what a time range group has done since its statistics were enabled: how many ranges
+ * were added and deleted, how many lookups were made, how many ranges were compared and how many
+ * were copied or shifted while changing the ranges, and the largest number of ranges the group
+ * held.
+ */
+public final class TimeRangeGroupStats {
+  private final long adds;
+  private final long deletes;
+  private final long lookups;
+  private final long comparisons;
+  private final long rangesCopied;
+  private final long peakSize;
+
+  TimeRangeGroupStats(
+      long adds, long deletes, long lookups, long comparisons, long rangesCopied, long peakSize) {
+    this.adds = adds;
+    this.deletes = deletes;
+    this.lookups = lookups;
+    this.comparisons = comparisons;
+    this.rangesCopied = rangesCopied;
+    this.peakSize = peakSize;
+  }
+
+  /** Returns the number of time ranges added, one at a time or in bulk. */
+  public long getAdds() {
+    return adds;
+  }
+
+  /** Returns the number of time ranges deleted, one at a time or in bulk. */
+  public long getDeletes() {
+    return deletes;
+  }
+
+  /** Returns the number of {@code hasTimeRange} calls. */
+  public long getLookups() {
+    return lookups;
+  }
+
+  /** Returns the number of existing time ranges that were compared with a range. */
+  public long getComparisons() {
+    return comparisons;
+  }
+
+  /**
+   * Returns the number of time ranges copied into new lists while rebuilding the ranges, or shifted
+   * within the list while changing it in place.
+   */
+  public long getRangesCopied() {
+    return rangesCopied;
+  }
+
+  /** Returns the largest number of disjoint time ranges the group held. */
+  public long getPeakSize() {
+    return peakSize;
+  }
+
+  @Override
+  public String toString() {
+    return String.format(
+        "Adds: %d, Deletes: %d, Lookups: %d, Comparisons: %d, Ranges copied: %d, Peak size: %d",
+        adds, deletes, lookups, comparisons, rangesCopied, peakSize);
+  }
+}
@@ -0,0 +1,232 @@
+package com.google.sps.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Set operations between time range groups. Every time range group iterates its disjoint ranges in
+ * ascending order of start, so each operation is a single linear sweep over its inputs, instead of
+ * one {@code addTimeRange} or {@code deleteTimeRange} call per range. The results are new
+ * ArrayListTimeRangeGroups, and the inputs are not changed.
+ *
+ * <p>{@code create} picks the time range group implementation that suits the number of ranges and
+ * how the group will be used, so that callers do not hard-code one.
+ */
+public final class TimeRangeGroups {
+
+  /** The operations a time range group is expected to see most of. */
+  public enum Workload {
+    /** Mostly iteration and lookups, with few or no changes. */
+    READ_MOSTLY,
+    /** Lookups and changes in about equal measure, or not known in advance. */
+    MIXED,
+    /** Many changes, mostly deletions that split and trim the ranges. */
+    DELETE_HEAVY
+  }
+
+  private TimeRangeGroups() {}
+
+  /**
+   * Returns a new group of the given time ranges, in the implementation that suits their number and
+   * the expected workload.
+   *
+   * <ul>
+   *   <li>A read-mostly group is a LongArrayTimeRangeGroup, which looks ranges up with binary
+   *       search over primitive arrays.
+   *   <li>A delete-heavy group with more ranges than {@link
+   *       AdaptiveTimeRangeGroup#DEFAULT_MIGRATION_THRESHOLD} is a TreeMapTimeRangeGroup, where
+   *       every change takes O(log n). A smaller one is a LongArrayTimeRangeGroup, whose shifts are
+   *       cheaper than a tree at that size.
+   *   <li>A mixed group is an AdaptiveTimeRangeGroup, which starts with arrays and migrates to a
+   *       tree if it grows past the threshold.
+   * </ul>
+   */
+  public static TimeRangeGroup create(Collection<TimeRange> timeRanges, Workload workload) {
+    switch (workload) {
+      case READ_MOSTLY:
+        return new LongArrayTimeRangeGroup(timeRanges);
+      case DELETE_HEAVY:
+        if (timeRanges.size() > AdaptiveTimeRangeGroup.DEFAULT_MIGRATION_THRESHOLD) {
+          return new TreeMapTimeRangeGroup(timeRanges);
+        }
+        return new LongArrayTimeRangeGroup(timeRanges);
+      case MIXED:
+        return new AdaptiveTimeRangeGroup(timeRanges);
+      default:
+        throw new IllegalArgumentException("Workload not recognized");
+    }
+  }
+
+  /**
+   * Returns the ranges covered by either group. For example, the union of [3 - 4] and [3:30 - 5],
+   * [6 - 7] is [3 - 5], [6 - 7].
+   */
+  public static ArrayListTimeRangeGroup union(TimeRangeGroup first, TimeRangeGroup second) {
+    ArrayListTimeRangeGroup result = new ArrayListTimeRangeGroup(first);
+    result.addAll(second);
+    return result;
+  }
+
+  /**
+   * Returns the ranges covered by both groups. For example, the intersection of [3 - 5], [6 - 7]
+   * and [4 - 6:30] is [4 - 5], [6 - 6:30]. Ranges that only touch, like [3 - 4] and [4 - 5], have
+   * no time in common, so they do not produce a range.
+   */
+  public static ArrayListTimeRangeGroup intersection(TimeRangeGroup first, TimeRangeGroup second) {
+    List<TimeRange> commonTimeRanges = new ArrayList<TimeRange>();
+    Iterator<TimeRange> firstIterator = first.iterator();
+    Iterator<TimeRange> secondIterator = second.iterator();
+    TimeRange firstRange = firstIterator.hasNext() ? firstIterator.next() : null;
+    TimeRange secondRange = secondIterator.hasNext() ? secondIterator.next() : null;
+
+    while (firstRange != null && secondRange != null) {
+      long commonStart = Math.max(firstRange.startEpochSecond(), secondRange.startEpochSecond());
+      long commonEnd = Math.min(firstRange.endEpochSecond(), secondRange.endEpochSecond());
+      if (commonStart < commonEnd) {
+        commonTimeRanges.add(TimeRange.fromEpochSeconds(commonStart, commonEnd));
+      }
+
+      // The range that ends first cannot overlap any later range of the other group.
+      if (firstRange.endEpochSecond() < secondRange.endEpochSecond()) {
+        firstRange = firstIterator.hasNext() ? firstIterator.next() : null;
+      } else {
+        secondRange = secondIterator.hasNext() ? secondIterator.next() : null;
+      }
+    }
+
+    return new ArrayListTimeRangeGroup(commonTimeRanges);
+  }
+
+  /**
+   * Returns the ranges covered by every group, such as the free time shared by a whole team. An
+   * empty list of groups has no ranges in common.
+   */
+  public static ArrayListTimeRangeGroup intersection(List<? extends TimeRangeGroup> groups) {
+    if (groups.isEmpty()) {
+      return new ArrayListTimeRangeGroup(new ArrayList<TimeRange>());
+    }
+
+    ArrayListTimeRangeGroup result = new ArrayListTimeRangeGroup(groups.get(0));
+    for (int i = 1; i < groups.size() && result.iterator().hasNext(); i++) {
+      result = intersection(result, groups.get(i));
+    }
+    return result;
+  }
+
+  /**
+   * Returns the ranges covered by the first group but not by the second one. For example, the
+   * difference of [3 - 5], [6 - 7] and [4 - 6:30] is [3 - 4], [6:30 - 7].
+   */
+  public static ArrayListTimeRangeGroup difference(TimeRangeGroup first, TimeRangeGroup second) {
+    ArrayListTimeRangeGroup result = new ArrayListTimeRangeGroup(first);
+    result.deleteAll(second);
+    return result;
+  }
+
+  /**
+   * Returns the ranges inside the window that are not covered by the group. For example, the
+   * complement of [3 - 4], [5 - 6] within the window [2 - 5:30] is [2 - 3], [4 - 5].
+   */
+  public static ArrayListTimeRangeGroup complement(TimeRangeGroup group, TimeRange window) {
+    List<TimeRange> uncoveredTimeRanges = new ArrayList<TimeRange>();
+    long windowEnd = window.endEpochSecond();
+
+    // The start of the part of the window that is not known to be covered yet.
+    long uncoveredStart = window.startEpochSecond();
+    for (TimeRange timeRange : group) {
+      if (timeRange.startEpochSecond() >= windowEnd) {
+        break;
+      }
+      if (timeRange.startEpochSecond() > uncoveredStart) {
+        uncoveredTimeRanges.add(
+            TimeRange.fromEpochSeconds(uncoveredStart, timeRange.startEpochSecond()));
+      }
+      uncoveredStart = Math.max(uncoveredStart, timeRange.endEpochSecond());
+    }
+    if (uncoveredStart < windowEnd) {
+      uncoveredTimeRanges.add(TimeRange.fromEpochSeconds(uncoveredStart, windowEnd));
+    }
+
+    return new ArrayListTimeRangeGroup(uncoveredTimeRanges);
+  }
+
+  /**
+   * Returns the ranges covered by at least {@code k} of the groups, such as the times when at least
+   * k people of a team are free. For example, the ranges covered by at least 2 of [3 - 6], [4 - 8]
+   * and [5 - 7], [9 - 10] are [4 - 7]. With k = 1 this is the union of the groups, and with k equal
+   * to the number of groups it is their intersection.
+   *
+   * <p>The start and end of every range are sorted together once as primitive keys, and a single
+   * sweep keeps count of how many groups cover the current time, so it takes O(E log E) time for E
+   * ranges in all the groups, however many groups there are. The ranges of each group must be
+   * disjoint, as they are in a time range group.
+   *
+   * @throws IllegalArgumentException if k is less than 1.
+   */
+  public static ArrayListTimeRangeGroup coveredByAtLeast(
+      List<? extends Iterable<TimeRange>> groups, int k) {
+    if (k < 1) {
+      throw new IllegalArgumentException("At least one group must cover each range");
+    }
+
+    // The groups are read once, into an array sized from the groups that know their size and
+    // grown for the others.
+    int expectedBoundaryCount = 0;
+    for (Iterable<TimeRange> group : groups) {
+      if (group instanceof Collection) {
+        expectedBoundaryCount += 2 * ((Collection<?>) group).size();
+      }
+    }
+
+    // Each boundary is its second times two, plus one for a start, so that at the same second
+    // the ranges that end are counted out before the ranges that start are counted in.
+    long[] boundaries = new long[Math.max(expectedBoundaryCount, 16)];
+    int boundaryCount = 0;
+    for (Iterable<TimeRange> group : groups) {
+      for (TimeRange timeRange : group) {
+        if (boundaryCount + 2 > boundaries.length) {
+          boundaries = Arrays.copyOf(boundaries, boundaries.length * 2);
+        }
+        boundaries[boundaryCount++] = timeRange.startEpochSecond() * 2 + 1;
+        boundaries[boundaryCount++] = timeRange.endEpochSecond() * 2;
+      }
+    }
+    Arrays.sort(boundaries, 0, boundaryCount);
+
+    List<TimeRange> coveredTimeRanges = new ArrayList<TimeRange>();
+    int coverCount = 0;
+    long coveredStart = 0;
+    for (int i = 0; i < boundaryCount; i++) {
+      long boundary = boundaries[i];
+      long second = boundary >> 1;
+      if ((boundary & 1) != 0) {
+        if (++coverCount == k) {
+          coveredStart = second;
+        }
+      } else {
+        if (coverCount-- == k && coveredStart < second) {
+          coveredTimeRanges.add(TimeRange.fromEpochSeconds(coveredStart, second));
+        }
+      }
+    }
+
+    return new ArrayListTimeRangeGroup(coveredTimeRanges);
+  }
+
+  /**
+   * Returns the times inside their scheduling hours when at least {@code k} of the attendees are
+   * free, from the free time ranges each group keeps up to date.
+   *
+   * @throws IllegalArgumentException if k is less than 1.
+   */
+  public static ArrayListTimeRangeGroup freeForAtLeast(List<CalendarEventsGroup> attendees, int k) {
+    List<List<TimeRange>> freeTimeRanges = new ArrayList<List<TimeRange>>(attendees.size());
+    for (CalendarEventsGroup attendee : attendees) {
+      freeTimeRanges.add(attendee.getFreeTimeRanges());
+    }
+    return coveredByAtLeast(freeTimeRanges, k);
+  }
+}
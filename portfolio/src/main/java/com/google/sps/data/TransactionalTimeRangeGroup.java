@@ -0,0 +1,198 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Optional;
+
+/**
+ * Wraps a time range group to add lightweight transactions, for backtracking searches over a
+ * mutable group. {@code begin} records a savepoint, and {@code rollback} undoes every change made
+ * since the latest savepoint, in reverse order, by replaying the undo journal. Savepoints can be
+ * nested, and {@code commit} keeps the changes made since the latest savepoint.
+ *
+ * <p>Each change inside a transaction is made with a {@link TimeRangeGroupDelta}, and the journal
+ * records the k ranges the change removed and created. Undoing the change deletes the created
+ * ranges and adds the removed ones back, instead of rebuilding the group. The journal is a growable
+ * array of primitive longs that is reused across transactions, so a deep search does not allocate
+ * for each step once the array is large enough. Changes made outside of any transaction are not
+ * recorded.
+ */
+public class TransactionalTimeRangeGroup implements TimeRangeGroup {
+  private static final int DEFAULT_CAPACITY = 64;
+
+  // Every journal entry is the start and end of each removed range and then of each created
+  // range, followed by a header with the number of removed and created ranges. The header comes
+  // last so that the journal can be read backwards.
+  private static final int HEADER_LENGTH = 2;
+
+  private final TimeRangeGroup timeRangeGroup;
+
+  // Reused for every change made inside a transaction.
+  private final TimeRangeGroupDelta delta = new TimeRangeGroupDelta();
+
+  private long[] journal = new long[DEFAULT_CAPACITY];
+  private int journalSize = 0;
+
+  // The journal size at each open savepoint, oldest first.
+  private int[] savepoints = new int[DEFAULT_CAPACITY];
+  private int savepointCount = 0;
+
+  /** Wraps the given group. Changes go through to the wrapped group. */
+  public TransactionalTimeRangeGroup(TimeRangeGroup timeRangeGroup) {
+    this.timeRangeGroup = timeRangeGroup;
+  }
+
+  /** Records a savepoint, which {@code rollback} returns to and {@code commit} releases. */
+  public void begin() {
+    if (savepointCount == savepoints.length) {
+      savepoints = Arrays.copyOf(savepoints, savepoints.length * 2);
+    }
+    savepoints[savepointCount++] = journalSize;
+  }
+
+  /**
+   * Undoes every change made since the latest savepoint, and releases the savepoint.
+   *
+   * @throws IllegalStateException if there is no open savepoint.
+   */
+  public void rollback() {
+    int savepoint = popSavepoint();
+    while (journalSize > savepoint) {
+      int headerIndex = journalSize - HEADER_LENGTH;
+      int removedCount = (int) journal[headerIndex];
+      int createdCount = (int) journal[headerIndex + 1];
+      int createdIndex = headerIndex - 2 * createdCount;
+      int removedIndex = createdIndex - 2 * removedCount;
+
+      for (int i = createdIndex; i < headerIndex; i += 2) {
+        timeRangeGroup.deleteTimeRange(TimeRange.fromEpochSeconds(journal[i], journal[i + 1]));
+      }
+      for (int i = removedIndex; i < createdIndex; i += 2) {
+        timeRangeGroup.addTimeRange(TimeRange.fromEpochSeconds(journal[i], journal[i + 1]));
+      }
+
+      journalSize = removedIndex;
+    }
+  }
+
+  /**
+   * Keeps every change made since the latest savepoint, and releases the savepoint. The changes can
+   * still be undone by rolling back an enclosing savepoint.
+   *
+   * @throws IllegalStateException if there is no open savepoint.
+   */
+  public void commit() {
+    popSavepoint();
+    if (savepointCount == 0) {
+      journalSize = 0;
+    }
+  }
+
+  /** Returns the number of open savepoints. */
+  public int depth() {
+    return savepointCount;
+  }
+
+  /**
+   * Adds a new time range to the wrapped group, and records how to undo it if a transaction is
+   * open.
+   */
+  @Override
+  public void addTimeRange(TimeRange timeRange) {
+    if (savepointCount == 0) {
+      timeRangeGroup.addTimeRange(timeRange);
+      return;
+    }
+    addTimeRange(timeRange, delta);
+  }
+
+  /** Adds a new time range to the wrapped group, and records how to undo it from the delta. */
+  @Override
+  public void addTimeRange(TimeRange timeRange, TimeRangeGroupDelta delta) {
+    timeRangeGroup.addTimeRange(timeRange, delta);
+    record(delta);
+  }
+
+  /** Checks if a time range exists in the wrapped group. */
+  @Override
+  public boolean hasTimeRange(TimeRange timeRange) {
+    return timeRangeGroup.hasTimeRange(timeRange);
+  }
+
+  /**
+   * Deletes a time range from the wrapped group, and records how to undo it if a transaction is
+   * open.
+   */
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete) {
+    if (savepointCount == 0) {
+      timeRangeGroup.deleteTimeRange(timeRangeToDelete);
+      return;
+    }
+    deleteTimeRange(timeRangeToDelete, delta);
+  }
+
+  /** Deletes a time range from the wrapped group, and records how to undo it from the delta. */
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete, TimeRangeGroupDelta delta) {
+    timeRangeGroup.deleteTimeRange(timeRangeToDelete, delta);
+    record(delta);
+  }
+
+  /** Returns an iterator for all time ranges of the wrapped group. */
+  @Override
+  public Iterator<TimeRange> iterator() {
+    return timeRangeGroup.iterator();
+  }
+
+  @Override
+  public Optional<TimeRange> findFirstFit(Duration duration) {
+    return timeRangeGroup.findFirstFit(duration);
+  }
+
+  @Override
+  public Optional<TimeRange> findBestFit(Duration duration) {
+    return timeRangeGroup.findBestFit(duration);
+  }
+
+  @Override
+  public Duration totalFreeDuration(Instant from, Instant to) {
+    return timeRangeGroup.totalFreeDuration(from, to);
+  }
+
+  /** Appends a journal entry for the changes in the delta, if a transaction is open. */
+  private void record(TimeRangeGroupDelta delta) {
+    if (savepointCount == 0 || delta.isEmpty()) {
+      return;
+    }
+
+    int removedCount = delta.removedCount();
+    int createdCount = delta.createdCount();
+    ensureJournalCapacity(2 * (removedCount + createdCount) + HEADER_LENGTH);
+    for (int i = 0; i < removedCount; i++) {
+      journal[journalSize++] = delta.removedStartEpochSecondAt(i);
+      journal[journalSize++] = delta.removedEndEpochSecondAt(i);
+    }
+    for (int i = 0; i < createdCount; i++) {
+      journal[journalSize++] = delta.createdStartEpochSecondAt(i);
+      journal[journalSize++] = delta.createdEndEpochSecondAt(i);
+    }
+    journal[journalSize++] = removedCount;
+    journal[journalSize++] = createdCount;
+  }
+
+  private void ensureJournalCapacity(int extraLength) {
+    if (journalSize + extraLength > journal.length) {
+      journal = Arrays.copyOf(journal, Math.max(journalSize + extraLength, journal.length * 2));
+    }
+  }
+
+  private int popSavepoint() {
+    if (savepointCount == 0) {
+      throw new IllegalStateException("There is no open transaction");
+    }
+    return savepoints[--savepointCount];
+  }
+}
@@ -0,0 +1,157 @@
+package com.google.sps.data;
+
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Spliterator;
+import java.util.TreeMap;
+
+/**
+ * Models an implementation of the TimeRangeGroup model using a TreeMap keyed on the start of each
+ * time range, in epoch seconds. Because the time ranges are kept pairwise disjoint, the ranges that
+ * a new or deleted range can affect are always next to each other in the map. Adding, deleting and
+ * checking a time range therefore only look at the neighbouring entries, which takes O(log n) plus
+ * the number of ranges that are merged or split.
+ */
+public class TreeMapTimeRangeGroup implements TimeRangeGroup {
+  private final NavigableMap<Long, TimeRange> allTimeRanges = new TreeMap<Long, TimeRange>();
+
+  /** Adds all the input time ranges to the map of all time ranges. */
+  public TreeMapTimeRangeGroup(Iterable<TimeRange> timeRanges) {
+    timeRanges.forEach(
+        (range) -> {
+          addTimeRange(range);
+        });
+  }
+
+  /**
+   * Adds a new time range to the map. If the time range to add overlaps with any existing time
+   * range, the overlapping time ranges will be merged. Only the range that starts right before the
+   * new one and the ranges that start inside the new one can overlap it.
+   */
+  @Override
+  public void addTimeRange(TimeRange timeRange) {
+    TimeRange mergedTimeRange = timeRange;
+
+    Map.Entry<Long, TimeRange> previousEntry =
+        allTimeRanges.floorEntry(timeRange.startEpochSecond());
+    if (previousEntry != null && previousEntry.getValue().overlaps(mergedTimeRange)) {
+      mergedTimeRange =
+          AbstractListTimeRangeGroup.mergeTwoTimeRanges(previousEntry.getValue(), mergedTimeRange);
+      allTimeRanges.remove(previousEntry.getKey());
+    }
+
+    // Every merge can only move the end of the merged range later,
+    // so keep merging the next range until one no longer overlaps.
+    Map.Entry<Long, TimeRange> nextEntry = allTimeRanges.ceilingEntry(timeRange.startEpochSecond());
+    while (nextEntry != null && nextEntry.getValue().overlaps(mergedTimeRange)) {
+      mergedTimeRange =
+          AbstractListTimeRangeGroup.mergeTwoTimeRanges(nextEntry.getValue(), mergedTimeRange);
+      allTimeRanges.remove(nextEntry.getKey());
+      nextEntry = allTimeRanges.higherEntry(nextEntry.getKey());
+    }
+
+    allTimeRanges.put(mergedTimeRange.startEpochSecond(), mergedTimeRange);
+  }
+
+  /**
+   * Checks if a time range exists in the collection. For example, if [3:00 - 4:00] is in the
+   * collection, [3:00 - 3:30] is considered to exist as a time range in the collection. Only the
+   * range with the latest start that is not after the target range's start can contain it.
+   */
+  @Override
+  public boolean hasTimeRange(TimeRange timeRangeToCheck) {
+    Map.Entry<Long, TimeRange> candidateEntry =
+        allTimeRanges.floorEntry(timeRangeToCheck.startEpochSecond());
+    return candidateEntry != null && candidateEntry.getValue().contains(timeRangeToCheck);
+  }
+
+  /**
+   * Delete a time range from the map. Because the time ranges are always kept to be pairwise
+   * disjoint, the potentially two new time ranges resulted from a deletion will not overlap with
+   * any other existing time ranges.
+   *
+   * <p>For example, if the map contains [3:00 - 4:00] and [5:00 - 6:00], deleting [3:15 - 3:30]
+   * will result in [3 - 3:15] and [3:30 - 4] as new time ranges.
+   *
+   * <p>Another example for deleting overlapping time ranges: if [3 - 4] and [5 - 6] are in the
+   * original map, deleting [3:30 - 5:30] will result in two new ranges: [3 - 3:30] and [5:30 - 6].
+   */
+  @Override
+  public void deleteTimeRange(TimeRange timeRangeToDelete) {
+    long toDeleteRangeStart = timeRangeToDelete.startEpochSecond();
+    long toDeleteRangeEnd = timeRangeToDelete.endEpochSecond();
+
+    // The affected ranges are the one starting right before the deleted range
+    // and all of the ones starting inside it.
+    Long firstAffectedKey = allTimeRanges.floorKey(toDeleteRangeStart);
+    if (firstAffectedKey == null) {
+      firstAffectedKey = toDeleteRangeStart;
+    }
+    if (firstAffectedKey > toDeleteRangeEnd) {
+      return;
+    }
+
+    TimeRange newTimeRangeBefore = null;
+    TimeRange newTimeRangeAfter = null;
+    Iterator<TimeRange> iterator =
+        allTimeRanges.subMap(firstAffectedKey, true, toDeleteRangeEnd, true).values().iterator();
+    while (iterator.hasNext()) {
+      TimeRange currentRange = iterator.next();
+      if (!currentRange.overlaps(timeRangeToDelete)) {
+        continue;
+      }
+      iterator.remove();
+
+      // Construct one or two new time ranges after the deletion.
+      if (currentRange.startEpochSecond() < toDeleteRangeStart) {
+        newTimeRangeBefore =
+            TimeRange.fromEpochSeconds(currentRange.startEpochSecond(), toDeleteRangeStart);
+      }
+
+      if (currentRange.endEpochSecond() > toDeleteRangeEnd) {
+        newTimeRangeAfter =
+            TimeRange.fromEpochSeconds(toDeleteRangeEnd, currentRange.endEpochSecond());
+      }
+    }
+
+    if (newTimeRangeBefore != null) {
+      allTimeRanges.put(newTimeRangeBefore.startEpochSecond(), newTimeRangeBefore);
+    }
+    if (newTimeRangeAfter != null) {
+      allTimeRanges.put(newTimeRangeAfter.startEpochSecond(), newTimeRangeAfter);
+    }
+  }
+
+  /** Returns an iterator for all time ranges, in ascending order of start time. */
+  @Override
+  public Iterator<TimeRange> iterator() {
+    return allTimeRanges.values().iterator();
+  }
+
+  /** Returns a sized spliterator for all time ranges, in ascending order of start time. */
+  @Override
+  public Spliterator<TimeRange> spliterator() {
+    return allTimeRanges.values().spliterator();
+  }
+
+  /**
+   * Returns a read-only view of the time ranges between {@code from} and {@code to}. The view
+   * starts iterating at the range with the latest start that is not after {@code from}.
+   */
+  @Override
+  public TimeRangeGroup subGroup(Instant from, Instant to) {
+    long fromSecond = from.getEpochSecond();
+    return new SubTimeRangeGroup(
+        this,
+        fromSecond,
+        to.getEpochSecond(),
+        () -> {
+          Long firstStart = allTimeRanges.floorKey(fromSecond);
+          return firstStart == null
+              ? allTimeRanges.values().iterator()
+              : allTimeRanges.tailMap(firstStart, true).values().iterator();
+        });
+  }
+}
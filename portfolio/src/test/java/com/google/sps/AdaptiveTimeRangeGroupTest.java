@@ -0,0 +1,62 @@
+package com.google.sps.data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class AdaptiveTimeRangeGroupTest {
+  private static final long START = Instant.parse("2020-06-25T00:00:00Z").getEpochSecond();
+
+  /** Tests that the group moves to a tree once it grows past the threshold, keeping its ranges. */
+  @Test
+  public void testMigratesPastThreshold() {
+    AdaptiveTimeRangeGroup group = new AdaptiveTimeRangeGroup(Arrays.asList(), 3);
+    List<TimeRange> expected = new ArrayList<TimeRange>();
+    for (int i = 0; i < 3; i++) {
+      expected.add(TimeRange.fromEpochSeconds(START + 100 * i, START + 100 * i + 50));
+      group.addTimeRange(expected.get(i));
+    }
+    Assert.assertFalse(group.isTreeBacked());
+
+    // Splitting a range makes a fourth one.
+    group.deleteTimeRange(TimeRange.fromEpochSeconds(START + 10, START + 20));
+    Assert.assertTrue(group.isTreeBacked());
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromEpochSeconds(START, START + 10),
+            TimeRange.fromEpochSeconds(START + 20, START + 50),
+            expected.get(1),
+            expected.get(2)),
+        TimeRangeGroupTestUtil.toList(group));
+
+    // Shrinking again does not move the group back to arrays.
+    group.deleteTimeRange(TimeRange.fromEpochSeconds(START, START + 300));
+    Assert.assertTrue(group.isTreeBacked());
+    Assert.assertEquals(Arrays.asList(), TimeRangeGroupTestUtil.toList(group));
+  }
+
+  /** Tests that a group built from more ranges than the threshold starts out as a tree. */
+  @Test
+  public void testLargeInputStartsAsTree() {
+    List<TimeRange> timeRanges = new ArrayList<TimeRange>();
+    for (int i = 0; i < 10; i++) {
+      timeRanges.add(TimeRange.fromEpochSeconds(START + 100 * i, START + 100 * i + 50));
+    }
+
+    AdaptiveTimeRangeGroup group = new AdaptiveTimeRangeGroup(timeRanges, 5);
+
+    Assert.assertTrue(group.isTreeBacked());
+    Assert.assertEquals(timeRanges, TimeRangeGroupTestUtil.toList(group));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testNegativeThreshold() {
+    new AdaptiveTimeRangeGroup(Arrays.asList(), -1);
+  }
+}
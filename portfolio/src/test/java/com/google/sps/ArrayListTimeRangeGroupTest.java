@@ -0,0 +1,111 @@
+package com.google.sps.data;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for the parts of ArrayListTimeRangeGroup that are not covered by TimeRangeGroupTest, which
+ * runs the shared TimeRangeGroup tests against every implementation.
+ */
+@RunWith(JUnit4.class)
+public final class ArrayListTimeRangeGroupTest {
+  private static final long START = 1593043200L;
+  private static final int SIZE = 10000;
+
+  // Every range is an hour long, and is followed by a free hour.
+  private static final long PERIOD = 7200;
+  private static final long RANGE_LENGTH = 3600;
+
+  private com.sun.management.ThreadMXBean allocationBean;
+  private List<TimeRange> timeRanges;
+  private ArrayListTimeRangeGroup group;
+
+  @Before
+  public void setUp() {
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+    allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+    Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+    allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+    timeRanges = new ArrayList<TimeRange>(SIZE);
+    for (int i = 0; i < SIZE; i++) {
+      timeRanges.add(rangeAt(i, 0, RANGE_LENGTH));
+    }
+    group = new ArrayListTimeRangeGroup(timeRanges);
+  }
+
+  /**
+   * Makes sure that lookups, deletes of whole ranges and of ranges that only touch the group, and
+   * adds that merge nothing, do not allocate. Before the list was changed in place, every add and
+   * delete copied all the ranges into a new list, which is more than 40 kilobytes per call here.
+   */
+  @Test
+  public void testHotLoopDoesNotAllocate() {
+    List<TimeRange> freeHours = new ArrayList<TimeRange>(SIZE);
+    for (int i = 0; i < SIZE; i++) {
+      freeHours.add(rangeAt(i, RANGE_LENGTH, PERIOD));
+    }
+    long threadId = Thread.currentThread().getId();
+    int hits = 0;
+
+    // Called once up front so that the measuring itself is not counted.
+    allocationBean.getThreadAllocatedBytes(threadId);
+    long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < SIZE; i++) {
+      TimeRange timeRange = timeRanges.get(i);
+      if (group.hasTimeRange(timeRange)) {
+        hits++;
+      }
+      // The free hour after the range only touches the ranges around it, so nothing changes.
+      group.deleteTimeRange(freeHours.get(i));
+      group.deleteTimeRange(timeRange);
+      if (group.hasTimeRange(timeRange)) {
+        hits++;
+      }
+      group.addTimeRange(timeRange);
+    }
+    long allocatedBytes = allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    Assert.assertEquals(SIZE, hits);
+    Assert.assertEquals(timeRanges, TimeRangeGroupTestUtil.toList(group));
+    // Allows a little slack for the measuring call, but far less than one byte per call.
+    Assert.assertTrue("Allocated " + allocatedBytes + " bytes", allocatedBytes < SIZE / 10);
+  }
+
+  /**
+   * Makes sure that a delete that cuts a range only allocates the range that is left of it, which
+   * is a new immutable TimeRange, and never a copy of the list.
+   */
+  @Test
+  public void testCutOnlyAllocatesTheRemainingRange() {
+    long threadId = Thread.currentThread().getId();
+
+    allocationBean.getThreadAllocatedBytes(threadId);
+    long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < SIZE; i++) {
+      // A task at the start of every range, the way the schedulers take time.
+      group.deleteTimeRange(rangeAt(i, 0, 600));
+    }
+    long allocatedBytes = allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    Assert.assertEquals(SIZE, TimeRangeGroupTestUtil.toList(group).size());
+    Assert.assertEquals(rangeAt(0, 600, RANGE_LENGTH), group.iterator().next());
+    // The loop builds the range to delete and the cut creates the range left of it, which are two
+    // small objects per cut, far less than a copy of the list.
+    Assert.assertTrue("Allocated " + allocatedBytes + " bytes", allocatedBytes < SIZE * 2L * 64);
+  }
+
+  private static TimeRange rangeAt(int index, long startOffset, long endOffset) {
+    long periodStart = START + index * PERIOD;
+    return TimeRange.fromEpochSeconds(periodStart + startOffset, periodStart + endOffset);
+  }
+}
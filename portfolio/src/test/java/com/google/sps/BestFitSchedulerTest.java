@@ -0,0 +1,79 @@
+package com.google.sps.data;
+
+import java.util.Arrays;
+import java.util.Collection;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class BestFitSchedulerTest {
+
+  /** Makes sure we return an empty list in the case where no tasks are passed. */
+  @Test
+  public void testNoTasks() {
+    BestFitScheduler bestFitScheduler = new BestFitScheduler();
+    Collection<CalendarEvent> events = Arrays.asList();
+    Collection<Task> tasks = Arrays.asList();
+
+    Collection<ScheduledTask> actual =
+        bestFitScheduler.schedule(
+            events, tasks, SchedulerTestUtil.TIME_0900, SchedulerTestUtil.TIME_1700);
+
+    Assert.assertEquals(Arrays.asList(), actual);
+  }
+
+  /**
+   * Tests that each task, from longest to shortest, goes into the shortest free time range it fits
+   * in, including what is left of a range after an earlier task, and that a task that fits nowhere
+   * is not scheduled.
+   */
+  @Test
+  public void testBestFitLongestTaskFirst() {
+    // Working hours:   |-----------------------------------------------------|
+    // Events:                 |---|          |--------|    |-----------------|
+    // Scheduled:       |-B-|D||   |--C--|             |--A-|
+    // Task E (2 hours) does not fit in any free time range.
+
+    Collection<CalendarEvent> events =
+        Arrays.asList(
+            new CalendarEvent("Event 1", SchedulerTestUtil.TIME_0930, SchedulerTestUtil.TIME_1000),
+            new CalendarEvent("Event 2", SchedulerTestUtil.TIME_1130, SchedulerTestUtil.TIME_1200),
+            new CalendarEvent("Event 3", SchedulerTestUtil.TIME_1300, SchedulerTestUtil.TIME_1700));
+
+    Task taskA =
+        new Task(
+            "Task A", "A", SchedulerTestUtil.DURATION_60_MINUTES, SchedulerTestUtil.PRIORITY_ONE);
+    Task taskB =
+        new Task(
+            "Task B", "B", SchedulerTestUtil.DURATION_20_MINUTES, SchedulerTestUtil.PRIORITY_ONE);
+    Task taskC =
+        new Task(
+            "Task C", "C", SchedulerTestUtil.DURATION_40_MINUTES, SchedulerTestUtil.PRIORITY_ONE);
+    Task taskD =
+        new Task(
+            "Task D", "D", SchedulerTestUtil.DURATION_10_MINUTES, SchedulerTestUtil.PRIORITY_ONE);
+    Task taskE =
+        new Task("Task E", "E", SchedulerTestUtil.DURATION_2_HOURS, SchedulerTestUtil.PRIORITY_ONE);
+    Collection<Task> tasks = Arrays.asList(taskA, taskB, taskC, taskD, taskE);
+
+    BestFitScheduler bestFitScheduler = new BestFitScheduler();
+    Collection<ScheduledTask> actual =
+        bestFitScheduler.schedule(
+            events, tasks, SchedulerTestUtil.TIME_0900, SchedulerTestUtil.TIME_1700);
+
+    Collection<ScheduledTask> expected =
+        Arrays.asList(
+            new ScheduledTask(
+                taskA, SchedulerTestUtil.TIME_1200, SchedulerTestUtil.completelyScheduled),
+            new ScheduledTask(
+                taskC, SchedulerTestUtil.TIME_1000, SchedulerTestUtil.completelyScheduled),
+            new ScheduledTask(
+                taskB, SchedulerTestUtil.TIME_0900, SchedulerTestUtil.completelyScheduled),
+            new ScheduledTask(
+                taskD, SchedulerTestUtil.TIME_0920, SchedulerTestUtil.completelyScheduled));
+
+    Assert.assertEquals(expected, actual);
+  }
+}
@@ -0,0 +1,181 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests the bitmap implementation, whose horizon in these tests is one day. */
+@RunWith(JUnit4.class)
+public final class BitmapTimeRangeGroupTest {
+  private static final Instant DAY_START = Instant.parse("2020-06-25T00:00:00Z");
+  private static final Instant DAY_END = Instant.parse("2020-06-26T00:00:00Z");
+
+  private BitmapTimeRangeGroup timeRangeGroup;
+
+  @Before
+  public void setUp() {
+    timeRangeGroup = new BitmapTimeRangeGroup(DAY_START, DAY_END);
+  }
+
+  /** Tests that overlapping and touching ranges are merged, including across words. */
+  @Test
+  public void testAddMergesRanges() {
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(10, 70));
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(70, 200));
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(150, 180));
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(300, 301));
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(1439, 1440));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRangeGroupTestUtil.range(10, 200),
+            TimeRangeGroupTestUtil.range(300, 301),
+            TimeRangeGroupTestUtil.range(1439, 1440)),
+        TimeRangeGroupTestUtil.toList(timeRangeGroup));
+  }
+
+  /** Tests that deleting from the middle of a range splits it, and deletions can span ranges. */
+  @Test
+  public void testDeleteSplitsRanges() {
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(0, 600));
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(700, 800));
+
+    timeRangeGroup.deleteTimeRange(TimeRangeGroupTestUtil.range(100, 130));
+    timeRangeGroup.deleteTimeRange(TimeRangeGroupTestUtil.range(550, 750));
+    timeRangeGroup.deleteTimeRange(
+        TimeRange.fromStartEnd(DAY_END.plusSeconds(3600), DAY_END.plusSeconds(7200)));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRangeGroupTestUtil.range(0, 100),
+            TimeRangeGroupTestUtil.range(130, 550),
+            TimeRangeGroupTestUtil.range(750, 800)),
+        TimeRangeGroupTestUtil.toList(timeRangeGroup));
+  }
+
+  /** Tests that ranges are found if every minute they touch is set. */
+  @Test
+  public void testHasTimeRange() {
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(60, 200));
+
+    Assert.assertTrue(timeRangeGroup.hasTimeRange(TimeRangeGroupTestUtil.range(60, 200)));
+    Assert.assertTrue(timeRangeGroup.hasTimeRange(TimeRangeGroupTestUtil.range(100, 130)));
+    Assert.assertTrue(
+        timeRangeGroup.hasTimeRange(
+            TimeRange.fromStartEnd(
+                DAY_START.plusSeconds(60 * 60 + 30), DAY_START.plusSeconds(199 * 60 + 59))));
+    Assert.assertTrue(timeRangeGroup.hasTimeRange(TimeRangeGroupTestUtil.range(200, 200)));
+    Assert.assertFalse(timeRangeGroup.hasTimeRange(TimeRangeGroupTestUtil.range(59, 200)));
+    Assert.assertFalse(timeRangeGroup.hasTimeRange(TimeRangeGroupTestUtil.range(60, 201)));
+    Assert.assertFalse(timeRangeGroup.hasTimeRange(TimeRangeGroupTestUtil.range(201, 201)));
+    Assert.assertFalse(
+        timeRangeGroup.hasTimeRange(
+            TimeRange.fromStartEnd(DAY_START.minusSeconds(60), DAY_START.plusSeconds(60))));
+  }
+
+  /** Tests that runs are found inside a word, and across several words. */
+  @Test
+  public void testFindFirstFreeMinutes() {
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(3, 8));
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(20, 30));
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(60, 260));
+
+    Assert.assertEquals(Optional.of(minute(3)), timeRangeGroup.findFirstFreeMinutes(1));
+    Assert.assertEquals(Optional.of(minute(3)), timeRangeGroup.findFirstFreeMinutes(5));
+    Assert.assertEquals(Optional.of(minute(20)), timeRangeGroup.findFirstFreeMinutes(6));
+    Assert.assertEquals(Optional.of(minute(60)), timeRangeGroup.findFirstFreeMinutes(11));
+    Assert.assertEquals(Optional.of(minute(60)), timeRangeGroup.findFirstFreeMinutes(200));
+    Assert.assertEquals(Optional.empty(), timeRangeGroup.findFirstFreeMinutes(201));
+  }
+
+  /** Tests that the first fit rounds the duration up to whole minutes. */
+  @Test
+  public void testFindFirstFit() {
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(0, 30));
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(100, 160));
+
+    Assert.assertEquals(
+        Optional.of(TimeRangeGroupTestUtil.range(0, 30)),
+        timeRangeGroup.findFirstFit(Duration.ofMinutes(30)));
+    Assert.assertEquals(
+        Optional.of(TimeRangeGroupTestUtil.range(100, 160)),
+        timeRangeGroup.findFirstFit(Duration.ofMinutes(30).plusNanos(1)));
+    Assert.assertEquals(Optional.empty(), timeRangeGroup.findFirstFit(Duration.ofHours(2)));
+  }
+
+  /** Tests that converting to an array list group and back keeps the same ranges. */
+  @Test
+  public void testConvertsToAndFromArrayList() {
+    ArrayListTimeRangeGroup arrayListGroup =
+        new ArrayListTimeRangeGroup(
+            Arrays.asList(
+                TimeRangeGroupTestUtil.range(0, 45),
+                TimeRangeGroupTestUtil.range(100, 164),
+                TimeRangeGroupTestUtil.range(500, 900),
+                TimeRangeGroupTestUtil.range(1400, 1440)));
+
+    BitmapTimeRangeGroup bitmapGroup = new BitmapTimeRangeGroup(DAY_START, DAY_END, arrayListGroup);
+    ArrayListTimeRangeGroup convertedBack = bitmapGroup.toArrayListTimeRangeGroup();
+
+    Assert.assertEquals(
+        TimeRangeGroupTestUtil.toList(arrayListGroup), TimeRangeGroupTestUtil.toList(bitmapGroup));
+    Assert.assertEquals(
+        TimeRangeGroupTestUtil.toList(arrayListGroup),
+        TimeRangeGroupTestUtil.toList(convertedBack));
+  }
+
+  /**
+   * Tests that a long random sequence of additions and deletions keeps the bitmap in the same state
+   * as the array list implementation.
+   */
+  @Test
+  public void testMatchesArrayListAfterRandomOperations() {
+    Random random = new Random(61);
+    TimeRangeGroup expected = new ArrayListTimeRangeGroup(Arrays.asList());
+
+    for (int operation = 0; operation < 2000; operation++) {
+      int startMinute = random.nextInt(1440);
+      int endMinute = startMinute + 1 + random.nextInt(Math.min(120, 1440 - startMinute));
+      TimeRange timeRange = TimeRangeGroupTestUtil.range(startMinute, endMinute);
+      if (random.nextInt(3) == 0) {
+        expected.deleteTimeRange(timeRange);
+        timeRangeGroup.deleteTimeRange(timeRange);
+      } else {
+        expected.addTimeRange(timeRange);
+        timeRangeGroup.addTimeRange(timeRange);
+      }
+
+      Assert.assertEquals(
+          TimeRangeGroupTestUtil.toList(expected), TimeRangeGroupTestUtil.toList(timeRangeGroup));
+      Duration duration = Duration.ofMinutes(random.nextInt(180));
+      Assert.assertEquals(expected.findFirstFit(duration), timeRangeGroup.findFirstFit(duration));
+    }
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddOffMinuteThrows() {
+    timeRangeGroup.addTimeRange(
+        TimeRange.fromStartEnd(DAY_START.plusSeconds(30), DAY_START.plusSeconds(120)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testAddOutsideHorizonThrows() {
+    timeRangeGroup.addTimeRange(TimeRange.fromStartEnd(DAY_END, DAY_END.plusSeconds(60)));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testHorizonOffMinuteThrows() {
+    new BitmapTimeRangeGroup(DAY_START, DAY_END.plusSeconds(1));
+  }
+
+  private static Instant minute(int minute) {
+    return DAY_START.plusSeconds(minute * 60L);
+  }
+}
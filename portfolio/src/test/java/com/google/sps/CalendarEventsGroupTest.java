@@ -8,6 +8,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Random;
 import org.junit.Assert;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -281,4 +282,261 @@ public final class CalendarEventsGroupTest {
     List<TimeRange> actualFreeTimeRanges = eventGroup.getFreeTimeRanges();
     Assert.assertEquals(expectedFreeTimeRanges, actualFreeTimeRanges);
   }
+
+  /** Tests that an added event is inserted in order and cuts the free time it overlaps. */
+  @Test
+  public void addNewEventInOrder() {
+    // Events:        |-A-|     |-C-|
+    //                       |----B----|
+    // Possible: |---------------------------|
+    // Free:     |----|   |--|         |-----|
+    Instant overallStartTime = Instant.ofEpochSecond(1593043200L);
+    Instant overallEndTime = overallStartTime.plusSeconds(10000);
+    CalendarEvent eventA =
+        new CalendarEvent(
+            "A", overallStartTime.plusSeconds(1000), overallStartTime.plusSeconds(2000));
+    CalendarEvent eventB =
+        new CalendarEvent(
+            "B", overallStartTime.plusSeconds(3000), overallStartTime.plusSeconds(7000));
+    CalendarEvent eventC =
+        new CalendarEvent(
+            "C", overallStartTime.plusSeconds(4000), overallStartTime.plusSeconds(5000));
+    CalendarEventsGroup eventGroup =
+        new CalendarEventsGroup(ImmutableList.of(eventC, eventA), overallStartTime, overallEndTime);
+
+    eventGroup.addNewEvent(eventB);
+
+    Assert.assertEquals(Arrays.asList(eventA, eventB, eventC), eventGroup.events);
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(overallStartTime, eventA.getStartTime()),
+            TimeRange.fromStartEnd(eventA.getEndTime(), eventB.getStartTime()),
+            TimeRange.fromStartEnd(eventB.getEndTime(), overallEndTime)),
+        eventGroup.getFreeTimeRanges());
+  }
+
+  /** Tests that removing an event frees only the time no other event covers. */
+  @Test
+  public void removeEventFreesUncoveredTime() {
+    // Events:        |---A---|
+    //                    |----B----|
+    // Possible: |---------------------------|
+    // Free:     |----|             |--------|   (after removing B: |----|       |------------|)
+    Instant overallStartTime = Instant.ofEpochSecond(1593043200L);
+    Instant overallEndTime = overallStartTime.plusSeconds(10000);
+    CalendarEvent eventA =
+        new CalendarEvent(
+            "A", overallStartTime.plusSeconds(1000), overallStartTime.plusSeconds(3000));
+    CalendarEvent eventB =
+        new CalendarEvent(
+            "B", overallStartTime.plusSeconds(2000), overallStartTime.plusSeconds(5000));
+    CalendarEventsGroup eventGroup =
+        new CalendarEventsGroup(ImmutableList.of(eventA, eventB), overallStartTime, overallEndTime);
+
+    Assert.assertTrue(eventGroup.removeEvent(eventB));
+    Assert.assertFalse(eventGroup.removeEvent(eventB));
+
+    Assert.assertEquals(Arrays.asList(eventA), eventGroup.events);
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(overallStartTime, eventA.getStartTime()),
+            TimeRange.fromStartEnd(eventA.getEndTime(), overallEndTime)),
+        eventGroup.getFreeTimeRanges());
+  }
+
+  /** Tests that the returned free time ranges cannot be changed by the caller. */
+  @Test(expected = UnsupportedOperationException.class)
+  public void freeTimeRangesAreReadOnly() {
+    Instant startTime = Instant.ofEpochSecond(1593043200L);
+    CalendarEventsGroup eventGroup =
+        new CalendarEventsGroup(
+            new ArrayList<CalendarEvent>(), startTime, startTime.plusSeconds(1000));
+
+    eventGroup.getFreeTimeRanges().clear();
+  }
+
+  /**
+   * Tests that, after random events are added and removed one at a time, the free time ranges are
+   * the same as the ones of a group built from scratch with the remaining events.
+   */
+  @Test
+  public void freeTimeRangesMatchRebuildAfterRandomChanges() {
+    Random random = new Random(61);
+    Instant overallStartTime = Instant.ofEpochSecond(1593043200L);
+    Instant overallEndTime = overallStartTime.plusSeconds(20000);
+    List<CalendarEvent> remainingEvents = new ArrayList<CalendarEvent>();
+    CalendarEventsGroup eventGroup =
+        new CalendarEventsGroup(remainingEvents, overallStartTime, overallEndTime);
+
+    for (int i = 0; i < 1000; i++) {
+      if (remainingEvents.isEmpty() || random.nextInt(3) > 0) {
+        // Some events start before or end after the scheduling hours, and some have no duration.
+        Instant eventStart = overallStartTime.plusSeconds(random.nextInt(24000) - 2000);
+        Instant eventEnd =
+            eventStart.plusSeconds(random.nextInt(5) == 0 ? 0 : random.nextInt(3000));
+        CalendarEvent event = new CalendarEvent("event " + i, eventStart, eventEnd);
+        remainingEvents.add(event);
+        eventGroup.addNewEvent(event);
+      } else {
+        CalendarEvent event = remainingEvents.remove(random.nextInt(remainingEvents.size()));
+        Assert.assertTrue(eventGroup.removeEvent(event));
+      }
+
+      CalendarEventsGroup rebuiltGroup =
+          new CalendarEventsGroup(remainingEvents, overallStartTime, overallEndTime);
+      Assert.assertEquals(rebuiltGroup.events, eventGroup.events);
+      Assert.assertEquals(rebuiltGroup.getFreeTimeRanges(), eventGroup.getFreeTimeRanges());
+    }
+  }
+
+  /**
+   * Tests that merging sorted calendars gives the same events, in the same order, and the same free
+   * time ranges as sorting all their events together.
+   */
+  @Test
+  public void fromSortedCalendarsMatchesSorting() {
+    Random random = new Random(61);
+    Instant overallStartTime = Instant.ofEpochSecond(1593043200L);
+    Instant overallEndTime = overallStartTime.plusSeconds(20000);
+    List<List<CalendarEvent>> calendars = new ArrayList<List<CalendarEvent>>();
+    List<CalendarEvent> allEvents = new ArrayList<CalendarEvent>();
+    for (int i = 0; i < 5; i++) {
+      List<CalendarEvent> calendar = new ArrayList<CalendarEvent>();
+      Instant eventStart = overallStartTime.minusSeconds(1000);
+      for (int j = 0; j < 20; j++) {
+        // Some events of different calendars start at the same time.
+        eventStart = eventStart.plusSeconds(random.nextInt(10) * 100);
+        CalendarEvent event =
+            new CalendarEvent(
+                "event " + i + " " + j, eventStart, eventStart.plusSeconds(random.nextInt(2000)));
+        calendar.add(event);
+        allEvents.add(event);
+      }
+      calendars.add(calendar);
+    }
+    calendars.add(new ArrayList<CalendarEvent>());
+
+    CalendarEventsGroup sortedGroup =
+        new CalendarEventsGroup(allEvents, overallStartTime, overallEndTime);
+    CalendarEventsGroup mergedGroup =
+        CalendarEventsGroup.fromSortedCalendars(calendars, overallStartTime, overallEndTime);
+
+    Assert.assertEquals(sortedGroup.events, mergedGroup.events);
+    Assert.assertEquals(sortedGroup.getFreeTimeRanges(), mergedGroup.getFreeTimeRanges());
+    Assert.assertEquals(
+        sortedGroup.getFreeTimeRanges(),
+        CalendarEventsGroup.freeTimeRangesOfSortedCalendars(
+            calendars, overallStartTime, overallEndTime));
+  }
+
+  /** Tests that a calendar that is not sorted by start time is rejected. */
+  @Test(expected = IllegalArgumentException.class)
+  public void fromSortedCalendarsRejectsUnsortedCalendar() {
+    Instant startTime = Instant.ofEpochSecond(1593043200L);
+    List<CalendarEvent> unsortedCalendar =
+        Arrays.asList(
+            new CalendarEvent("later", startTime.plusSeconds(2000), startTime.plusSeconds(3000)),
+            new CalendarEvent("earlier", startTime, startTime.plusSeconds(1000)));
+
+    CalendarEventsGroup.fromSortedCalendars(
+        Arrays.asList(unsortedCalendar), startTime, startTime.plusSeconds(10000));
+  }
+
+  /** Tests the events that overlap a window, and the events in progress at an instant. */
+  @Test
+  public void eventsOverlappingWindow() {
+    // Long:      |--------------------|
+    // Nested:        |--|
+    // Touching:                       |---|
+    // Point:               |
+    Instant start = Instant.ofEpochSecond(1593043200L);
+    CalendarEvent longEvent = new CalendarEvent("long", start, start.plusSeconds(1000));
+    CalendarEvent nested =
+        new CalendarEvent("nested", start.plusSeconds(100), start.plusSeconds(200));
+    CalendarEvent point =
+        new CalendarEvent("point", start.plusSeconds(500), start.plusSeconds(500));
+    CalendarEvent touching =
+        new CalendarEvent("touching", start.plusSeconds(1000), start.plusSeconds(1200));
+    CalendarEventsGroup group =
+        new CalendarEventsGroup(
+            Arrays.asList(touching, point, nested, longEvent), start, start.plusSeconds(2000));
+
+    Assert.assertEquals(
+        Arrays.asList(longEvent, nested),
+        group.eventsOverlapping(start.plusSeconds(150), start.plusSeconds(300)));
+    Assert.assertEquals(
+        Arrays.asList(longEvent, point),
+        group.eventsOverlapping(start.plusSeconds(200), start.plusSeconds(1000)));
+    Assert.assertEquals(
+        Arrays.asList(touching),
+        group.eventsOverlapping(start.plusSeconds(1000), start.plusSeconds(1100)));
+    Assert.assertEquals(Arrays.asList(), group.eventsOverlapping(start.minusSeconds(100), start));
+    Assert.assertEquals(Arrays.asList(longEvent, nested), group.eventsAt(start.plusSeconds(100)));
+    Assert.assertEquals(Arrays.asList(longEvent), group.eventsAt(start.plusSeconds(200)));
+    Assert.assertEquals(Arrays.asList(touching), group.eventsAt(start.plusSeconds(1000)));
+  }
+
+  /** Tests that the overlap queries see the events added and removed since the last query. */
+  @Test
+  public void eventsOverlappingAfterChanges() {
+    Instant start = Instant.ofEpochSecond(1593043200L);
+    CalendarEvent first = new CalendarEvent("first", start, start.plusSeconds(100));
+    CalendarEvent second =
+        new CalendarEvent("second", start.plusSeconds(50), start.plusSeconds(150));
+    CalendarEventsGroup group =
+        new CalendarEventsGroup(Arrays.asList(first), start, start.plusSeconds(1000));
+
+    Assert.assertEquals(Arrays.asList(first), group.eventsAt(start.plusSeconds(60)));
+    group.addNewEvent(second);
+    Assert.assertEquals(Arrays.asList(first, second), group.eventsAt(start.plusSeconds(60)));
+    group.removeEvent(first);
+    Assert.assertEquals(Arrays.asList(second), group.eventsAt(start.plusSeconds(60)));
+  }
+
+  /** Tests that a window that ends before it starts is rejected. */
+  @Test(expected = IllegalArgumentException.class)
+  public void eventsOverlappingRejectsInvertedWindow() {
+    Instant start = Instant.ofEpochSecond(1593043200L);
+    CalendarEventsGroup group =
+        new CalendarEventsGroup(new ArrayList<CalendarEvent>(), start, start.plusSeconds(1000));
+
+    group.eventsOverlapping(start.plusSeconds(10), start);
+  }
+
+  /**
+   * Tests that the overlap queries match checking every event, for groups of every size up to a few
+   * hundred events, so the index is also tested when its tree is not full.
+   */
+  @Test
+  public void eventsOverlappingMatchesScan() {
+    Random random = new Random(61);
+    Instant start = Instant.ofEpochSecond(1593043200L);
+    for (int size = 0; size <= 300; size++) {
+      List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+      for (int i = 0; i < size; i++) {
+        Instant eventStart = start.plusSeconds(random.nextInt(10000));
+        // Mostly short events, with a few long ones that nest many others.
+        int duration = random.nextInt(10) == 0 ? random.nextInt(5000) : random.nextInt(100);
+        events.add(new CalendarEvent("event " + i, eventStart, eventStart.plusSeconds(duration)));
+      }
+      CalendarEventsGroup group = new CalendarEventsGroup(events, start, start.plusSeconds(10000));
+
+      for (int query = 0; query < 20; query++) {
+        Instant from = start.plusSeconds(random.nextInt(11000) - 500);
+        Instant to = from.plusSeconds(random.nextInt(300));
+        List<CalendarEvent> overlapping = new ArrayList<CalendarEvent>();
+        List<CalendarEvent> inProgress = new ArrayList<CalendarEvent>();
+        for (CalendarEvent event : group.events) {
+          if (event.getStartTime().isBefore(to) && event.getEndTime().isAfter(from)) {
+            overlapping.add(event);
+          }
+          if (!event.getStartTime().isAfter(from) && event.getEndTime().isAfter(from)) {
+            inProgress.add(event);
+          }
+        }
+        Assert.assertEquals(overlapping, group.eventsOverlapping(from, to));
+        Assert.assertEquals(inProgress, group.eventsAt(from));
+      }
+    }
+  }
 }
@@ -0,0 +1,89 @@
+package com.google.sps.data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the ways CalendarEventsGroup can sort the events it is given: the comparator sort it
+ * used to always run, the radix sort, and the sortedness check that picks between them. Run it with
+ * the benchmark profile:
+ *
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark.args=CalendarEventsSortBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalendarEventsSortBenchmark {
+  private static final long START = 1593043200L;
+
+  private static final Comparator<CalendarEvent> SORT_BY_START_TIME =
+      Comparator.comparing(CalendarEvent::getStartTime);
+
+  /** Events over a year, with up to an hour between them. */
+  @State(Scope.Benchmark)
+  public static class Events {
+    @Param({"1000", "100000", "1000000"})
+    public int size;
+
+    @Param({"true", "false"})
+    public boolean sorted;
+
+    private List<CalendarEvent> events;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random random = new Random(61);
+      events = new ArrayList<CalendarEvent>(size);
+      long second = START;
+      for (int i = 0; i < size; i++) {
+        second += random.nextInt(3600);
+        Instant start = Instant.ofEpochSecond(second);
+        events.add(new CalendarEvent("event " + i, start, start.plusSeconds(1800)));
+      }
+      if (!sorted) {
+        Collections.shuffle(events, random);
+      }
+    }
+  }
+
+  /** Copies and sorts the events with the comparator, as the group did before. */
+  @Benchmark
+  public List<CalendarEvent> comparatorSort(Events events) {
+    List<CalendarEvent> sortedEvents = new ArrayList<CalendarEvent>(events.events);
+    Collections.sort(sortedEvents, SORT_BY_START_TIME);
+    return sortedEvents;
+  }
+
+  /** Sorts the events with the radix sort, whether or not they are already in order. */
+  @Benchmark
+  public List<CalendarEvent> radixSort(Events events) {
+    return CalendarEventsGroup.radixSortedByStartTime(events.events);
+  }
+
+  /** Sorts the events the way the group does now. */
+  @Benchmark
+  public List<CalendarEvent> sortedByStartTime(Events events) {
+    return CalendarEventsGroup.sortedByStartTime(events.events);
+  }
+}
@@ -0,0 +1,73 @@
+package com.google.sps.data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class CalendarEventsSortTest {
+  private static final long START = 1593043200L;
+
+  /** Tests the check for lists that are already sorted by start time. */
+  @Test
+  public void testIsSortedByStartTime() {
+    CalendarEvent first = eventAt("first", START, 0);
+    CalendarEvent second = eventAt("second", START, 1);
+    CalendarEvent third = eventAt("third", START + 1, 0);
+
+    Assert.assertTrue(CalendarEventsGroup.isSortedByStartTime(Collections.emptyList()));
+    Assert.assertTrue(CalendarEventsGroup.isSortedByStartTime(Arrays.asList(first, first, third)));
+    Assert.assertTrue(CalendarEventsGroup.isSortedByStartTime(Arrays.asList(first, second, third)));
+    Assert.assertFalse(
+        CalendarEventsGroup.isSortedByStartTime(Arrays.asList(second, first, third)));
+  }
+
+  /**
+   * Tests that the radix sort orders events like the stable comparator sort, including events with
+   * the same start, starts before the epoch, and fractions of a second.
+   */
+  @Test
+  public void testRadixSortMatchesComparatorSort() {
+    Random random = new Random(61);
+    for (int size : new int[] {0, 1, 2, 100, 5000}) {
+      List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+      for (int i = 0; i < size; i++) {
+        long second = random.nextBoolean() ? START + random.nextInt(1000) : -random.nextInt(1000);
+        int nano = random.nextInt(4) == 0 ? random.nextInt(1000000000) : 0;
+        events.add(eventAt("event " + i, second, nano));
+      }
+
+      List<CalendarEvent> expected = new ArrayList<CalendarEvent>(events);
+      Collections.sort(expected, Comparator.comparing(CalendarEvent::getStartTime));
+      Assert.assertEquals(expected, CalendarEventsGroup.radixSortedByStartTime(events));
+      Assert.assertEquals(expected, CalendarEventsGroup.sortedByStartTime(events));
+    }
+  }
+
+  /** Tests that the radix sort handles starts that are far apart. */
+  @Test
+  public void testRadixSortWideSpan() {
+    List<CalendarEvent> events =
+        Arrays.asList(
+            eventAt("max", Instant.MAX.getEpochSecond(), 0),
+            eventAt("zero", 0, 0),
+            eventAt("min", Instant.MIN.getEpochSecond(), 0));
+
+    List<CalendarEvent> sortedEvents = CalendarEventsGroup.radixSortedByStartTime(events);
+
+    Assert.assertEquals(Arrays.asList(events.get(2), events.get(1), events.get(0)), sortedEvents);
+  }
+
+  private static CalendarEvent eventAt(String name, long second, int nano) {
+    Instant start = Instant.ofEpochSecond(second, nano);
+    return new CalendarEvent(name, start, start);
+  }
+}
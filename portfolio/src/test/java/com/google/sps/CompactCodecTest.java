@@ -0,0 +1,154 @@
+package com.google.sps.data;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class CompactCodecTest {
+  private static final Instant TIME_0900 = Instant.parse("2020-06-25T09:00:00Z");
+  private static final Instant TIME_1700 = Instant.parse("2020-06-25T17:00:00Z");
+
+  /** Tests that random time ranges decode to the same ranges from a buffer and from a stream. */
+  @Test
+  public void testTimeRangeGroupRoundTrip() throws Exception {
+    Random random = new Random(61);
+    List<TimeRange> timeRanges = new ArrayList<TimeRange>();
+    for (int i = 0; i < 500; i++) {
+      long start = random.nextInt(2000000000) - 1000000000L;
+      timeRanges.add(TimeRange.fromEpochSeconds(start, start + random.nextInt(100000)));
+    }
+    TimeRangeGroup group = new LongArrayTimeRangeGroup(timeRanges);
+
+    ByteBuffer buffer = ByteBuffer.allocate(10000);
+    CompactCodec.encode(group, buffer);
+    buffer.flip();
+    Assert.assertEquals(
+        TimeRangeGroupTestUtil.toList(group),
+        TimeRangeGroupTestUtil.toList(CompactCodec.decodeTimeRangeGroup(buffer)));
+    Assert.assertFalse(buffer.hasRemaining());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CompactCodec.encode(group, out);
+    Assert.assertEquals(buffer.limit(), out.size());
+    Assert.assertEquals(
+        TimeRangeGroupTestUtil.toList(group),
+        TimeRangeGroupTestUtil.toList(
+            CompactCodec.decodeTimeRangeGroup(new ByteArrayInputStream(out.toByteArray()))));
+  }
+
+  /**
+   * Tests that a group that does not know its size round-trips, and that encoding iterates it only
+   * once instead of counting the ranges first.
+   */
+  @Test
+  public void testUnsizedTimeRangeGroupRoundTrip() throws Exception {
+    Random random = new Random(67);
+    List<TimeRange> timeRanges = new ArrayList<TimeRange>();
+    long start = 1593043200L;
+    for (int i = 0; i < 500; i++) {
+      start += random.nextInt(100000);
+      long end = start + random.nextInt(100000);
+      timeRanges.add(TimeRange.fromEpochSeconds(start, end));
+      start = end + 1;
+    }
+    int[] visited = new int[1];
+    TimeRangeGroup group =
+        new MaxGapTreeTimeRangeGroup(timeRanges) {
+          @Override
+          public Iterator<TimeRange> iterator() {
+            Iterator<TimeRange> iterator = super.iterator();
+            return new Iterator<TimeRange>() {
+              @Override
+              public boolean hasNext() {
+                return iterator.hasNext();
+              }
+
+              @Override
+              public TimeRange next() {
+                visited[0]++;
+                return iterator.next();
+              }
+            };
+          }
+        };
+    Assert.assertEquals(-1, group.spliterator().getExactSizeIfKnown());
+
+    ByteBuffer buffer = ByteBuffer.allocate(10000);
+    CompactCodec.encode(group, buffer);
+    Assert.assertEquals(timeRanges.size(), visited[0]);
+    buffer.flip();
+    Assert.assertEquals(
+        timeRanges, TimeRangeGroupTestUtil.toList(CompactCodec.decodeTimeRangeGroup(buffer)));
+    Assert.assertFalse(buffer.hasRemaining());
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CompactCodec.encode(group, out);
+    Assert.assertEquals(buffer.limit(), out.size());
+    Assert.assertEquals(
+        timeRanges,
+        TimeRangeGroupTestUtil.toList(
+            CompactCodec.decodeTimeRangeGroup(new ByteArrayInputStream(out.toByteArray()))));
+  }
+
+  /**
+   * Tests that a day of events round-trips, including repeated names, overlapping events and
+   * sub-second times, and that it takes only a few dozen bytes.
+   */
+  @Test
+  public void testCalendarEventsGroupRoundTrip() throws Exception {
+    List<CalendarEvent> events =
+        Arrays.asList(
+            new CalendarEvent("Standup", TIME_0900, TIME_0900.plusSeconds(900)),
+            new CalendarEvent(
+                "Lunch", TIME_0900.plusSeconds(3 * 3600), TIME_0900.plusSeconds(4 * 3600)),
+            new CalendarEvent(
+                "Standup",
+                TIME_0900.plusSeconds(24 * 3600),
+                TIME_0900.plusSeconds(24 * 3600 + 900)),
+            new CalendarEvent(
+                "Café", TIME_0900.plusSeconds(3 * 3600 + 1800), TIME_0900.plusMillis(15001500)),
+            new CalendarEvent("Before work", TIME_0900.minusSeconds(3600), TIME_0900));
+    CalendarEventsGroup group = new CalendarEventsGroup(events, TIME_0900, TIME_1700);
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CompactCodec.encode(group, out);
+    CalendarEventsGroup decoded =
+        CompactCodec.decodeCalendarEventsGroup(new ByteArrayInputStream(out.toByteArray()));
+
+    Assert.assertEquals(group.events, decoded.events);
+    Assert.assertEquals(group.overallStartTime, decoded.overallStartTime);
+    Assert.assertEquals(group.overallEndTime, decoded.overallEndTime);
+    // The names take 32 of the bytes; the JSON of the same events is several hundred bytes.
+    Assert.assertTrue(out.size() <= 80);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testDecodeWrongFormat() {
+    ByteBuffer buffer = ByteBuffer.allocate(100);
+    CompactCodec.encode(new ArrayListTimeRangeGroup(Arrays.asList()), buffer);
+    buffer.flip();
+    CompactCodec.decodeCalendarEventsGroup(buffer);
+  }
+
+  @Test(expected = EOFException.class)
+  public void testDecodeTruncatedStream() throws Exception {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CompactCodec.encode(
+        new ArrayListTimeRangeGroup(Arrays.asList(TimeRange.fromStartEnd(TIME_0900, TIME_1700))),
+        out);
+    byte[] bytes = Arrays.copyOf(out.toByteArray(), out.size() - 1);
+    CompactCodec.decodeTimeRangeGroup(new ByteArrayInputStream(bytes));
+  }
+}
@@ -0,0 +1,134 @@
+package com.google.sps.data;
+
+import java.util.Collections;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares a ConcurrentSkipListTimeRangeGroup with an ArrayListTimeRangeGroup behind a single lock,
+ * when eight threads reserve and release half-hour slots of one shared week while another thread
+ * keeps checking if slots are free. Every reservation that succeeds is released right away, so the
+ * week stays mostly free during the run. Run it with the benchmark profile:
+ *
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark.args=ConcurrentReservationBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConcurrentReservationBenchmark {
+  private static final long START = 1593043200L;
+  private static final long SLOT_SECONDS = 30 * 60;
+  private static final int SLOTS = 7 * 48;
+
+  /** Reserves and releases slots of a group that several threads share. */
+  private interface Calendar {
+    boolean tryReserve(TimeRange timeRange);
+
+    void release(TimeRange timeRange);
+
+    boolean isFree(TimeRange timeRange);
+  }
+
+  /** The shared week, in the implementation under test. */
+  @State(Scope.Group)
+  public static class SharedWeek {
+    @Param({"ConcurrentSkipList", "SynchronizedArrayList"})
+    public String implementation;
+
+    private Calendar calendar;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+      TimeRange week = TimeRange.fromEpochSeconds(START, START + SLOTS * SLOT_SECONDS);
+      if (implementation.equals("ConcurrentSkipList")) {
+        ConcurrentSkipListTimeRangeGroup group =
+            new ConcurrentSkipListTimeRangeGroup(Collections.singletonList(week));
+        calendar =
+            new Calendar() {
+              @Override
+              public boolean tryReserve(TimeRange timeRange) {
+                return group.tryReserve(timeRange);
+              }
+
+              @Override
+              public void release(TimeRange timeRange) {
+                group.addTimeRange(timeRange);
+              }
+
+              @Override
+              public boolean isFree(TimeRange timeRange) {
+                return group.hasTimeRange(timeRange);
+              }
+            };
+      } else {
+        ArrayListTimeRangeGroup group =
+            new ArrayListTimeRangeGroup(Collections.singletonList(week));
+        calendar =
+            new Calendar() {
+              @Override
+              public synchronized boolean tryReserve(TimeRange timeRange) {
+                if (!group.hasTimeRange(timeRange)) {
+                  return false;
+                }
+                group.deleteTimeRange(timeRange);
+                return true;
+              }
+
+              @Override
+              public synchronized void release(TimeRange timeRange) {
+                group.addTimeRange(timeRange);
+              }
+
+              @Override
+              public synchronized boolean isFree(TimeRange timeRange) {
+                return group.hasTimeRange(timeRange);
+              }
+            };
+      }
+    }
+  }
+
+  /** Reserves a random slot, and releases it again if the reservation succeeded. */
+  @Benchmark
+  @Group("week")
+  @GroupThreads(8)
+  public boolean reserve(SharedWeek week) {
+    TimeRange slot = randomSlot();
+    if (week.calendar.tryReserve(slot)) {
+      week.calendar.release(slot);
+      return true;
+    }
+    return false;
+  }
+
+  /** Checks if a random slot is free. */
+  @Benchmark
+  @Group("week")
+  @GroupThreads(1)
+  public boolean read(SharedWeek week) {
+    return week.calendar.isFree(randomSlot());
+  }
+
+  private static TimeRange randomSlot() {
+    long slotStart = START + ThreadLocalRandom.current().nextInt(SLOTS) * SLOT_SECONDS;
+    return TimeRange.fromEpochSeconds(slotStart, slotStart + SLOT_SECONDS);
+  }
+}
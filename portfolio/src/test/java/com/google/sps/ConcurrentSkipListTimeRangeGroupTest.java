@@ -0,0 +1,138 @@
+package com.google.sps.data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests the reservations and the thread safety of the concurrent implementation. */
+@RunWith(JUnit4.class)
+public final class ConcurrentSkipListTimeRangeGroupTest {
+  private static final Instant DAY_START = Instant.parse("2020-06-25T00:00:00Z");
+  private static final Instant DAY_END = Instant.parse("2020-06-26T00:00:00Z");
+  private static final int THREAD_COUNT = 8;
+
+  private ConcurrentSkipListTimeRangeGroup timeRangeGroup;
+  private ExecutorService executor;
+
+  @Before
+  public void setUp() {
+    timeRangeGroup =
+        new ConcurrentSkipListTimeRangeGroup(
+            Arrays.asList(TimeRange.fromStartEnd(DAY_START, DAY_END)));
+    executor = Executors.newFixedThreadPool(THREAD_COUNT + 1);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  /** Tests that a reservation only succeeds if the whole range is still free. */
+  @Test
+  public void testTryReserve() {
+    TimeRange morning = TimeRangeGroupTestUtil.range(9 * 60, 12 * 60);
+    TimeRange lateMorning = TimeRangeGroupTestUtil.range(11 * 60, 13 * 60);
+
+    Assert.assertTrue(timeRangeGroup.tryReserve(morning));
+    Assert.assertFalse(timeRangeGroup.tryReserve(morning));
+    Assert.assertFalse(timeRangeGroup.tryReserve(lateMorning));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRangeGroupTestUtil.range(0, 9 * 60),
+            TimeRangeGroupTestUtil.range(12 * 60, 24 * 60)),
+        TimeRangeGroupTestUtil.toList(timeRangeGroup));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testTryReserveWithoutDurationThrows() {
+    timeRangeGroup.tryReserve(TimeRangeGroupTestUtil.range(60, 60));
+  }
+
+  /**
+   * Tests that threads racing to reserve random slots of one day never reserve overlapping slots,
+   * and that the reserved slots and the remaining free ranges add up to exactly the day. A reader
+   * thread keeps iterating and checking ranges while the reservations happen.
+   */
+  @Test
+  public void testConcurrentReservationsNeverOverlap() throws Exception {
+    CountDownLatch startSignal = new CountDownLatch(1);
+    AtomicBoolean reservationsDone = new AtomicBoolean(false);
+
+    List<Future<List<TimeRange>>> reservers = new ArrayList<Future<List<TimeRange>>>();
+    for (int thread = 0; thread < THREAD_COUNT; thread++) {
+      Random random = new Random(thread);
+      reservers.add(
+          executor.submit(
+              () -> {
+                startSignal.await();
+                List<TimeRange> reserved = new ArrayList<TimeRange>();
+                for (int attempt = 0; attempt < 2000; attempt++) {
+                  int startMinute = random.nextInt(24 * 60 - 30);
+                  TimeRange slot =
+                      TimeRangeGroupTestUtil.range(
+                          startMinute, startMinute + 1 + random.nextInt(30));
+                  if (timeRangeGroup.tryReserve(slot)) {
+                    reserved.add(slot);
+                  }
+                }
+                return reserved;
+              }));
+    }
+    Future<Integer> reader =
+        executor.submit(
+            (Callable<Integer>)
+                () -> {
+                  startSignal.await();
+                  int reads = 0;
+                  while (!reservationsDone.get()) {
+                    for (TimeRange timeRange : timeRangeGroup) {
+                      timeRangeGroup.hasTimeRange(timeRange);
+                      reads++;
+                    }
+                  }
+                  return reads;
+                });
+
+    startSignal.countDown();
+    List<TimeRange> allReserved = new ArrayList<TimeRange>();
+    for (Future<List<TimeRange>> reserver : reservers) {
+      allReserved.addAll(reserver.get(60, TimeUnit.SECONDS));
+    }
+    reservationsDone.set(true);
+    reader.get(60, TimeUnit.SECONDS);
+
+    Collections.sort(allReserved, TimeRange.SORT_BY_START_TIME_ASCENDING);
+    for (int i = 1; i < allReserved.size(); i++) {
+      Assert.assertTrue(
+          allReserved.get(i - 1).endEpochSecond() <= allReserved.get(i).startEpochSecond());
+    }
+
+    long reservedSeconds = 0;
+    for (TimeRange reserved : allReserved) {
+      Assert.assertFalse(timeRangeGroup.hasTimeRange(reserved));
+      reservedSeconds += reserved.durationSeconds();
+    }
+    long freeSeconds = 0;
+    for (TimeRange free : timeRangeGroup) {
+      freeSeconds += free.durationSeconds();
+    }
+    Assert.assertEquals(24 * 60 * 60, reservedSeconds + freeSeconds);
+  }
+}
@@ -0,0 +1,157 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class DayBucketedTimeRangeGroupTest {
+  private static final Instant MIDNIGHT = Instant.parse("2020-06-26T00:00:00Z");
+  private static final long SECONDS_PER_DAY = 86400;
+
+  /** Tests that a range across several midnights is iterated as one range. */
+  @Test
+  public void testRangeAcrossMidnightsIsJoined() {
+    TimeRange timeRange =
+        TimeRange.fromStartEnd(MIDNIGHT.minusSeconds(3600), MIDNIGHT.plusSeconds(2 * 86400 + 60));
+    DayBucketedTimeRangeGroup group = new DayBucketedTimeRangeGroup(Arrays.asList(timeRange));
+
+    Assert.assertEquals(Arrays.asList(timeRange), TimeRangeGroupTestUtil.toList(group));
+    Assert.assertTrue(group.hasTimeRange(timeRange));
+    Assert.assertTrue(
+        group.hasTimeRange(
+            TimeRange.fromStartEnd(MIDNIGHT.minusSeconds(60), MIDNIGHT.plusSeconds(60))));
+  }
+
+  /** Tests that deleting across midnight leaves the pieces before and after on their days. */
+  @Test
+  public void testDeleteAcrossMidnight() {
+    DayBucketedTimeRangeGroup group =
+        new DayBucketedTimeRangeGroup(
+            Arrays.asList(
+                TimeRange.fromStartEnd(MIDNIGHT.minusSeconds(7200), MIDNIGHT.plusSeconds(7200))));
+
+    group.deleteTimeRange(
+        TimeRange.fromStartEnd(MIDNIGHT.minusSeconds(3600), MIDNIGHT.plusSeconds(3600)));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(MIDNIGHT.minusSeconds(7200), MIDNIGHT.minusSeconds(3600)),
+            TimeRange.fromStartEnd(MIDNIGHT.plusSeconds(3600), MIDNIGHT.plusSeconds(7200))),
+        TimeRangeGroupTestUtil.toList(group));
+  }
+
+  /** Tests that deleting a range that ends at midnight also deletes an instant at midnight. */
+  @Test
+  public void testDeleteEndingAtMidnightDeletesInstantAtMidnight() {
+    DayBucketedTimeRangeGroup group =
+        new DayBucketedTimeRangeGroup(Arrays.asList(TimeRange.fromStartEnd(MIDNIGHT, MIDNIGHT)));
+
+    group.deleteTimeRange(TimeRange.fromStartEnd(MIDNIGHT.minusSeconds(12 * 3600), MIDNIGHT));
+
+    Assert.assertEquals(Arrays.asList(), TimeRangeGroupTestUtil.toList(group));
+  }
+
+  /** Tests that deleting midnight from a range across it leaves two ranges that meet there. */
+  @Test
+  public void testDeleteMidnightSplitsRange() {
+    TimeRange before = TimeRange.fromStartEnd(MIDNIGHT.minusSeconds(18 * 3600), MIDNIGHT);
+    TimeRange after = TimeRange.fromStartEnd(MIDNIGHT, MIDNIGHT.plusSeconds(6 * 3600));
+    DayBucketedTimeRangeGroup group =
+        new DayBucketedTimeRangeGroup(
+            Arrays.asList(TimeRange.fromStartEnd(before.start(), after.end())));
+
+    group.deleteTimeRange(TimeRange.fromStartEnd(MIDNIGHT, MIDNIGHT));
+
+    Assert.assertEquals(Arrays.asList(before, after), TimeRangeGroupTestUtil.toList(group));
+    Assert.assertFalse(
+        group.hasTimeRange(
+            TimeRange.fromStartEnd(MIDNIGHT.minusSeconds(60), MIDNIGHT.plusSeconds(60))));
+
+    // Adding the instant back joins the two ranges again.
+    group.addTimeRange(TimeRange.fromStartEnd(MIDNIGHT, MIDNIGHT));
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(before.start(), after.end())),
+        TimeRangeGroupTestUtil.toList(group));
+  }
+
+  /**
+   * Tests that random changes that start or end at midnights, including single instants, give the
+   * same ranges as a flat group.
+   */
+  @Test
+  public void testMatchesFlatGroupAtMidnights() {
+    Random random = new Random(67);
+    DayBucketedTimeRangeGroup group = new DayBucketedTimeRangeGroup(Arrays.asList());
+    ArrayListTimeRangeGroup flatGroup = new ArrayListTimeRangeGroup(Arrays.asList());
+    long horizonStart = MIDNIGHT.getEpochSecond();
+
+    for (int i = 0; i < 5000; i++) {
+      // Every change is on a grid of six hours, so its ends often fall on midnight. Single instants
+      // are only deleted, and only at midnight, since inside a day the buckets merge the ranges
+      // left by deleting an instant the way LongArrayTimeRangeGroup does.
+      long start = horizonStart + random.nextInt(40) * SECONDS_PER_DAY / 4;
+      boolean isDelete = random.nextBoolean();
+      long length = random.nextInt(isDelete ? 6 : 5) * SECONDS_PER_DAY / 4;
+      if (!isDelete) {
+        length += SECONDS_PER_DAY / 4;
+      } else if (length == 0) {
+        start -= (start - horizonStart) % SECONDS_PER_DAY;
+      }
+      TimeRange timeRange = TimeRange.fromEpochSeconds(start, start + length);
+      if (isDelete) {
+        group.deleteTimeRange(timeRange);
+        flatGroup.deleteTimeRange(timeRange);
+      } else {
+        group.addTimeRange(timeRange);
+        flatGroup.addTimeRange(timeRange);
+      }
+      Assert.assertEquals(
+          TimeRangeGroupTestUtil.toList(flatGroup), TimeRangeGroupTestUtil.toList(group));
+      Assert.assertEquals(flatGroup.hasTimeRange(timeRange), group.hasTimeRange(timeRange));
+    }
+  }
+
+  /**
+   * Tests that random changes over a horizon of several months, added in no particular order of
+   * day, give the same ranges and total free durations as a flat group.
+   */
+  @Test
+  public void testMatchesFlatGroupOverMonths() {
+    Random random = new Random(61);
+    DayBucketedTimeRangeGroup group = new DayBucketedTimeRangeGroup(Arrays.asList());
+    LongArrayTimeRangeGroup flatGroup = new LongArrayTimeRangeGroup(Arrays.asList());
+    long horizonStart = MIDNIGHT.getEpochSecond();
+
+    for (int i = 0; i < 2000; i++) {
+      long start = horizonStart + random.nextInt((int) (120 * SECONDS_PER_DAY));
+      TimeRange timeRange =
+          TimeRange.fromEpochSeconds(start, start + 1 + random.nextInt((int) SECONDS_PER_DAY));
+      if (random.nextInt(3) == 0) {
+        group.deleteTimeRange(timeRange);
+        flatGroup.deleteTimeRange(timeRange);
+      } else {
+        group.addTimeRange(timeRange);
+        flatGroup.addTimeRange(timeRange);
+      }
+    }
+
+    Assert.assertEquals(
+        TimeRangeGroupTestUtil.toList(flatGroup), TimeRangeGroupTestUtil.toList(group));
+    for (int i = 0; i < 100; i++) {
+      Instant from = Instant.ofEpochSecond(horizonStart + random.nextInt(100 * 86400));
+      Instant to = from.plusSeconds(random.nextInt(20 * 86400));
+      Assert.assertEquals(flatGroup.totalFreeDuration(from, to), group.totalFreeDuration(from, to));
+      Assert.assertEquals(
+          TimeRangeGroupTestUtil.toList(flatGroup.subGroup(from, to)),
+          TimeRangeGroupTestUtil.toList(group.subGroup(from, to)));
+    }
+    Assert.assertEquals(
+        Duration.ZERO, group.totalFreeDuration(MIDNIGHT.minusSeconds(86400), MIDNIGHT));
+  }
+}
@@ -0,0 +1,96 @@
+package com.google.sps.data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares finding the events that overlap a one-hour window with the interval index of a
+ * CalendarEventsGroup against checking every event, on calendars with a few long events that nest
+ * many short ones. Run it with the benchmark profile:
+ *
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark.args=EventOverlapBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventOverlapBenchmark {
+  private static final Instant START = Instant.parse("2020-06-22T00:00:00Z");
+  private static final int QUERIES = 100;
+
+  /** A calendar of one year and the windows to query. */
+  @State(Scope.Benchmark)
+  public static class Calendar {
+    @Param({"1000", "10000", "100000"})
+    public int eventCount;
+
+    private CalendarEventsGroup group;
+    private Instant[] windowStarts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random random = new Random(61);
+      int yearSeconds = 365 * 24 * 3600;
+      List<CalendarEvent> events = new ArrayList<CalendarEvent>(eventCount);
+      for (int i = 0; i < eventCount; i++) {
+        Instant eventStart = START.plusSeconds(random.nextInt(yearSeconds));
+        // One event in a hundred lasts up to a month, the others up to two hours.
+        int duration =
+            random.nextInt(100) == 0 ? random.nextInt(30 * 24 * 3600) : random.nextInt(7200);
+        events.add(new CalendarEvent("event " + i, eventStart, eventStart.plusSeconds(duration)));
+      }
+      group = new CalendarEventsGroup(events, START, START.plusSeconds(yearSeconds));
+      group.eventsAt(START);
+
+      windowStarts = new Instant[QUERIES];
+      for (int i = 0; i < QUERIES; i++) {
+        windowStarts[i] = START.plusSeconds(random.nextInt(yearSeconds));
+      }
+    }
+  }
+
+  /** Finds the overlapping events with the interval index. */
+  @Benchmark
+  @OperationsPerInvocation(QUERIES)
+  public void index(Calendar calendar, Blackhole blackhole) {
+    for (Instant from : calendar.windowStarts) {
+      blackhole.consume(calendar.group.eventsOverlapping(from, from.plusSeconds(3600)));
+    }
+  }
+
+  /** Finds the overlapping events by checking every event. */
+  @Benchmark
+  @OperationsPerInvocation(QUERIES)
+  public void scan(Calendar calendar, Blackhole blackhole) {
+    for (Instant from : calendar.windowStarts) {
+      Instant to = from.plusSeconds(3600);
+      List<CalendarEvent> overlapping = new ArrayList<CalendarEvent>();
+      for (CalendarEvent event : calendar.group.events) {
+        if (event.getStartTime().isBefore(to) && event.getEndTime().isAfter(from)) {
+          overlapping.add(event);
+        }
+      }
+      blackhole.consume(overlapping);
+    }
+  }
+}
@@ -0,0 +1,143 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests for the parts of LongArrayTimeRangeGroup that are not covered by TimeRangeGroupTest, which
+ * runs the shared TimeRangeGroup tests against every implementation.
+ */
+@RunWith(JUnit4.class)
+public final class LongArrayTimeRangeGroupTest {
+
+  private static final Instant TIME_0900 = Instant.parse("2020-06-25T09:00:00Z");
+  private static final Instant TIME_1000 = Instant.parse("2020-06-25T10:00:00Z");
+  private static final Instant TIME_1100 = Instant.parse("2020-06-25T11:00:00Z");
+  private static final Instant TIME_1200 = Instant.parse("2020-06-25T12:00:00Z");
+
+  /** Makes sure the primitive accessors return the sorted, disjoint ranges. */
+  @Test
+  public void testPrimitiveAccessors() {
+    LongArrayTimeRangeGroup group =
+        new LongArrayTimeRangeGroup(
+            Arrays.asList(
+                TimeRange.fromStartEnd(TIME_1100, TIME_1200),
+                TimeRange.fromStartEnd(TIME_0900, TIME_1000)));
+
+    Assert.assertEquals(2, group.size());
+    Assert.assertEquals(TIME_0900.getEpochSecond(), group.startEpochSecondAt(0));
+    Assert.assertEquals(TIME_1000.getEpochSecond(), group.endEpochSecondAt(0));
+    Assert.assertEquals(TIME_1100.getEpochSecond(), group.startEpochSecondAt(1));
+    Assert.assertEquals(TIME_1200.getEpochSecond(), group.endEpochSecondAt(1));
+  }
+
+  /** Accessing an index outside of the group is invalid. */
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void testPrimitiveAccessorOutOfBounds() {
+    LongArrayTimeRangeGroup group =
+        new LongArrayTimeRangeGroup(Arrays.asList(TimeRange.fromStartEnd(TIME_0900, TIME_1000)));
+    group.startEpochSecondAt(1);
+  }
+
+  /**
+   * Splits one range into many pieces, so that the arrays have to grow past their initial capacity
+   * while ranges are shifted in place.
+   */
+  @Test
+  public void testSplitPastInitialCapacity() {
+    LongArrayTimeRangeGroup group =
+        new LongArrayTimeRangeGroup(Arrays.asList(TimeRange.fromStartEnd(TIME_0900, TIME_1200)));
+
+    // Deletes every other minute, from the last one to the first one.
+    List<TimeRange> expected = new ArrayList<TimeRange>();
+    for (int minute = 178; minute >= 0; minute -= 2) {
+      Instant deleteStart = TIME_0900.plusSeconds((minute + 1) * 60);
+      group.deleteTimeRange(TimeRange.fromStartEnd(deleteStart, deleteStart.plusSeconds(60)));
+      Instant keptStart = TIME_0900.plusSeconds(minute * 60);
+      expected.add(0, TimeRange.fromStartEnd(keptStart, keptStart.plusSeconds(60)));
+    }
+
+    Assert.assertEquals(90, group.size());
+    List<TimeRange> actual = new ArrayList<TimeRange>();
+    group.forEach(actual::add);
+    Assert.assertEquals(expected, actual);
+  }
+
+  /**
+   * Interleaves queries of the total free duration with every kind of change, the way a scheduler
+   * checks if a task is feasible before it takes the time. The group starts empty and grows past
+   * its initial capacity, so the Fenwick tree is updated through splits, merges, shifts, growth and
+   * bulk changes after it is first built, and every query must match the sum over the ranges.
+   */
+  @Test
+  public void testTotalFreeDurationInterleavedWithChanges() {
+    Random random = new Random(61);
+    long start = TIME_0900.getEpochSecond();
+    LongArrayTimeRangeGroup group = new LongArrayTimeRangeGroup(new ArrayList<TimeRange>());
+
+    for (int step = 0; step < 3000; step++) {
+      long fromSecond = start - 100 + random.nextInt(50000);
+      long toSecond = fromSecond + random.nextInt(10000);
+      Assert.assertEquals(
+          Duration.ofSeconds(sumOverRanges(group, fromSecond, toSecond)),
+          group.totalFreeDuration(
+              Instant.ofEpochSecond(fromSecond), Instant.ofEpochSecond(toSecond)));
+
+      long changeStart = start + random.nextInt(50000);
+      TimeRange timeRange =
+          TimeRange.fromEpochSeconds(changeStart, changeStart + 1 + random.nextInt(600));
+      int change = random.nextInt(20);
+      if (change == 0) {
+        group.addAll(Arrays.asList(timeRange, shifted(timeRange, 20000)));
+      } else if (change == 1) {
+        group.deleteAll(Arrays.asList(timeRange, shifted(timeRange, 20000)));
+      } else if (change < 11) {
+        group.addTimeRange(timeRange);
+      } else {
+        group.deleteTimeRange(timeRange);
+      }
+    }
+  }
+
+  /** Changing the group while iterating over it is invalid. */
+  @Test(expected = ConcurrentModificationException.class)
+  public void testModifyWhileIterating() {
+    LongArrayTimeRangeGroup group =
+        new LongArrayTimeRangeGroup(
+            Arrays.asList(
+                TimeRange.fromStartEnd(TIME_0900, TIME_1000),
+                TimeRange.fromStartEnd(TIME_1100, TIME_1200)));
+    Iterator<TimeRange> iterator = group.iterator();
+    iterator.next();
+    group.deleteTimeRange(TimeRange.fromStartEnd(TIME_1100, TIME_1200));
+    iterator.next();
+  }
+
+  private static TimeRange shifted(TimeRange timeRange, long seconds) {
+    return TimeRange.fromEpochSeconds(
+        timeRange.startEpochSecond() + seconds, timeRange.endEpochSecond() + seconds);
+  }
+
+  /** Returns the length of the parts of the ranges inside the window, summed over every range. */
+  private static long sumOverRanges(TimeRangeGroup group, long fromSecond, long toSecond) {
+    long totalSeconds = 0;
+    for (TimeRange timeRange : group) {
+      totalSeconds +=
+          Math.max(
+              0,
+              Math.min(timeRange.endEpochSecond(), toSecond)
+                  - Math.max(timeRange.startEpochSecond(), fromSecond));
+    }
+    return totalSeconds;
+  }
+}
@@ -0,0 +1,48 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests the max-gap tree against the array list implementation, whose plain scans are the reference
+ * for both the time ranges and the fit searches.
+ */
+@RunWith(JUnit4.class)
+public final class MaxGapTreeTimeRangeGroupTest {
+  private static final long START_SECOND = 1593043200L;
+
+  /**
+   * Tests that a long random sequence of additions and deletions keeps the tree in the same state
+   * as the array list implementation, and that every fit search agrees with the linear scan.
+   */
+  @Test
+  public void testMatchesArrayListAfterRandomOperations() {
+    Random random = new Random(61);
+    TimeRangeGroup expected = new ArrayListTimeRangeGroup(Arrays.asList());
+    TimeRangeGroup actual = new MaxGapTreeTimeRangeGroup(Arrays.asList());
+
+    for (int operation = 0; operation < 2000; operation++) {
+      long start = START_SECOND + random.nextInt(100000);
+      long end = start + 1 + random.nextInt(3000);
+      TimeRange timeRange = TimeRange.fromEpochSeconds(start, end);
+      if (random.nextInt(3) == 0) {
+        expected.deleteTimeRange(timeRange);
+        actual.deleteTimeRange(timeRange);
+      } else {
+        expected.addTimeRange(timeRange);
+        actual.addTimeRange(timeRange);
+      }
+
+      Assert.assertEquals(
+          TimeRangeGroupTestUtil.toList(expected), TimeRangeGroupTestUtil.toList(actual));
+      Duration duration = Duration.ofSeconds(random.nextInt(4000));
+      Assert.assertEquals(expected.findFirstFit(duration), actual.findFirstFit(duration));
+      Assert.assertEquals(expected.findBestFit(duration), actual.findBestFit(duration));
+    }
+  }
+}
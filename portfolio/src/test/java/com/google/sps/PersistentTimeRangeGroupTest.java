@@ -0,0 +1,110 @@
+package com.google.sps.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests that the versions of a persistent group never affect each other. */
+@RunWith(JUnit4.class)
+public final class PersistentTimeRangeGroupTest {
+  /** Tests that with and without return new versions and leave the original group unchanged. */
+  @Test
+  public void testWithAndWithoutLeaveOriginalUnchanged() {
+    PersistentTimeRangeGroup original =
+        new PersistentTimeRangeGroup(
+            Arrays.asList(
+                TimeRangeGroupTestUtil.range(0, 60), TimeRangeGroupTestUtil.range(120, 180)));
+
+    PersistentTimeRangeGroup added = original.with(TimeRangeGroupTestUtil.range(50, 130));
+    PersistentTimeRangeGroup deleted = original.without(TimeRangeGroupTestUtil.range(10, 20));
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(0, 60), TimeRangeGroupTestUtil.range(120, 180)),
+        TimeRangeGroupTestUtil.toList(original));
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(0, 180)), TimeRangeGroupTestUtil.toList(added));
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRangeGroupTestUtil.range(0, 10),
+            TimeRangeGroupTestUtil.range(20, 60),
+            TimeRangeGroupTestUtil.range(120, 180)),
+        TimeRangeGroupTestUtil.toList(deleted));
+  }
+
+  /** Tests that changing a fork does not change the group it was forked from, or the reverse. */
+  @Test
+  public void testForksAreIndependent() {
+    PersistentTimeRangeGroup original =
+        new PersistentTimeRangeGroup(Arrays.asList(TimeRangeGroupTestUtil.range(0, 60)));
+    PersistentTimeRangeGroup fork = original.fork();
+
+    fork.deleteTimeRange(TimeRangeGroupTestUtil.range(0, 30));
+    original.addTimeRange(TimeRangeGroupTestUtil.range(90, 100));
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(0, 60), TimeRangeGroupTestUtil.range(90, 100)),
+        TimeRangeGroupTestUtil.toList(original));
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(30, 60)), TimeRangeGroupTestUtil.toList(fork));
+  }
+
+  /** Tests that an iterator keeps walking the version it was created from. */
+  @Test
+  public void testIteratorIsSnapshot() {
+    PersistentTimeRangeGroup group =
+        new PersistentTimeRangeGroup(
+            Arrays.asList(
+                TimeRangeGroupTestUtil.range(0, 10), TimeRangeGroupTestUtil.range(20, 30)));
+
+    List<TimeRange> iterated = new ArrayList<TimeRange>();
+    for (TimeRange timeRange : group) {
+      group.deleteTimeRange(TimeRangeGroupTestUtil.range(0, 30));
+      iterated.add(timeRange);
+    }
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(0, 10), TimeRangeGroupTestUtil.range(20, 30)),
+        iterated);
+    Assert.assertEquals(Arrays.asList(), TimeRangeGroupTestUtil.toList(group));
+  }
+
+  /**
+   * Tests that a random tree of versions, where each version is made from an earlier random one,
+   * matches array list groups that are copied at every step.
+   */
+  @Test
+  public void testRandomVersionsMatchCopies() {
+    Random random = new Random(61);
+    List<PersistentTimeRangeGroup> versions = new ArrayList<PersistentTimeRangeGroup>();
+    List<List<TimeRange>> expectedVersions = new ArrayList<List<TimeRange>>();
+    versions.add(new PersistentTimeRangeGroup(Arrays.asList()));
+    expectedVersions.add(new ArrayList<TimeRange>());
+
+    for (int step = 0; step < 1000; step++) {
+      int parent = random.nextInt(versions.size());
+      int start = random.nextInt(10000);
+      TimeRange timeRange = TimeRangeGroupTestUtil.range(start, start + 1 + random.nextInt(300));
+
+      TimeRangeGroup expected = new ArrayListTimeRangeGroup(expectedVersions.get(parent));
+      PersistentTimeRangeGroup version;
+      if (random.nextInt(3) == 0) {
+        expected.deleteTimeRange(timeRange);
+        version = versions.get(parent).without(timeRange);
+      } else {
+        expected.addTimeRange(timeRange);
+        version = versions.get(parent).with(timeRange);
+      }
+      versions.add(version);
+      expectedVersions.add(TimeRangeGroupTestUtil.toList(expected));
+    }
+
+    for (int i = 0; i < versions.size(); i++) {
+      Assert.assertEquals(expectedVersions.get(i), TimeRangeGroupTestUtil.toList(versions.get(i)));
+    }
+  }
+}
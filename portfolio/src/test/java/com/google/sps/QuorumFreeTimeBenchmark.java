@@ -0,0 +1,88 @@
+package com.google.sps.data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures finding the times when at least k attendees of a team are free, for teams of up to 1000
+ * attendees with about 20 events each over one week. Run it with the benchmark profile:
+ *
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark.args=QuorumFreeTimeBenchmark
+ * </pre>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuorumFreeTimeBenchmark {
+  private static final Instant START = Instant.parse("2020-06-22T00:00:00Z");
+  private static final int EVENTS_PER_ATTENDEE = 20;
+
+  /** The calendars of a team. */
+  @State(Scope.Benchmark)
+  public static class Team {
+    @Param({"10", "100", "1000"})
+    public int attendeeCount;
+
+    private List<CalendarEventsGroup> attendees;
+    private List<TimeRangeGroup> freeTimeRangeGroups;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+      Random random = new Random(61);
+      Instant end = START.plusSeconds(7 * 24 * 3600);
+      attendees = new ArrayList<CalendarEventsGroup>(attendeeCount);
+      freeTimeRangeGroups = new ArrayList<TimeRangeGroup>(attendeeCount);
+      for (int i = 0; i < attendeeCount; i++) {
+        List<CalendarEvent> events = new ArrayList<CalendarEvent>();
+        for (int j = 0; j < EVENTS_PER_ATTENDEE; j++) {
+          // Meetings of 30 minutes to 2 hours, starting on the half hour.
+          Instant eventStart = START.plusSeconds(random.nextInt(7 * 48) * 1800L);
+          events.add(
+              new CalendarEvent(
+                  "event " + j,
+                  eventStart,
+                  eventStart.plusSeconds((1 + random.nextInt(4)) * 1800L)));
+        }
+        CalendarEventsGroup attendee = new CalendarEventsGroup(events, START, end);
+        attendees.add(attendee);
+        freeTimeRangeGroups.add(new ArrayListTimeRangeGroup(attendee.getFreeTimeRanges()));
+      }
+    }
+  }
+
+  /** Finds the times when at least half of the team is free. */
+  @Benchmark
+  public TimeRangeGroup halfFree(Team team) {
+    return TimeRangeGroups.freeForAtLeast(team.attendees, team.attendeeCount / 2);
+  }
+
+  /** Finds the times when the whole team is free with the counting sweep. */
+  @Benchmark
+  public TimeRangeGroup allFreeBySweep(Team team) {
+    return TimeRangeGroups.freeForAtLeast(team.attendees, team.attendeeCount);
+  }
+
+  /** Finds the times when the whole team is free by intersecting the groups pairwise. */
+  @Benchmark
+  public TimeRangeGroup allFreeByPairwiseIntersection(Team team) {
+    return TimeRangeGroups.intersection(team.freeTimeRangeGroups);
+  }
+}
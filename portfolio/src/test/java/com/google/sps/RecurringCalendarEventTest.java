@@ -0,0 +1,167 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class RecurringCalendarEventTest {
+  // Thursday, 25 June 2020, 00:00 UTC.
+  private static final Instant START = Instant.ofEpochSecond(1593043200L);
+
+  /** Tests that a daily event with a count stops after that many occurrences. */
+  @Test
+  public void testDailyWithCount() {
+    RecurringCalendarEvent event =
+        recurringEvent(
+            new RecurrenceRule(RecurrenceRule.Frequency.DAILY, 1, 3, null, null), START, 3600);
+
+    Assert.assertEquals(
+        Arrays.asList(START, START.plus(Duration.ofDays(1)), START.plus(Duration.ofDays(2))),
+        startsOf(event.occurrencesBetween(START, START.plus(Duration.ofDays(30)))));
+  }
+
+  /** Tests that a weekly event stops at its until time, which is inclusive. */
+  @Test
+  public void testWeeklyWithUntil() {
+    RecurringCalendarEvent event =
+        recurringEvent(
+            new RecurrenceRule(
+                RecurrenceRule.Frequency.WEEKLY, 2, null, START.plus(Duration.ofDays(28)), null),
+            START,
+            3600);
+
+    Assert.assertEquals(
+        Arrays.asList(START, START.plus(Duration.ofDays(14)), START.plus(Duration.ofDays(28))),
+        startsOf(event.occurrencesBetween(START, START.plus(Duration.ofDays(365)))));
+  }
+
+  /** Tests that a monthly event on the 31st skips the months that have no 31st. */
+  @Test
+  public void testMonthlySkipsShortMonths() {
+    Instant january31 = Instant.parse("2020-01-31T10:00:00Z");
+    RecurringCalendarEvent event =
+        recurringEvent(
+            new RecurrenceRule(RecurrenceRule.Frequency.MONTHLY, 1, 3, null, null),
+            january31,
+            3600);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            january31,
+            Instant.parse("2020-03-31T10:00:00Z"),
+            Instant.parse("2020-05-31T10:00:00Z")),
+        startsOf(event.occurrencesBetween(january31, Instant.parse("2021-01-01T00:00:00Z"))));
+  }
+
+  /** Tests that cancelled occurrences are left out but still count towards the count. */
+  @Test
+  public void testExceptions() {
+    RecurringCalendarEvent event =
+        recurringEvent(
+            new RecurrenceRule(
+                RecurrenceRule.Frequency.DAILY,
+                1,
+                3,
+                null,
+                Collections.singletonList(START.plus(Duration.ofDays(1)))),
+            START,
+            3600);
+
+    Assert.assertEquals(
+        Arrays.asList(START, START.plus(Duration.ofDays(2))),
+        startsOf(event.occurrencesBetween(START, START.plus(Duration.ofDays(30)))));
+  }
+
+  /**
+   * Tests that only the occurrences that overlap the window are generated, including one that
+   * started before the window, even when the event has repeated for years before it.
+   */
+  @Test
+  public void testOnlyOccurrencesInWindow() {
+    RecurringCalendarEvent event =
+        recurringEvent(
+            new RecurrenceRule(RecurrenceRule.Frequency.DAILY, 1, null, null, null), START, 7200);
+    Instant windowStart = START.plus(Duration.ofDays(3650)).plusSeconds(3600);
+    Instant windowEnd = windowStart.plus(Duration.ofDays(2));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            START.plus(Duration.ofDays(3650)),
+            START.plus(Duration.ofDays(3651)),
+            START.plus(Duration.ofDays(3652))),
+        startsOf(event.occurrencesBetween(windowStart, windowEnd)));
+  }
+
+  /**
+   * Tests that a group with recurring events has the same events and free time as a group with
+   * their occurrences expanded by hand.
+   */
+  @Test
+  public void testGroupMatchesExpandedOccurrences() {
+    Instant overallStartTime = START.plus(Duration.ofDays(7));
+    Instant overallEndTime = overallStartTime.plus(Duration.ofDays(7));
+    RecurringCalendarEvent standup =
+        recurringEvent(
+            new RecurrenceRule(RecurrenceRule.Frequency.DAILY, 1, null, null, null),
+            START.plusSeconds(9 * 3600),
+            900);
+    RecurringCalendarEvent review =
+        recurringEvent(
+            new RecurrenceRule(RecurrenceRule.Frequency.WEEKLY, 1, null, null, null),
+            START.plusSeconds(9 * 3600 + 600),
+            3600);
+    CalendarEvent lunch =
+        new CalendarEvent(
+            "lunch",
+            overallStartTime.plusSeconds(12 * 3600),
+            overallStartTime.plusSeconds(13 * 3600));
+
+    CalendarEventsGroup group =
+        new CalendarEventsGroup(
+            Arrays.asList(lunch), Arrays.asList(standup, review), overallStartTime, overallEndTime);
+
+    List<CalendarEvent> expandedEvents = new ArrayList<CalendarEvent>();
+    expandedEvents.add(lunch);
+    for (int day = 7; day < 14; day++) {
+      Instant standupStart = START.plus(Duration.ofDays(day)).plusSeconds(9 * 3600);
+      expandedEvents.add(new CalendarEvent("standup", standupStart, standupStart.plusSeconds(900)));
+    }
+    for (int day = 7; day < 14; day += 7) {
+      Instant reviewStart = START.plus(Duration.ofDays(day)).plusSeconds(9 * 3600 + 600);
+      expandedEvents.add(new CalendarEvent("review", reviewStart, reviewStart.plusSeconds(3600)));
+    }
+    CalendarEventsGroup expandedGroup =
+        new CalendarEventsGroup(expandedEvents, overallStartTime, overallEndTime);
+
+    Assert.assertEquals(expandedGroup.events, group.events);
+    Assert.assertEquals(expandedGroup.getFreeTimeRanges(), group.getFreeTimeRanges());
+  }
+
+  /** Tests that a recurrence rule needs an interval of at least 1. */
+  @Test(expected = IllegalArgumentException.class)
+  public void testZeroInterval() {
+    new RecurrenceRule(RecurrenceRule.Frequency.DAILY, 0, null, null, null);
+  }
+
+  private static RecurringCalendarEvent recurringEvent(
+      RecurrenceRule rule, Instant start, long durationSeconds) {
+    String name = rule.getFrequency() == RecurrenceRule.Frequency.WEEKLY ? "review" : "standup";
+    return new RecurringCalendarEvent(name, start, start.plusSeconds(durationSeconds), rule);
+  }
+
+  private static List<Instant> startsOf(Iterable<CalendarEvent> occurrences) {
+    List<Instant> starts = new ArrayList<Instant>();
+    for (CalendarEvent occurrence : occurrences) {
+      starts.add(occurrence.getStartTime());
+    }
+    return starts;
+  }
+}
@@ -0,0 +1,138 @@
+package com.google.sps.data;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class SizeClassTimeRangeGroupTest {
+  private static final long START = 1593043200L;
+
+  /** Tests that each size class holds the lengths from one power of two of minutes to the next. */
+  @Test
+  public void testSizeClass() {
+    Assert.assertEquals(0, SizeClassTimeRangeGroup.sizeClass(0));
+    Assert.assertEquals(0, SizeClassTimeRangeGroup.sizeClass(59));
+    Assert.assertEquals(1, SizeClassTimeRangeGroup.sizeClass(60));
+    Assert.assertEquals(1, SizeClassTimeRangeGroup.sizeClass(119));
+    Assert.assertEquals(2, SizeClassTimeRangeGroup.sizeClass(120));
+    Assert.assertEquals(2, SizeClassTimeRangeGroup.sizeClass(239));
+    Assert.assertEquals(3, SizeClassTimeRangeGroup.sizeClass(240));
+    Assert.assertEquals(6, SizeClassTimeRangeGroup.sizeClass(3600));
+  }
+
+  /** Tests that a best fit inside the duration's own size class is preferred to a larger range. */
+  @Test
+  public void testFindBestFitInSameClass() {
+    SizeClassTimeRangeGroup group =
+        new SizeClassTimeRangeGroup(
+            new ArrayListTimeRangeGroup(
+                Arrays.asList(
+                    TimeRange.fromEpochSeconds(START, START + 7200),
+                    TimeRange.fromEpochSeconds(START + 10000, START + 10000 + 2000),
+                    TimeRange.fromEpochSeconds(START + 20000, START + 20000 + 1900))));
+
+    Assert.assertEquals(
+        Optional.of(TimeRange.fromEpochSeconds(START + 20000, START + 20000 + 1900)),
+        group.findBestFit(Duration.ofSeconds(1800)));
+    Assert.assertEquals(
+        Optional.of(TimeRange.fromEpochSeconds(START, START + 7200)),
+        group.findFirstFit(Duration.ofSeconds(1800)));
+    Assert.assertEquals(
+        Optional.of(TimeRange.fromEpochSeconds(START + 10000, START + 10000 + 2000)),
+        group.findBestFit(Duration.ofSeconds(1950)));
+    Assert.assertEquals(Optional.empty(), group.findBestFit(Duration.ofSeconds(7201)));
+  }
+
+  /**
+   * Tests that, after random changes through the wrapper, the index finds the same first and best
+   * fits as scanning every range.
+   */
+  @Test
+  public void testFitsMatchScanAfterRandomChanges() {
+    Random random = new Random(61);
+    SizeClassTimeRangeGroup group =
+        new SizeClassTimeRangeGroup(new LongArrayTimeRangeGroup(randomTimeRanges(random, 100)));
+
+    for (TimeRange timeRange : randomTimeRanges(random, 500)) {
+      if (random.nextBoolean()) {
+        group.addTimeRange(timeRange);
+      } else {
+        group.deleteTimeRange(timeRange);
+      }
+
+      Duration duration = Duration.ofSeconds(random.nextInt(4000));
+      Assert.assertEquals(scanFirstFit(group, duration), group.findFirstFit(duration));
+      Assert.assertEquals(scanBestFit(group, duration), group.findBestFit(duration));
+    }
+  }
+
+  /**
+   * Tests the fits when every range is in the same size class, like a calendar of half-hour gaps,
+   * where a scan of the bucket would be a scan of the whole group. The fits must still match
+   * scanning every range, while the tasks are placed one after another.
+   */
+  @Test
+  public void testFitsMatchScanWhenAllRangesShareOneClass() {
+    Random random = new Random(61);
+    List<TimeRange> timeRanges = new ArrayList<TimeRange>();
+    for (int i = 0; i < 2000; i++) {
+      // Every length is from 16 minutes to just under 32 minutes, which is class 5.
+      long start = START + i * 4000L;
+      timeRanges.add(TimeRange.fromEpochSeconds(start, start + 960 + random.nextInt(960)));
+    }
+    SizeClassTimeRangeGroup group =
+        new SizeClassTimeRangeGroup(new ArrayListTimeRangeGroup(timeRanges));
+
+    for (int i = 0; i < 1000; i++) {
+      Duration duration = Duration.ofSeconds(900 + random.nextInt(1100));
+      Optional<TimeRange> bestFit = group.findBestFit(duration);
+      Assert.assertEquals(scanFirstFit(group, duration), group.findFirstFit(duration));
+      Assert.assertEquals(scanBestFit(group, duration), bestFit);
+
+      // Places a task at the start of the best fit, leaving the rest of the gap free.
+      if (bestFit.isPresent()) {
+        long taskStart = bestFit.get().startEpochSecond();
+        group.deleteTimeRange(
+            TimeRange.fromEpochSeconds(taskStart, taskStart + duration.getSeconds()));
+      }
+    }
+  }
+
+  private static Optional<TimeRange> scanFirstFit(TimeRangeGroup group, Duration duration) {
+    for (TimeRange timeRange : group) {
+      if (timeRange.canFit(duration)) {
+        return Optional.of(timeRange);
+      }
+    }
+    return Optional.empty();
+  }
+
+  private static Optional<TimeRange> scanBestFit(TimeRangeGroup group, Duration duration) {
+    TimeRange bestFit = null;
+    for (TimeRange timeRange : group) {
+      if (timeRange.canFit(duration)
+          && (bestFit == null || timeRange.durationSeconds() < bestFit.durationSeconds())) {
+        bestFit = timeRange;
+      }
+    }
+    return Optional.ofNullable(bestFit);
+  }
+
+  /** Returns random time ranges of positive length, in no particular order. */
+  private static List<TimeRange> randomTimeRanges(Random random, int count) {
+    List<TimeRange> timeRanges = new ArrayList<TimeRange>();
+    for (int i = 0; i < count; i++) {
+      long start = START + random.nextInt(100000);
+      timeRanges.add(TimeRange.fromEpochSeconds(start, start + 1 + random.nextInt(3000)));
+    }
+    return timeRanges;
+  }
+}
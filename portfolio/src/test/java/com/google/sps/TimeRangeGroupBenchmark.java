@@ -0,0 +1,185 @@
+package com.google.sps.data;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures the throughput of every TimeRangeGroup implementation for the workloads of the
+ * schedulers, at sizes from 10 to 1,000,000 disjoint ranges. Run it with the benchmark profile,
+ * which adds the GC profiler so the allocation rate is reported next to the throughput:
+ *
+ * <pre>
+ * mvn -P benchmark test-compile exec:exec -Dbenchmark.args="TimeRangeGroupBenchmark -p size=1000"
+ * </pre>
+ *
+ * <p>The changing workloads run {@link #OPERATIONS} changes on a group rebuilt with {@code size}
+ * ranges before every invocation, so the group has the same size each time and the rebuild is not
+ * measured. Implementations are named by their simple class name, and any class in the package with
+ * a constructor that takes an Iterable of time ranges can be given with {@code -p implementation}.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeRangeGroupBenchmark {
+  static final int OPERATIONS = 1000;
+
+  private static final long START = 1593043200L;
+
+  // Every range is followed by a gap of the same length.
+  private static final long RANGE_LENGTH = 60;
+  private static final long PERIOD = 2 * RANGE_LENGTH;
+
+  /** The implementation and size under test, and the ranges and probes of the workloads. */
+  @State(Scope.Benchmark)
+  public static class Workload {
+    @Param({
+      "ArrayListTimeRangeGroup",
+      "LinkedListTimeRangeGroup",
+      "TreeMapTimeRangeGroup",
+      "LongArrayTimeRangeGroup",
+      "MaxGapTreeTimeRangeGroup",
+      "ConcurrentSkipListTimeRangeGroup",
+      "PersistentTimeRangeGroup",
+      "DayBucketedTimeRangeGroup",
+      "AdaptiveTimeRangeGroup"
+    })
+    public String implementation;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int size;
+
+    private Constructor<?> constructor;
+    private List<TimeRange> timeRanges;
+    private TimeRange[] appendedTimeRanges;
+    private TimeRange[] overlappingTimeRanges;
+    private TimeRange[] smallTimeRanges;
+    private TimeRange[] probes;
+
+    // Only read, so it is built once for the whole run.
+    private TimeRangeGroup group;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+      constructor =
+          Class.forName(TimeRangeGroup.class.getPackage().getName() + "." + implementation)
+              .getConstructor(Iterable.class);
+
+      timeRanges = new ArrayList<TimeRange>(size);
+      for (int i = 0; i < size; i++) {
+        timeRanges.add(rangeAt(i, 0, RANGE_LENGTH));
+      }
+
+      Random random = new Random(61);
+      appendedTimeRanges = new TimeRange[OPERATIONS];
+      overlappingTimeRanges = new TimeRange[OPERATIONS];
+      smallTimeRanges = new TimeRange[OPERATIONS];
+      probes = new TimeRange[OPERATIONS];
+      for (int i = 0; i < OPERATIONS; i++) {
+        appendedTimeRanges[i] = rangeAt(size + i, 0, RANGE_LENGTH);
+
+        // Starts inside a range and ends inside the next one, so it merges the two.
+        overlappingTimeRanges[i] =
+            rangeAt(random.nextInt(size), RANGE_LENGTH / 2, PERIOD + RANGE_LENGTH / 2);
+
+        // A task of a few seconds inside a range, which splits the range in two.
+        long offset = 1 + random.nextInt((int) RANGE_LENGTH - 11);
+        smallTimeRanges[i] = rangeAt(random.nextInt(size), offset, offset + 10);
+
+        // Half of the probes are free and half cross into a gap.
+        long probeStart = random.nextInt((int) RANGE_LENGTH);
+        probes[i] =
+            rangeAt(random.nextInt(size), probeStart, random.nextBoolean() ? RANGE_LENGTH : PERIOD);
+      }
+      group = newGroup();
+    }
+
+    /** Returns a new group of the implementation under test with {@code size} ranges. */
+    TimeRangeGroup newGroup() throws ReflectiveOperationException {
+      return (TimeRangeGroup) constructor.newInstance(timeRanges);
+    }
+
+    private static TimeRange rangeAt(long index, long startOffset, long endOffset) {
+      long periodStart = START + index * PERIOD;
+      return TimeRange.fromEpochSeconds(periodStart + startOffset, periodStart + endOffset);
+    }
+  }
+
+  /** A group with {@code size} ranges that is rebuilt before every invocation. */
+  @State(Scope.Thread)
+  public static class FreshGroup {
+    private TimeRangeGroup group;
+
+    @Setup(Level.Invocation)
+    public void setUp(Workload workload) throws ReflectiveOperationException {
+      group = workload.newGroup();
+    }
+  }
+
+  /** Adds ranges after the last range, one at a time. */
+  @Benchmark
+  @OperationsPerInvocation(OPERATIONS)
+  public TimeRangeGroup sequentialInserts(Workload workload, FreshGroup freshGroup) {
+    for (TimeRange timeRange : workload.appendedTimeRanges) {
+      freshGroup.group.addTimeRange(timeRange);
+    }
+    return freshGroup.group;
+  }
+
+  /** Adds ranges at random places, each one merging two neighbouring ranges. */
+  @Benchmark
+  @OperationsPerInvocation(OPERATIONS)
+  public TimeRangeGroup randomOverlappingInserts(Workload workload, FreshGroup freshGroup) {
+    for (TimeRange timeRange : workload.overlappingTimeRanges) {
+      freshGroup.group.addTimeRange(timeRange);
+    }
+    return freshGroup.group;
+  }
+
+  /** Deletes short ranges at random places, the way a scheduler takes time for its tasks. */
+  @Benchmark
+  @OperationsPerInvocation(OPERATIONS)
+  public TimeRangeGroup smallDeletes(Workload workload, FreshGroup freshGroup) {
+    for (TimeRange timeRange : workload.smallTimeRanges) {
+      freshGroup.group.deleteTimeRange(timeRange);
+    }
+    return freshGroup.group;
+  }
+
+  /** Checks if ranges at random places are in the group. */
+  @Benchmark
+  @OperationsPerInvocation(OPERATIONS)
+  public void hasTimeRangeProbes(Workload workload, Blackhole blackhole) {
+    for (TimeRange probe : workload.probes) {
+      blackhole.consume(workload.group.hasTimeRange(probe));
+    }
+  }
+
+  /** Iterates over every range of the group. */
+  @Benchmark
+  public long fullIteration(Workload workload) {
+    long totalSeconds = 0;
+    for (TimeRange timeRange : workload.group) {
+      totalSeconds += timeRange.durationSeconds();
+    }
+    return totalSeconds;
+  }
+}
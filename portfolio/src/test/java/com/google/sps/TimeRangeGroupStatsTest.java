@@ -0,0 +1,105 @@
+package com.google.sps.data;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+@RunWith(JUnit4.class)
+public final class TimeRangeGroupStatsTest {
+  private static final long START = 1593043200L;
+
+  private static final TimeRange RANGE_0_TO_100 = TimeRange.fromEpochSeconds(START, START + 100);
+  private static final TimeRange RANGE_200_TO_300 =
+      TimeRange.fromEpochSeconds(START + 200, START + 300);
+  private static final TimeRange RANGE_400_TO_500 =
+      TimeRange.fromEpochSeconds(START + 400, START + 500);
+
+  /** Tests that nothing is counted until statistics are enabled. */
+  @Test
+  public void testDisabledByDefault() {
+    ArrayListTimeRangeGroup group = new ArrayListTimeRangeGroup(Collections.emptyList());
+    group.addTimeRange(RANGE_0_TO_100);
+    group.hasTimeRange(RANGE_0_TO_100);
+
+    Assert.assertFalse(group.isStatsEnabled());
+    assertStats(group.stats(), 0, 0, 0, 0);
+  }
+
+  /** Tests the counts of single adds, lookups and deletes on an ArrayList group. */
+  @Test
+  public void testArrayListCounts() {
+    ArrayListTimeRangeGroup group = new ArrayListTimeRangeGroup(Collections.emptyList());
+    group.setStatsEnabled(true);
+
+    group.addTimeRange(RANGE_0_TO_100);
+    group.addTimeRange(RANGE_200_TO_300);
+    group.addTimeRange(RANGE_400_TO_500);
+    group.hasTimeRange(RANGE_200_TO_300);
+    group.deleteTimeRange(RANGE_200_TO_300);
+
+    TimeRangeGroupStats stats = group.stats();
+    assertStats(stats, 3, 1, 1, 3);
+    Assert.assertTrue(stats.getComparisons() > 0);
+    // The list is changed in place, so the adds at its end move nothing, and the delete only
+    // shifts the range after the deleted one.
+    Assert.assertEquals(1, stats.getRangesCopied());
+  }
+
+  /** Tests that a LinkedList group relinks its nodes instead of copying ranges. */
+  @Test
+  public void testLinkedListCopiesNothing() {
+    LinkedListTimeRangeGroup group = new LinkedListTimeRangeGroup(Collections.emptyList());
+    group.setStatsEnabled(true);
+
+    group.addTimeRange(RANGE_400_TO_500);
+    group.addTimeRange(RANGE_0_TO_100);
+    group.addTimeRange(RANGE_200_TO_300);
+    group.hasTimeRange(RANGE_400_TO_500);
+    group.deleteTimeRange(RANGE_0_TO_100);
+
+    TimeRangeGroupStats stats = group.stats();
+    assertStats(stats, 3, 1, 1, 3);
+    Assert.assertEquals(0, stats.getRangesCopied());
+    // The lookup walks past all three ranges.
+    Assert.assertTrue(stats.getComparisons() >= 3);
+  }
+
+  /** Tests that bulk changes count every range they add or delete. */
+  @Test
+  public void testBulkCounts() {
+    ArrayListTimeRangeGroup group = new ArrayListTimeRangeGroup(Collections.emptyList());
+    group.setStatsEnabled(true);
+
+    group.addAll(Arrays.asList(RANGE_0_TO_100, RANGE_200_TO_300, RANGE_400_TO_500));
+    group.deleteAll(Arrays.asList(RANGE_0_TO_100, RANGE_400_TO_500));
+
+    assertStats(group.stats(), 3, 2, 0, 3);
+  }
+
+  /** Tests that enabling starts from the current size and that disabling drops the counts. */
+  @Test
+  public void testEnableAndDisable() {
+    ArrayListTimeRangeGroup group =
+        new ArrayListTimeRangeGroup(Arrays.asList(RANGE_0_TO_100, RANGE_200_TO_300));
+    group.setStatsEnabled(true);
+    assertStats(group.stats(), 0, 0, 0, 2);
+
+    group.deleteTimeRange(RANGE_0_TO_100);
+    group.setStatsEnabled(false);
+    group.addTimeRange(RANGE_0_TO_100);
+
+    Assert.assertFalse(group.isStatsEnabled());
+    assertStats(group.stats(), 0, 0, 0, 0);
+  }
+
+  private static void assertStats(
+      TimeRangeGroupStats stats, long adds, long deletes, long lookups, long peakSize) {
+    Assert.assertEquals(adds, stats.getAdds());
+    Assert.assertEquals(deletes, stats.getDeletes());
+    Assert.assertEquals(lookups, stats.getLookups());
+    Assert.assertEquals(peakSize, stats.getPeakSize());
+  }
+}
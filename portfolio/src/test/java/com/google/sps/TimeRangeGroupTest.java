@@ -2,6 +2,7 @@ package com.google.sps.data;
 
 import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
+import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -9,6 +10,12 @@ import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -21,20 +28,34 @@ import org.junit.runners.Parameterized.Parameters;
 public class TimeRangeGroupTest {
   @Parameters
   public static List parameters() {
-    return Arrays.asList(ArrayListTimeRangeGroup.class, LinkedListTimeRangeGroup.class);
+    return Arrays.asList(
+        ArrayListTimeRangeGroup.class,
+        LinkedListTimeRangeGroup.class,
+        TreeMapTimeRangeGroup.class,
+        LongArrayTimeRangeGroup.class,
+        MaxGapTreeTimeRangeGroup.class,
+        ConcurrentSkipListTimeRangeGroup.class,
+        PersistentTimeRangeGroup.class,
+        DayBucketedTimeRangeGroup.class,
+        AdaptiveTimeRangeGroup.class);
   }
 
   @Parameter public Class timeRangeGroupClass;
-  private AbstractListTimeRangeGroup timeRangeGroup;
+  private TimeRangeGroup timeRangeGroup;
 
   @Before
   public void setUp()
       throws NoSuchMethodException, InvocationTargetException, InstantiationException,
           IllegalAccessException {
-    Constructor[] allConstructors = timeRangeGroupClass.getConstructors();
-    Class[] parametersOfConstructor = allConstructors[0].getParameterTypes();
-    Constructor constructor = timeRangeGroupClass.getConstructor(parametersOfConstructor);
-    timeRangeGroup = (AbstractListTimeRangeGroup) constructor.newInstance(Arrays.asList());
+    timeRangeGroup = createTimeRangeGroup(Arrays.asList());
+  }
+
+  /** Creates an instance of the time range group class under test from the given ranges. */
+  private TimeRangeGroup createTimeRangeGroup(Iterable<TimeRange> timeRanges)
+      throws NoSuchMethodException, InvocationTargetException, InstantiationException,
+          IllegalAccessException {
+    Constructor constructor = timeRangeGroupClass.getConstructor(Iterable.class);
+    return (TimeRangeGroup) constructor.newInstance(timeRanges);
   }
 
   /** Tests for the method that checks if a time range exists in the group. */
@@ -92,7 +113,7 @@ public class TimeRangeGroupTest {
     Instant timeRangeNewEnd = timeRangeTwoEnd;
     TimeRange expected = TimeRange.fromStartEnd(timeRangeNewStart, timeRangeNewEnd);
 
-    TimeRange actual = timeRangeGroup.mergeTwoTimeRanges(timeRangeOne, timeRangeTwo);
+    TimeRange actual = AbstractListTimeRangeGroup.mergeTwoTimeRanges(timeRangeOne, timeRangeTwo);
     Assert.assertEquals(expected, actual);
   }
 
@@ -113,7 +134,7 @@ public class TimeRangeGroupTest {
     Instant timeRangeNewEnd = timeRangeTwoEnd;
     TimeRange expected = TimeRange.fromStartEnd(timeRangeNewStart, timeRangeNewEnd);
 
-    TimeRange actual = timeRangeGroup.mergeTwoTimeRanges(timeRangeOne, timeRangeTwo);
+    TimeRange actual = AbstractListTimeRangeGroup.mergeTwoTimeRanges(timeRangeOne, timeRangeTwo);
     Assert.assertEquals(expected, actual);
   }
 
@@ -764,4 +785,318 @@ public class TimeRangeGroupTest {
     Collections.sort(actual, TimeRange.SORT_BY_TIME_RANGE_DURATION_ASCENDING_THEN_START_TIME);
     Assert.assertEquals(expectedTimeRangesAfterDelete, actual);
   }
+
+  /**
+   * Tests that constructing a group from many unsorted, overlapping fragments merges them and
+   * iterates them in ascending order of start time.
+   */
+  @Test
+  public void testConstructFromManyFragments() throws Exception {
+    // Fragments: |-0-|-1-|  |-3-|-4-|  ... each pair of touching fragments merges,
+    // and every third slot is left empty.
+    Instant start = Instant.parse("2020-06-25T00:00:00Z");
+    List<TimeRange> fragments = new ArrayList<TimeRange>();
+    List<TimeRange> expected = new ArrayList<TimeRange>();
+    for (int slot = 0; slot < 300; slot += 3) {
+      Instant fragmentStart = start.plusSeconds(slot * 100);
+      fragments.add(TimeRange.fromStartEnd(fragmentStart, fragmentStart.plusSeconds(100)));
+      fragments.add(
+          TimeRange.fromStartEnd(fragmentStart.plusSeconds(100), fragmentStart.plusSeconds(200)));
+      expected.add(TimeRange.fromStartEnd(fragmentStart, fragmentStart.plusSeconds(200)));
+    }
+    Collections.reverse(fragments);
+
+    TimeRangeGroup group = createTimeRangeGroup(fragments);
+
+    List<TimeRange> actual = new ArrayList<TimeRange>();
+    group.forEach(actual::add);
+    Assert.assertEquals(expected, actual);
+  }
+
+  /** Tests that the first fit is the earliest range long enough, not the shortest one. */
+  @Test
+  public void testFindFirstFit() throws Exception {
+    // Time Ranges: |-A-|  |------B------|  |---C---|  |-D-|
+    // Looking for 20 minutes skips A and finds B, even though C is a tighter fit.
+    Instant start = Instant.parse("2020-06-25T00:00:00Z");
+    TimeRange timeRangeA = TimeRange.fromStartEnd(start, start.plusSeconds(600));
+    TimeRange timeRangeB = TimeRange.fromStartEnd(start.plusSeconds(1200), start.plusSeconds(4800));
+    TimeRange timeRangeC = TimeRange.fromStartEnd(start.plusSeconds(6000), start.plusSeconds(7500));
+    TimeRange timeRangeD = TimeRange.fromStartEnd(start.plusSeconds(9000), start.plusSeconds(9300));
+    TimeRangeGroup group =
+        createTimeRangeGroup(Arrays.asList(timeRangeD, timeRangeC, timeRangeB, timeRangeA));
+
+    Assert.assertEquals(Optional.of(timeRangeA), group.findFirstFit(Duration.ofMinutes(5)));
+    Assert.assertEquals(Optional.of(timeRangeA), group.findFirstFit(Duration.ofMinutes(10)));
+    Assert.assertEquals(Optional.of(timeRangeB), group.findFirstFit(Duration.ofMinutes(20)));
+    Assert.assertEquals(Optional.of(timeRangeB), group.findFirstFit(Duration.ofMinutes(60)));
+    Assert.assertEquals(Optional.empty(), group.findFirstFit(Duration.ofMinutes(60).plusNanos(1)));
+  }
+
+  /** Tests that the best fit is the shortest range long enough, and the earliest among ties. */
+  @Test
+  public void testFindBestFit() throws Exception {
+    // Time Ranges: |-A-|  |------B------|  |---C---|  |-D-|
+    // Looking for 20 minutes finds C; looking for 5 minutes finds A, which ties with D.
+    Instant start = Instant.parse("2020-06-25T00:00:00Z");
+    TimeRange timeRangeA = TimeRange.fromStartEnd(start, start.plusSeconds(300));
+    TimeRange timeRangeB = TimeRange.fromStartEnd(start.plusSeconds(1200), start.plusSeconds(4800));
+    TimeRange timeRangeC = TimeRange.fromStartEnd(start.plusSeconds(6000), start.plusSeconds(7500));
+    TimeRange timeRangeD = TimeRange.fromStartEnd(start.plusSeconds(9000), start.plusSeconds(9300));
+    TimeRangeGroup group =
+        createTimeRangeGroup(Arrays.asList(timeRangeA, timeRangeB, timeRangeC, timeRangeD));
+
+    Assert.assertEquals(Optional.of(timeRangeA), group.findBestFit(Duration.ofMinutes(5)));
+    Assert.assertEquals(Optional.of(timeRangeC), group.findBestFit(Duration.ofMinutes(20)));
+    Assert.assertEquals(Optional.of(timeRangeC), group.findBestFit(Duration.ofMinutes(25)));
+    Assert.assertEquals(
+        Optional.of(timeRangeB), group.findBestFit(Duration.ofMinutes(25).plusNanos(1)));
+    Assert.assertEquals(Optional.empty(), group.findBestFit(Duration.ofHours(2)));
+    Assert.assertEquals(Optional.empty(), timeRangeGroup.findBestFit(Duration.ofMinutes(1)));
+  }
+
+  /**
+   * Tests that adding many ranges at once, into a group that already has ranges, gives the same
+   * ranges as adding them one at a time.
+   */
+  @Test
+  public void testAddAllMatchesAddTimeRange() throws Exception {
+    Random random = new Random(61);
+    TimeRangeGroup expected = createTimeRangeGroup(Arrays.asList());
+    TimeRangeGroup actual = createTimeRangeGroup(Arrays.asList());
+
+    for (int round = 0; round < 20; round++) {
+      List<TimeRange> timeRanges = randomTimeRanges(random, 50);
+      timeRanges.forEach(expected::addTimeRange);
+      actual.addAll(timeRanges);
+
+      Assert.assertEquals(
+          TimeRangeGroupTestUtil.toList(expected), TimeRangeGroupTestUtil.toList(actual));
+    }
+  }
+
+  /** Tests that deleting many ranges at once gives the same ranges as deleting them one by one. */
+  @Test
+  public void testDeleteAllMatchesDeleteTimeRange() throws Exception {
+    Random random = new Random(61);
+    List<TimeRange> initialTimeRanges = randomTimeRanges(random, 200);
+    TimeRangeGroup expected = createTimeRangeGroup(initialTimeRanges);
+    TimeRangeGroup actual = createTimeRangeGroup(initialTimeRanges);
+
+    for (int round = 0; round < 20; round++) {
+      List<TimeRange> timeRangesToDelete = randomTimeRanges(random, 10);
+      timeRangesToDelete.forEach(expected::deleteTimeRange);
+      actual.deleteAll(timeRangesToDelete);
+
+      Assert.assertEquals(
+          TimeRangeGroupTestUtil.toList(expected), TimeRangeGroupTestUtil.toList(actual));
+    }
+  }
+
+  /** Tests that ranges which are already sorted and disjoint are kept exactly as they are. */
+  @Test
+  public void testAddAllSortedDisjointRanges() throws Exception {
+    Instant start = Instant.parse("2020-06-25T00:00:00Z");
+    List<TimeRange> timeRanges = new ArrayList<TimeRange>();
+    for (int i = 0; i < 100; i++) {
+      Instant rangeStart = start.plusSeconds(i * 1000);
+      timeRanges.add(TimeRange.fromStartEnd(rangeStart, rangeStart.plusSeconds(999)));
+    }
+
+    timeRangeGroup.addAll(timeRanges);
+
+    Assert.assertEquals(timeRanges, TimeRangeGroupTestUtil.toList(timeRangeGroup));
+  }
+
+  /**
+   * Tests that a sub group only has the ranges inside its window, clipped to the window, and that
+   * ranges which only touch the window are left out.
+   */
+  @Test
+  public void testSubGroup() throws Exception {
+    // Time Ranges: |--A--|  |--B--|  |--C--|  |--D--|
+    // Window:         |--------------|
+    // Sub group:      |A-|  |--B--|
+    Instant start = Instant.parse("2020-06-25T00:00:00Z");
+    TimeRange timeRangeA = TimeRange.fromStartEnd(start, start.plusSeconds(1000));
+    TimeRange timeRangeB = TimeRange.fromStartEnd(start.plusSeconds(2000), start.plusSeconds(3000));
+    TimeRange timeRangeC = TimeRange.fromStartEnd(start.plusSeconds(4000), start.plusSeconds(5000));
+    TimeRange timeRangeD = TimeRange.fromStartEnd(start.plusSeconds(6000), start.plusSeconds(7000));
+    TimeRangeGroup group =
+        createTimeRangeGroup(Arrays.asList(timeRangeA, timeRangeB, timeRangeC, timeRangeD));
+
+    TimeRangeGroup subGroup = group.subGroup(start.plusSeconds(500), start.plusSeconds(4000));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(start.plusSeconds(500), start.plusSeconds(1000)), timeRangeB),
+        TimeRangeGroupTestUtil.toList(subGroup));
+    Assert.assertTrue(subGroup.hasTimeRange(timeRangeB));
+    Assert.assertFalse(subGroup.hasTimeRange(timeRangeA));
+    Assert.assertFalse(subGroup.hasTimeRange(timeRangeC));
+  }
+
+  /** Tests that a sub group is a view, which shows the changes made to the group after it. */
+  @Test
+  public void testSubGroupReflectsChanges() throws Exception {
+    Instant start = Instant.parse("2020-06-25T00:00:00Z");
+    TimeRangeGroup subGroup = timeRangeGroup.subGroup(start, start.plusSeconds(3600));
+
+    timeRangeGroup.addTimeRange(
+        TimeRange.fromStartEnd(start.minusSeconds(60), start.plusSeconds(60)));
+    timeRangeGroup.addTimeRange(
+        TimeRange.fromStartEnd(start.plusSeconds(3000), start.plusSeconds(4000)));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(start, start.plusSeconds(60)),
+            TimeRange.fromStartEnd(start.plusSeconds(3000), start.plusSeconds(3600))),
+        TimeRangeGroupTestUtil.toList(subGroup));
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void testSubGroupIsReadOnly() {
+    Instant start = Instant.parse("2020-06-25T00:00:00Z");
+    timeRangeGroup
+        .subGroup(start, start.plusSeconds(3600))
+        .addTimeRange(TimeRange.fromStartEnd(start, start.plusSeconds(60)));
+  }
+
+  /** Tests that a parallel stream over the group sees every range exactly once, in order. */
+  @Test
+  public void testParallelStream() throws Exception {
+    Random random = new Random(61);
+    TimeRangeGroup group = createTimeRangeGroup(randomTimeRanges(random, 2000));
+    List<TimeRange> expected = TimeRangeGroupTestUtil.toList(group);
+
+    Spliterator<TimeRange> spliterator = group.spliterator();
+    List<TimeRange> actual = StreamSupport.stream(spliterator, true).collect(Collectors.toList());
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  /**
+   * Tests that the delta of a delete lists the split range as removed and its pieces as created.
+   */
+  @Test
+  public void testDeleteTimeRangeDelta() throws Exception {
+    TimeRangeGroup group = createTimeRangeGroup(Arrays.asList(TimeRange.fromEpochSeconds(0, 3600)));
+    TimeRangeGroupDelta delta = new TimeRangeGroupDelta();
+
+    group.deleteTimeRange(TimeRange.fromEpochSeconds(900, 1800), delta);
+
+    Assert.assertEquals(1, delta.removedCount());
+    Assert.assertEquals(0, delta.removedStartEpochSecondAt(0));
+    Assert.assertEquals(3600, delta.removedEndEpochSecondAt(0));
+    Assert.assertEquals(2, delta.createdCount());
+    Assert.assertEquals(0, delta.createdStartEpochSecondAt(0));
+    Assert.assertEquals(900, delta.createdEndEpochSecondAt(0));
+    Assert.assertEquals(1800, delta.createdStartEpochSecondAt(1));
+    Assert.assertEquals(3600, delta.createdEndEpochSecondAt(1));
+
+    // Adding a range that is already covered changes nothing.
+    group.addTimeRange(TimeRange.fromEpochSeconds(100, 200), delta);
+    Assert.assertTrue(delta.isEmpty());
+  }
+
+  /**
+   * Tests that applying the deltas of random changes to a copy of the ranges always gives the
+   * ranges of the group.
+   */
+  @Test
+  public void testDeltasReplayToSameRanges() throws Exception {
+    Random random = new Random(61);
+    TimeRangeGroup group = createTimeRangeGroup(randomTimeRanges(random, 100));
+    TreeMap<Long, Long> mirror = new TreeMap<Long, Long>();
+    group.forEach(range -> mirror.put(range.startEpochSecond(), range.endEpochSecond()));
+    TimeRangeGroupDelta delta = new TimeRangeGroupDelta();
+
+    for (TimeRange timeRange : randomTimeRanges(random, 500)) {
+      if (random.nextBoolean()) {
+        group.addTimeRange(timeRange, delta);
+      } else {
+        group.deleteTimeRange(timeRange, delta);
+      }
+
+      for (int i = 0; i < delta.removedCount(); i++) {
+        Assert.assertEquals(
+            Long.valueOf(delta.removedEndEpochSecondAt(i)),
+            mirror.remove(delta.removedStartEpochSecondAt(i)));
+      }
+      for (int i = 0; i < delta.createdCount(); i++) {
+        Assert.assertNull(
+            mirror.put(delta.createdStartEpochSecondAt(i), delta.createdEndEpochSecondAt(i)));
+      }
+
+      List<TimeRange> expected = new ArrayList<TimeRange>();
+      mirror.forEach((start, end) -> expected.add(TimeRange.fromEpochSeconds(start, end)));
+      Assert.assertEquals(expected, TimeRangeGroupTestUtil.toList(group));
+    }
+  }
+
+  /** Tests that the total free duration only counts the parts of the ranges inside the window. */
+  @Test
+  public void testTotalFreeDuration() throws Exception {
+    Instant start = Instant.parse("2020-06-25T03:00:00Z");
+    TimeRangeGroup group =
+        createTimeRangeGroup(
+            Arrays.asList(
+                TimeRange.fromStartEnd(start, start.plusSeconds(3600)),
+                TimeRange.fromStartEnd(start.plusSeconds(7200), start.plusSeconds(10800))));
+
+    Assert.assertEquals(
+        Duration.ofMinutes(45),
+        group.totalFreeDuration(start.plusSeconds(1800), start.plusSeconds(8100)));
+    Assert.assertEquals(
+        Duration.ofMinutes(120),
+        group.totalFreeDuration(start.minusSeconds(3600), start.plusSeconds(14400)));
+    Assert.assertEquals(
+        Duration.ZERO, group.totalFreeDuration(start.plusSeconds(3600), start.plusSeconds(7200)));
+    Assert.assertEquals(
+        Duration.ZERO, group.totalFreeDuration(start.plusSeconds(600), start.plusSeconds(600)));
+  }
+
+  /**
+   * Tests that the total free duration of random windows matches the sum over every range, after
+   * each of many random changes.
+   */
+  @Test
+  public void testTotalFreeDurationAfterRandomChanges() throws Exception {
+    Random random = new Random(61);
+    TimeRangeGroup group = createTimeRangeGroup(randomTimeRanges(random, 100));
+
+    for (TimeRange timeRange : randomTimeRanges(random, 300)) {
+      if (random.nextBoolean()) {
+        group.addTimeRange(timeRange);
+      } else {
+        group.deleteTimeRange(timeRange);
+      }
+
+      long fromSecond = 1593043200L - 1000 + random.nextInt(110000);
+      long toSecond = fromSecond + random.nextInt(20000);
+      long expectedSeconds = 0;
+      for (TimeRange range : group) {
+        expectedSeconds +=
+            Math.max(
+                0,
+                Math.min(range.endEpochSecond(), toSecond)
+                    - Math.max(range.startEpochSecond(), fromSecond));
+      }
+
+      Assert.assertEquals(
+          Duration.ofSeconds(expectedSeconds),
+          group.totalFreeDuration(
+              Instant.ofEpochSecond(fromSecond), Instant.ofEpochSecond(toSecond)));
+    }
+  }
+
+  /** Returns random time ranges of positive length, in no particular order. */
+  private static List<TimeRange> randomTimeRanges(Random random, int count) {
+    List<TimeRange> timeRanges = new ArrayList<TimeRange>();
+    for (int i = 0; i < count; i++) {
+      long start = 1593043200L + random.nextInt(100000);
+      timeRanges.add(TimeRange.fromEpochSeconds(start, start + 1 + random.nextInt(3000)));
+    }
+    return timeRanges;
+  }
 }
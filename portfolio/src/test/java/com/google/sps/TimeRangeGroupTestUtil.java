@@ -0,0 +1,22 @@
+package com.google.sps.data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+public class TimeRangeGroupTestUtil {
+  public static final Instant DAY_START = Instant.parse("2020-06-25T00:00:00Z");
+
+  /** Returns the range from {@code startMinute} to {@code endMinute} minutes after DAY_START. */
+  public static TimeRange range(int startMinute, int endMinute) {
+    return TimeRange.fromStartEnd(
+        DAY_START.plusSeconds(startMinute * 60L), DAY_START.plusSeconds(endMinute * 60L));
+  }
+
+  /** Returns the time ranges of the group, in the order the group iterates them. */
+  public static List<TimeRange> toList(TimeRangeGroup group) {
+    List<TimeRange> timeRanges = new ArrayList<TimeRange>();
+    group.forEach(timeRanges::add);
+    return timeRanges;
+  }
+}
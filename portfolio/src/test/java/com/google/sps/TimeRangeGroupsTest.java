@@ -0,0 +1,258 @@
+package com.google.sps.data;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests the set operations between time range groups. Ranges in these tests are on whole hours. */
+@RunWith(JUnit4.class)
+public final class TimeRangeGroupsTest {
+  private static final Instant START = Instant.parse("2020-06-25T00:00:00Z");
+
+  @Test
+  public void testUnion() {
+    // First:  |--|    |---|
+    // Second:   |---|       |--|
+    // Union:  |-----| |---| |--|
+    TimeRangeGroup first =
+        group(TimeRangeGroupTestUtil.range(0, 120), TimeRangeGroupTestUtil.range(360, 540));
+    TimeRangeGroup second =
+        group(TimeRangeGroupTestUtil.range(60, 300), TimeRangeGroupTestUtil.range(600, 720));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRangeGroupTestUtil.range(0, 300),
+            TimeRangeGroupTestUtil.range(360, 540),
+            TimeRangeGroupTestUtil.range(600, 720)),
+        TimeRangeGroupTestUtil.toList(TimeRangeGroups.union(first, second)));
+  }
+
+  @Test
+  public void testIntersection() {
+    // First:        |----|  |------|   |-|
+    // Second:         |-------|  |--|
+    // Intersection:   |--|  |-|  |-|
+    TimeRangeGroup first =
+        group(
+            TimeRangeGroupTestUtil.range(0, 300),
+            TimeRangeGroupTestUtil.range(420, 840),
+            TimeRangeGroupTestUtil.range(960, 1020));
+    TimeRangeGroup second =
+        group(TimeRangeGroupTestUtil.range(120, 480), TimeRangeGroupTestUtil.range(660, 900));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRangeGroupTestUtil.range(120, 300),
+            TimeRangeGroupTestUtil.range(420, 480),
+            TimeRangeGroupTestUtil.range(660, 840)),
+        TimeRangeGroupTestUtil.toList(TimeRangeGroups.intersection(first, second)));
+  }
+
+  @Test
+  public void testIntersectionOfTouchingRangesIsEmpty() {
+    TimeRangeGroup first = group(TimeRangeGroupTestUtil.range(0, 120));
+    TimeRangeGroup second = group(TimeRangeGroupTestUtil.range(120, 240));
+
+    Assert.assertEquals(
+        Arrays.asList(),
+        TimeRangeGroupTestUtil.toList(TimeRangeGroups.intersection(first, second)));
+  }
+
+  @Test
+  public void testIntersectionOfManyGroups() {
+    // The free time three people share is the time all of them are free.
+    List<TimeRangeGroup> groups =
+        Arrays.asList(
+            group(TimeRangeGroupTestUtil.range(540, 720), TimeRangeGroupTestUtil.range(780, 1020)),
+            group(TimeRangeGroupTestUtil.range(600, 960)),
+            group(TimeRangeGroupTestUtil.range(480, 660), TimeRangeGroupTestUtil.range(900, 1080)));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRangeGroupTestUtil.range(600, 660), TimeRangeGroupTestUtil.range(900, 960)),
+        TimeRangeGroupTestUtil.toList(TimeRangeGroups.intersection(groups)));
+    Assert.assertEquals(
+        Arrays.asList(),
+        TimeRangeGroupTestUtil.toList(
+            TimeRangeGroups.intersection(new ArrayList<TimeRangeGroup>())));
+  }
+
+  @Test
+  public void testDifference() {
+    // First:      |-----|  |---|
+    // Second:       |--------|
+    // Difference: |-|        |-|
+    TimeRangeGroup first =
+        group(TimeRangeGroupTestUtil.range(0, 300), TimeRangeGroupTestUtil.range(420, 600));
+    TimeRangeGroup second = group(TimeRangeGroupTestUtil.range(120, 480));
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(0, 120), TimeRangeGroupTestUtil.range(480, 600)),
+        TimeRangeGroupTestUtil.toList(TimeRangeGroups.difference(first, second)));
+  }
+
+  @Test
+  public void testComplement() {
+    // Window:     |--------------|
+    // Group:    |---|   |--|   |-----|
+    // Complement:   |---|  |---|
+    TimeRangeGroup group =
+        group(
+            TimeRangeGroupTestUtil.range(0, 180),
+            TimeRangeGroupTestUtil.range(360, 480),
+            TimeRangeGroupTestUtil.range(660, 900));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRangeGroupTestUtil.range(180, 360), TimeRangeGroupTestUtil.range(480, 660)),
+        TimeRangeGroupTestUtil.toList(
+            TimeRangeGroups.complement(group, TimeRangeGroupTestUtil.range(120, 780))));
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(120, 780)),
+        TimeRangeGroupTestUtil.toList(
+            TimeRangeGroups.complement(group(), TimeRangeGroupTestUtil.range(120, 780))));
+  }
+
+  @Test
+  public void testCoveredByAtLeast() {
+    // First:   |-----|
+    // Second:     |-------|
+    // Third:        |---|   |-|
+    // At least 2: |-----|
+    // At least 3:   |-|
+    List<TimeRangeGroup> groups =
+        Arrays.asList(
+            group(TimeRangeGroupTestUtil.range(180, 360)),
+            group(TimeRangeGroupTestUtil.range(240, 480)),
+            group(TimeRangeGroupTestUtil.range(300, 420), TimeRangeGroupTestUtil.range(540, 600)));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRangeGroupTestUtil.range(180, 480), TimeRangeGroupTestUtil.range(540, 600)),
+        TimeRangeGroupTestUtil.toList(TimeRangeGroups.coveredByAtLeast(groups, 1)));
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(240, 420)),
+        TimeRangeGroupTestUtil.toList(TimeRangeGroups.coveredByAtLeast(groups, 2)));
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(300, 360)),
+        TimeRangeGroupTestUtil.toList(TimeRangeGroups.coveredByAtLeast(groups, 3)));
+    Assert.assertEquals(
+        new ArrayList<TimeRange>(),
+        TimeRangeGroupTestUtil.toList(TimeRangeGroups.coveredByAtLeast(groups, 4)));
+  }
+
+  @Test
+  public void testCoveredByAtLeastOfTouchingRanges() {
+    // Ranges of different groups that only touch are never covered twice.
+    List<TimeRangeGroup> groups =
+        Arrays.asList(
+            group(TimeRangeGroupTestUtil.range(0, 120)),
+            group(TimeRangeGroupTestUtil.range(120, 240)));
+
+    Assert.assertEquals(
+        new ArrayList<TimeRange>(),
+        TimeRangeGroupTestUtil.toList(TimeRangeGroups.coveredByAtLeast(groups, 2)));
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(0, 240)),
+        TimeRangeGroupTestUtil.toList(TimeRangeGroups.coveredByAtLeast(groups, 1)));
+  }
+
+  /**
+   * Tests that the quorum of many random groups matches counting the groups that cover each second,
+   * and equals the intersection when every group must cover the range.
+   */
+  @Test
+  public void testCoveredByAtLeastMatchesCounting() {
+    Random random = new Random(61);
+    long windowStart = START.getEpochSecond();
+    int windowSeconds = 2000;
+    List<TimeRangeGroup> groups = new ArrayList<TimeRangeGroup>();
+    for (int i = 0; i < 30; i++) {
+      List<TimeRange> timeRanges = new ArrayList<TimeRange>();
+      for (int j = 0; j < 5; j++) {
+        long start = windowStart + random.nextInt(windowSeconds);
+        timeRanges.add(TimeRange.fromEpochSeconds(start, start + 1 + random.nextInt(600)));
+      }
+      groups.add(group(timeRanges.toArray(new TimeRange[0])));
+    }
+
+    for (int k = 1; k <= groups.size(); k++) {
+      TimeRangeGroup quorum = TimeRangeGroups.coveredByAtLeast(groups, k);
+      for (long second = windowStart; second < windowStart + windowSeconds + 600; second++) {
+        TimeRange oneSecond = TimeRange.fromEpochSeconds(second, second + 1);
+        int coverCount = 0;
+        for (TimeRangeGroup group : groups) {
+          coverCount += group.hasTimeRange(oneSecond) ? 1 : 0;
+        }
+        Assert.assertEquals(coverCount >= k, quorum.hasTimeRange(oneSecond));
+      }
+    }
+    Assert.assertEquals(
+        TimeRangeGroupTestUtil.toList(TimeRangeGroups.intersection(groups)),
+        TimeRangeGroupTestUtil.toList(TimeRangeGroups.coveredByAtLeast(groups, groups.size())));
+  }
+
+  @Test
+  public void testFreeForAtLeast() {
+    // Alice:     |-A-|
+    // Bob:           |----B----|
+    // Both free: |--|           |---------|
+    CalendarEventsGroup alice =
+        new CalendarEventsGroup(
+            Arrays.asList(new CalendarEvent("A", hour(1), hour(2))), hour(0), hour(10));
+    CalendarEventsGroup bob =
+        new CalendarEventsGroup(
+            Arrays.asList(new CalendarEvent("B", hour(2), hour(5))), hour(0), hour(10));
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(0, 60), TimeRangeGroupTestUtil.range(300, 600)),
+        TimeRangeGroupTestUtil.toList(
+            TimeRangeGroups.freeForAtLeast(Arrays.asList(alice, bob), 2)));
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(0, 600)),
+        TimeRangeGroupTestUtil.toList(
+            TimeRangeGroups.freeForAtLeast(Arrays.asList(alice, bob), 1)));
+  }
+
+  /** Tests that the factory picks the implementation from the workload and the size. */
+  @Test
+  public void testCreate() {
+    List<TimeRange> fewRanges =
+        Arrays.asList(TimeRangeGroupTestUtil.range(0, 60), TimeRangeGroupTestUtil.range(120, 180));
+    List<TimeRange> manyRanges = new ArrayList<TimeRange>();
+    for (int i = 0; i <= AdaptiveTimeRangeGroup.DEFAULT_MIGRATION_THRESHOLD; i++) {
+      manyRanges.add(TimeRangeGroupTestUtil.range(i * 120, i * 120 + 60));
+    }
+
+    Assert.assertTrue(
+        TimeRangeGroups.create(manyRanges, TimeRangeGroups.Workload.READ_MOSTLY)
+            instanceof LongArrayTimeRangeGroup);
+    Assert.assertTrue(
+        TimeRangeGroups.create(fewRanges, TimeRangeGroups.Workload.DELETE_HEAVY)
+            instanceof LongArrayTimeRangeGroup);
+    Assert.assertTrue(
+        TimeRangeGroups.create(manyRanges, TimeRangeGroups.Workload.DELETE_HEAVY)
+            instanceof TreeMapTimeRangeGroup);
+    Assert.assertTrue(
+        TimeRangeGroups.create(fewRanges, TimeRangeGroups.Workload.MIXED)
+            instanceof AdaptiveTimeRangeGroup);
+    Assert.assertEquals(
+        manyRanges,
+        TimeRangeGroupTestUtil.toList(
+            TimeRangeGroups.create(manyRanges, TimeRangeGroups.Workload.DELETE_HEAVY)));
+  }
+
+  private static Instant hour(int hour) {
+    return START.plusSeconds(hour * 3600L);
+  }
+
+  private static TimeRangeGroup group(TimeRange... timeRanges) {
+    return new ArrayListTimeRangeGroup(Arrays.asList(timeRanges));
+  }
+}
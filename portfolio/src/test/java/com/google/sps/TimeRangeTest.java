@@ -1,8 +1,11 @@
 package com.google.sps.data;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.time.Duration;
 import java.time.Instant;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.junit.runners.JUnit4;
@@ -224,4 +227,68 @@ public final class TimeRangeTest {
     Assert.assertTrue(timeRangeOne.overlaps(timeRangeTwo));
     Assert.assertTrue(timeRangeTwo.overlaps(timeRangeOne));
   }
+
+  /**
+   * Makes sure that the overlap and containment checks do not allocate. Before time ranges were
+   * stored as epoch seconds, each of these checks built a new end Instant, which added up to
+   * several megabytes for the number of calls made here.
+   */
+  @Test
+  public void testChecksDoNotAllocate() {
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    Assume.assumeTrue(threadBean instanceof com.sun.management.ThreadMXBean);
+    com.sun.management.ThreadMXBean allocationBean = (com.sun.management.ThreadMXBean) threadBean;
+    Assume.assumeTrue(allocationBean.isThreadAllocatedMemorySupported());
+    allocationBean.setThreadAllocatedMemoryEnabled(true);
+
+    TimeRange timeRangeOne = TimeRange.fromStartEnd(TIME_0900, TIME_0930);
+    TimeRange timeRangeTwo =
+        TimeRange.fromStartEnd(TIME_0900.plusSeconds(600), TIME_0930.plusSeconds(600));
+    Instant point = TIME_0900.plusSeconds(60);
+    long threadId = Thread.currentThread().getId();
+    int iterations = 100000;
+    int matches = 0;
+
+    // Called once up front so that the measuring itself is not counted.
+    allocationBean.getThreadAllocatedBytes(threadId);
+    long allocatedBefore = allocationBean.getThreadAllocatedBytes(threadId);
+    for (int i = 0; i < iterations; i++) {
+      if (timeRangeOne.overlaps(timeRangeTwo)) {
+        matches++;
+      }
+      if (timeRangeOne.contains(timeRangeTwo)) {
+        matches++;
+      }
+      if (TimeRange.timeRangeContainsPoint(timeRangeOne, point)) {
+        matches++;
+      }
+      if (timeRangeOne.canFitBeforeEnd(point, DURATION_30_MINUTES)) {
+        matches++;
+      }
+    }
+    long allocatedBytes = allocationBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+    Assert.assertEquals(2 * iterations, matches);
+    // Allows a little slack for the measuring call, but far less than one byte per check.
+    Assert.assertTrue("Allocated " + allocatedBytes + " bytes", allocatedBytes < iterations / 10);
+  }
+
+  /** Makes sure that sub-second precision is dropped when creating a time range. */
+  @Test
+  public void testFromStartEndDropsFractionOfSecond() {
+    TimeRange timeRange =
+        TimeRange.fromStartEnd(TIME_0900.plusMillis(500), TIME_0930.plusMillis(250));
+    Assert.assertEquals(TIME_0900, timeRange.start());
+    Assert.assertEquals(TIME_0930, timeRange.end());
+    Assert.assertEquals(TimeRange.fromStartEnd(TIME_0900, TIME_0930), timeRange);
+  }
+
+  /** Tests the fit check the schedulers use, including a start that has a fraction of a second. */
+  @Test
+  public void testCanFitBeforeEnd() {
+    TimeRange timeRange = TimeRange.fromStartEnd(TIME_0900, TIME_0930);
+    Assert.assertTrue(timeRange.canFitBeforeEnd(TIME_0900, DURATION_30_MINUTES));
+    Assert.assertFalse(timeRange.canFitBeforeEnd(TIME_0900.plusSeconds(1), DURATION_30_MINUTES));
+    Assert.assertFalse(timeRange.canFitBeforeEnd(TIME_0900.plusMillis(1), DURATION_30_MINUTES));
+  }
 }
@@ -0,0 +1,132 @@
+package com.google.sps.data;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** Tests the savepoints and the undo journal of the transactional wrapper. */
+@RunWith(JUnit4.class)
+public final class TransactionalTimeRangeGroupTest {
+  private TransactionalTimeRangeGroup timeRangeGroup;
+
+  @Before
+  public void setUp() {
+    timeRangeGroup =
+        new TransactionalTimeRangeGroup(
+            new ArrayListTimeRangeGroup(
+                Arrays.asList(
+                    TimeRangeGroupTestUtil.range(0, 60), TimeRangeGroupTestUtil.range(120, 180))));
+  }
+
+  /** Tests that rolling back undoes merges and splits, and leaves the original ranges. */
+  @Test
+  public void testRollbackUndoesChanges() {
+    timeRangeGroup.begin();
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(50, 130));
+    timeRangeGroup.deleteTimeRange(TimeRangeGroupTestUtil.range(10, 20));
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(300, 400));
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRangeGroupTestUtil.range(0, 10),
+            TimeRangeGroupTestUtil.range(20, 180),
+            TimeRangeGroupTestUtil.range(300, 400)),
+        TimeRangeGroupTestUtil.toList(timeRangeGroup));
+
+    timeRangeGroup.rollback();
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(0, 60), TimeRangeGroupTestUtil.range(120, 180)),
+        TimeRangeGroupTestUtil.toList(timeRangeGroup));
+    Assert.assertEquals(0, timeRangeGroup.depth());
+  }
+
+  /** Tests that nested savepoints are rolled back and committed one at a time. */
+  @Test
+  public void testNestedSavepoints() {
+    timeRangeGroup.begin();
+    timeRangeGroup.deleteTimeRange(TimeRangeGroupTestUtil.range(0, 30));
+    timeRangeGroup.begin();
+    timeRangeGroup.deleteTimeRange(TimeRangeGroupTestUtil.range(120, 150));
+    timeRangeGroup.begin();
+    timeRangeGroup.addTimeRange(TimeRangeGroupTestUtil.range(60, 120));
+
+    timeRangeGroup.rollback();
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(30, 60), TimeRangeGroupTestUtil.range(150, 180)),
+        TimeRangeGroupTestUtil.toList(timeRangeGroup));
+
+    // Committing the inner savepoint keeps its change until the outer one is rolled back.
+    timeRangeGroup.commit();
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(30, 60), TimeRangeGroupTestUtil.range(150, 180)),
+        TimeRangeGroupTestUtil.toList(timeRangeGroup));
+
+    timeRangeGroup.rollback();
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(0, 60), TimeRangeGroupTestUtil.range(120, 180)),
+        TimeRangeGroupTestUtil.toList(timeRangeGroup));
+  }
+
+  /** Tests that committed changes are kept and cannot be rolled back any more. */
+  @Test
+  public void testCommitKeepsChanges() {
+    timeRangeGroup.begin();
+    timeRangeGroup.deleteTimeRange(TimeRangeGroupTestUtil.range(0, 60));
+    timeRangeGroup.commit();
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRangeGroupTestUtil.range(120, 180)),
+        TimeRangeGroupTestUtil.toList(timeRangeGroup));
+    Assert.assertEquals(0, timeRangeGroup.depth());
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void testRollbackWithoutBeginThrows() {
+    timeRangeGroup.rollback();
+  }
+
+  /**
+   * Tests a random backtracking search, where every level makes random changes and then is rolled
+   * back or committed, against copies of the group taken at every savepoint.
+   */
+  @Test
+  public void testRandomBacktrackingMatchesCopies() {
+    Random random = new Random(61);
+    List<List<TimeRange>> snapshots = new ArrayList<List<TimeRange>>();
+
+    for (int step = 0; step < 3000; step++) {
+      int action = random.nextInt(10);
+      if (action == 0 || snapshots.isEmpty()) {
+        snapshots.add(TimeRangeGroupTestUtil.toList(timeRangeGroup));
+        timeRangeGroup.begin();
+      } else if (action == 1) {
+        timeRangeGroup.rollback();
+        Assert.assertEquals(
+            snapshots.remove(snapshots.size() - 1), TimeRangeGroupTestUtil.toList(timeRangeGroup));
+      } else if (action == 2) {
+        timeRangeGroup.commit();
+        snapshots.remove(snapshots.size() - 1);
+      } else {
+        int start = random.nextInt(3000);
+        TimeRange timeRange = TimeRangeGroupTestUtil.range(start, start + 1 + random.nextInt(200));
+        if (random.nextBoolean()) {
+          timeRangeGroup.addTimeRange(timeRange);
+        } else {
+          timeRangeGroup.deleteTimeRange(timeRange);
+        }
+      }
+    }
+
+    while (!snapshots.isEmpty()) {
+      timeRangeGroup.rollback();
+      Assert.assertEquals(
+          snapshots.remove(snapshots.size() - 1), TimeRangeGroupTestUtil.toList(timeRangeGroup));
+    }
+  }
+}